@@ -1,7 +1,15 @@
 package visualizacionwearables.modelo;
 
-import visualizacionwearables.modelo.utils.Punto;
+import visualizacionwearables.modelo.utils.AnilloPixeles;
+import visualizacionwearables.modelo.utils.BufferCoordenadas;
+import visualizacionwearables.modelo.utils.CacheReducciones;
 import visualizacionwearables.modelo.utils.DatosSensores;
+import visualizacionwearables.modelo.utils.NivelesDetalle;
+import visualizacionwearables.modelo.utils.PuntosEscalados;
+import visualizacionwearables.modelo.utils.RangoFilas;
+import visualizacionwearables.modelo.utils.Reductor;
+import visualizacionwearables.modelo.utils.ReductorPorPixeles;
+import visualizacionwearables.modelo.utils.ReductorVecinoMasCercano;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
@@ -17,7 +25,11 @@ import java.util.Map.Entry;
 public class GraficoModelo {
     
     /** Los datos del Modelo */
-    private final DatosSensores mDatosSensores;
+    private DatosSensores mDatosSensores;
+    
+    /** La instantanea de los datos que se muestra, null si se ha de tomar
+     * una nueva cada vez que se consultan los datos */
+    private DatosSensores mInstantanea;
     
     /** Porcentaje de longitud en el eje X que nos saltaremos */
     private double mOffset;
@@ -30,6 +42,44 @@ public class GraficoModelo {
     /** El maximo zoom que se puede hacer en el grafico */
     private final double ZOOM = 0.05;
     
+    /** El tiempo que se muestra en el grafico hasta la ultima fila de los
+     * datos, 0 si se muestran todas las filas */
+    private double mVentanaTiempo;
+    
+    /** El algoritmo con el que se reducen las filas visibles a los puntos a
+     * dibujar */
+    private Reductor mReductor;
+    
+    /** El tiempo en nanosegundos que se tardo en obtener los ultimos puntos */
+    private long mTiempoReduccion;
+    
+    /** El numero maximo de bytes que ocupan por defecto los puntos ya
+     * reducidos que se guardan */
+    private static final long MAX_BYTES_CACHE = 4 << 20;
+    
+    /** Los puntos ya reducidos de las ultimas zonas mostradas */
+    private final CacheReducciones mCache;
+    
+    /** Los puntos de cada pixel de la ultima zona mostrada, para no tener que
+     * volver a reducirlos al desplazarnos */
+    private final AnilloPixeles mAnillo;
+    
+    /** Los arrays donde se escriben los puntos reducidos, que se reutilizan
+     * mientras quepan los puntos */
+    private double[] mXReducidos, mYReducidos;
+    
+    /** La clave con la que se buscan los puntos en la cache, que se reutiliza
+     * en cada consulta ya que la cache guarda su propia copia */
+    private final CacheReducciones.Clave mClave;
+    
+    /** La clave con la que se identifica la escala de los pixeles del anillo,
+     * que solo se vuelve a crear cuando cambia algo mas que el offset */
+    private CacheReducciones.Clave mEscalaPixeles;
+    
+    /** El array donde se escriben el minimo y el maximo de las filas
+     * visibles */
+    private final double[] mExtremos;
+    
     
     /** Crea un nuevo GraficoModelo a partir del fichero csv de la ruta dada
      * 
@@ -42,6 +92,73 @@ public class GraficoModelo {
         mDatosSensores = datosSensores;
         mZoom = zoom;
         mOffset = offset;
+        mVentanaTiempo = 0;
+        mReductor = new ReductorVecinoMasCercano();
+        mTiempoReduccion = 0;
+        mCache = new CacheReducciones(MAX_BYTES_CACHE);
+        mAnillo = new AnilloPixeles();
+        mXReducidos = new double[0];
+        mYReducidos = new double[0];
+        mClave = new CacheReducciones.Clave();
+        mEscalaPixeles = null;
+        mExtremos = new double[2];
+    }
+    
+    /** Cambia los datos que se muestran en el grafico manteniendo la zona
+     * visible
+     * 
+     * @param datosSensores los nuevos datos a mostrar en el grafico */
+    public void setDatosSensores(DatosSensores datosSensores) {
+        mDatosSensores = datosSensores;
+        mInstantanea = null;
+        mEscalaPixeles = null;
+        mCache.vacia();
+    }
+    
+    /** Cambia el tiempo que se muestra en el grafico, de forma que solo se
+     * muestren las filas mas recientes de los datos segun se van añadiendo
+     * 
+     * @param ventanaTiempo el tiempo que se muestra hasta la ultima fila de
+     *      los datos, 0 si queremos mostrar todas las filas */
+    public void setVentanaTiempo(double ventanaTiempo) {
+        mVentanaTiempo = ventanaTiempo;
+        mInstantanea = null;
+    }
+    
+    /** Toma una instantanea de las filas de los datos que se muestran, que
+     * emplearan getPuntos, calculateGridX y calculateGridY hasta la siguiente
+     * llamada. Asi al dibujar el grafico las filas solo se copian una vez si
+     * se siguen añadiendo filas a los datos, y todas sus partes muestran las
+     * mismas filas */
+    public void tomaInstantanea() {
+        mInstantanea = mDatosSensores.getInstantanea(mVentanaTiempo);
+    }
+    
+    /** @return el algoritmo con el que se reducen las filas visibles a los
+     *      puntos a dibujar */
+    public Reductor getReductor() {
+        return mReductor;
+    }
+    
+    /** Cambia el algoritmo con el que se reducen las filas visibles a los
+     * puntos a dibujar la proxima vez que llamemos a getPuntos
+     * 
+     * @param reductor el nuevo algoritmo */
+    public void setReductor(Reductor reductor) {
+        mReductor = reductor;
+    }
+    
+    /** @return la cache con los puntos ya reducidos de las ultimas zonas
+     *      mostradas, que permite cambiar su tamaño y consultar su uso */
+    public CacheReducciones getCache() {
+        return mCache;
+    }
+    
+    /** @return el tiempo en nanosegundos que se tardo en obtener los puntos
+     *      la ultima vez que se llamo a getPuntos, para poder comparar los
+     *      distintos algoritmos */
+    public long getTiempoReduccion() {
+        return mTiempoReduccion;
     }
     
     /** @return el numero de columnas necesarias para las componentes de los
@@ -50,6 +167,12 @@ public class GraficoModelo {
         return mDatosSensores.getNumDatos();
     }
     
+    /** @return el numero de filas de datos que hay actualmente en el modelo
+     *      (puede crecer si los datos todavia se estan leyendo) */
+    public int getNumFilas() {
+        return mDatosSensores.getNumRows();
+    }
+    
     /** @return el zoom actual (longitud que queremos visualizar en el viewport)
      * en el rango [0.0, 1.0] */
     public double getZoom() {
@@ -136,14 +259,20 @@ public class GraficoModelo {
      * @return una lista de pares con el punto donde dibujar la linea vertical
      *      y el valor correspondiente en el grafico */
     public List< Entry<Integer, String> > calculateGridX(int minX, int maxX) {
-        List<Punto> puntos  = getPuntos(0);
         List< Entry<Integer, String> > ret = new ArrayList<>();
         
-        double  longitudR   = getMaxX(puntos) - getMinX(puntos),
+        // Solo necesitamos los tiempos de la primera y la ultima fila
+        // mostradas, ya que los tiempos de las filas son crecientes
+        DatosSensores datos = getInstantanea();
+        int numFilas = datos.getNumRows();
+        double  primerTiempo = datos.getTiempo(getPrimeraFila(datos, numFilas)),
+                ultimoTiempo = datos.getTiempo(numFilas - 1);
+        
+        double  longitudR   = ultimoTiempo - primerTiempo,
                 longitudV   = longitudR * mZoom,
                 msToPx      = (maxX - minX) / longitudV,
                 pasoMs      = calculaPaso(longitudV, 12),
-                offsetIni   = longitudR * mOffset + puntos.get(0).getX(),
+                offsetIni   = longitudR * mOffset + primerTiempo,
                 offsetIt    = offsetIni + pasoMs - offsetIni % pasoMs;
         
         while (offsetIt < offsetIni + longitudR * mZoom) {
@@ -175,11 +304,15 @@ public class GraficoModelo {
         assert dato >= 0 && dato < mDatosSensores.getNumDatos() :
             " No se puede obtener los datos de la columna '" + dato + '\'';
         
-        List<Punto> puntos = getPuntos(dato);
         List< Entry<Integer, String> > ret = new ArrayList<>();
         
-        double  curMaxY     = getMaxY(puntos),
-                longitud    = curMaxY - getMinY(puntos),
+        DatosSensores datos = getInstantanea();
+        int numFilas = datos.getNumRows(),
+            primeraFila = getPrimeraFila(datos, numFilas);
+        datos.getExtremos(dato, primeraFila, numFilas - primeraFila, mExtremos);
+        
+        double  curMaxY     = mExtremos[1],
+                longitud    = curMaxY - mExtremos[0],
                 yToPx       = (maxY - minY) / longitud,
                 pasoY       = calculaPaso(longitud, 8),
                 offsetY     = curMaxY % pasoY;
@@ -200,68 +333,115 @@ public class GraficoModelo {
         return ret;
     }
     
-    /** Retorna los puntos con los datos del tiempo en el eje X y el datos
-     * solicitados en el eje Y, creados a partir de la interpolacion de
-     * los datos de los sensores mediante el algoritmo del Vecino mas Cercano.
+    /** Obtiene los puntos con los datos del tiempo en el eje X y el datos
+     * solicitados en el eje Y, reducidos a los necesarios para dibujarlos
+     * mediante el Reductor del grafico, y los escribe en el buffer dado.
+     * <br>Los arrays intermedios se reutilizan entre llamadas, por lo que si
+     * se reutiliza tambien el buffer apenas se reserva memoria al dibujar.
+     * <br>Si el Reductor lo admite y hay varias filas visibles por pixel, se
+     * reducen las filas del nivel de detalle de los datos con menos filas que
+     * todavia tenga al menos una fila visible por pixel, por lo que el coste
+     * apenas depende del zoom. Hasta que se calculan los primeros niveles se
+     * reducen las filas de los datos.
+     * <br>El inicio de la zona visible se ajusta a un numero entero de
+     * pixeles, de forma que al desplazarnos sin cambiar el zoom los pixeles
+     * que siguen visibles no cambian. Si el Reductor reduce cada pixel por
+     * separado solo se reducen los pixeles que aparecen.
+     * <br>Si ya se habian obtenido los puntos de la misma zona del grafico se
+     * copian los guardados en la cache.
      * <br>Nota: El origen de coordenadas en el viewport se encuentra arriba a
      * la izquierda
      * 
      * @param dato el dato que queremos almacenar en el eje Y
      * @param minX el minimo valor en el eje X en las coordenadas del grafico
-     * @param maxX el minimo valor en el eje X en las coordenadas del grafico
+     * @param maxX el maximo valor en el eje X en las coordenadas del grafico
      * @param minY el minimo valor en el eje Y en las coordenadas del grafico
-     * @param maxY el minimo valor en el eje Y en las coordenadas del grafico
-     * @return una lista con los puntos solicitados */
-    public List<Punto> getPuntosNearestNeighbor(
-            int dato, int minX, int maxX, int minY, int maxY
-    ) {
-        List<Punto> ret = new ArrayList<>(),
-                    puntos = getPuntos(dato);
-
-        double  longitudX       = puntos.get(puntos.size() - 1).getX()
-                                - puntos.get(0).getX(),
-                longitudY       = maxY - minY,
-                limiteInferior  = longitudX * mOffset + puntos.get(0).getX(),
+     * @param maxY el maximo valor en el eje Y en las coordenadas del grafico
+     * @param destino el buffer donde se escribiran los puntos solicitados */
+    public void getPuntos(int dato, int minX, int maxX, int minY, int maxY,
+            BufferCoordenadas destino) {
+        assert dato >= 0 && dato < mDatosSensores.getNumDatos() :
+            " No se puede obtener los datos de la columna '" + dato + '\'';
+        
+        long inicio = System.nanoTime();
+        
+        // Consultamos una instantanea para que las filas no cambien si se
+        // añaden nuevas mientras las recorremos
+        DatosSensores datos = getInstantanea();
+        int numFilas = datos.getNumRows(),
+            primeraFila = getPrimeraFila(datos, numFilas);
+        Reductor reductor = mReductor;
+        
+        int numPixeles = Math.max(maxX - minX, 1);
+        long primerPixel = Math.round(mOffset * numPixeles / mZoom);
+        double  primerTiempo    = datos.getTiempo(primeraFila),
+                longitudX       = datos.getTiempo(numFilas - 1) - primerTiempo,
+                limiteInferior  = primerTiempo + primerPixel * (longitudX * mZoom / numPixeles),
                 limiteSuperior  = limiteInferior + longitudX * mZoom;
         
-        // Ajustamos los datos al tamaño del grafico
-        scaleY(puntos, minY, maxY);
-        puntos = recortaPuntos(puntos, limiteInferior, limiteSuperior);
-        scaleX(puntos, minX, maxX);
+        DatosSensores filas = datos;
+        if (reductor.admiteNivelesDetalle()) {
+            filas = getNivelDetalle(
+                datos, dato, primeraFila, numFilas,
+                limiteInferior, limiteSuperior, maxX - minX
+            );
+        }
         
-        for (int i = 0; i < maxX; i++) {
-            // Obtenemos los puntos dentro del rango [i +- 0.5]
-            List<Punto> puntosCercanos = new ArrayList<>();
-            for (Punto p : puntos) {
-                if (p.getX() < i + 0.5)
-                if ((p.getX() > i - 0.5) && (p.getX() < i + 0.5)) {
-                    puntosCercanos.add(p);
-                }
-            }
-
-            // Obtenemos el punto más cercano en el eje X al pixel actual de
-            // entre los puntos anteriores
-            Punto puntoMasCercano = getPuntoMasCercano(puntosCercanos, i);
-
-            // Si existe, añadimos el punto mas cercano invirtiendo su Y ya que
-            // el origen de coordenadas esta arriba a la izquierda
-            if (puntoMasCercano != null) {
-                ret.add( new Punto( puntoMasCercano.getX(),
-                                    longitudY - puntoMasCercano.getY() ) );
+        DatosSensores datosClave = (filas == datos)? mDatosSensores : filas;
+        mClave.set(
+            datosClave, numFilas,
+            datos.getTiempo(0), datos.getTiempo(numFilas - 1), mVentanaTiempo,
+            dato, mOffset, mZoom, minX, maxX, minY, maxY, reductor
+        );
+        if (mCache.get(mClave, destino)) {
+            mTiempoReduccion = System.nanoTime() - inicio;
+            return;
+        }
+        
+        // Ajustamos los datos al tamaño del grafico y los reducimos
+        PuntosEscalados puntos = getPuntosVisibles(
+            datos, filas, dato, primeraFila, limiteInferior, limiteSuperior,
+            minX, maxX, minY, maxY
+        );
+        int maxPuntos = reductor.getMaxPuntos(puntos.getNumPuntos(), maxX);
+        if (mXReducidos.length < maxPuntos) {
+            mXReducidos = new double[maxPuntos];
+            mYReducidos = new double[maxPuntos];
+        }
+        double[] x = mXReducidos, y = mYReducidos;
+        int numPuntos;
+        if (reductor instanceof ReductorPorPixeles) {
+            // Los pixeles no cambian mientras no cambie nada mas que el
+            // offset, en cuyo caso se le pasa al anillo la misma escala
+            if ((mEscalaPixeles == null) || !mEscalaPixeles.isMismaEscala(mClave)) {
+                mEscalaPixeles = new CacheReducciones.Clave(mClave);
             }
+            mAnillo.desplaza(mEscalaPixeles, primerPixel);
+            numPuntos = ((ReductorPorPixeles) reductor).reduce(puntos, maxX, mAnillo, x, y);
+        } else {
+            numPuntos = reductor.reduce(puntos, maxX, x, y);
         }
         
-        if (puntos.size() > 1) {
-            ret.add(
-                new Punto(  puntos.get(puntos.size()-1).getX(),
-                            longitudY - puntos.get(puntos.size()-1).getY() )
-            );
+        // Invertimos las Y ya que el origen de coordenadas esta arriba a la
+        // izquierda
+        double longitudY = maxY - minY;
+        for (int i = 0; i < numPuntos; i++) {
+            y[i] = longitudY - y[i];
         }
+        destino.setPuntos(x, y, numPuntos);
+        mCache.put(mClave, destino);
         
-        return ret;
+        mTiempoReduccion = System.nanoTime() - inicio;
     }
     
 // Funciones privadas: 
+    /** @return la ultima instantanea tomada de los datos, o una nueva si no
+     *      se ha tomado ninguna */
+    private DatosSensores getInstantanea() {
+        return (mInstantanea != null)?
+            mInstantanea : mDatosSensores.getInstantanea(mVentanaTiempo);
+    }
+    
     /** @return el paso entre cada linea que hemos de poner en el viewport
      * @param double longitud la longitud entre los valores 
      * @param maxPasos el objetivo de numero de pasos que queremos */
@@ -282,200 +462,120 @@ public class GraficoModelo {
         return paso;
     }
     
-    /** Retorna una Lista con los puntos creados a partir de los datos de los
-     * sensores, con los datos del tiempo en el eje X y el datos solicitados en
-     * el eje Y
+    /** Busca la primera fila de los datos dados que hay que mostrar segun la
+     * ventana de tiempo del grafico
      * 
-     * @param dato el dato que queremos almacenar en el eje Y
-     * @return un lista con los puntos solicitados */
-    private List<Punto> getPuntos(int dato) {
-        assert dato >= 0 && dato < mDatosSensores.getNumDatos() :
-            " No se puede obtener los datos de la columna '" + dato + '\'';
+     * @param datos los datos a mostrar
+     * @param numFilas el numero de filas de los datos
+     * @return el indice de la primera fila a mostrar */
+    private int getPrimeraFila(DatosSensores datos, int numFilas) {
+        if ((mVentanaTiempo <= 0) || (numFilas < 2)) { return 0; }
         
-        List<Punto> puntos = new ArrayList<>(mDatosSensores.getNumRows());
+        // Buscamos la primera fila dentro de la ventana mediante una busqueda
+        // binaria, ya que los tiempos de las filas son crecientes
+        double limite = datos.getTiempo(numFilas - 1) - mVentanaTiempo;
+        int inicio = datos.buscaFila(limite, 0, numFilas - 1);
         
-        for (int i = 0; i < mDatosSensores.getNumRows(); i++) {
-            puntos.add(i, new Punto(mDatosSensores.getTiempo(i),
-                                    mDatosSensores.getDatos(dato, i)));
-        }
-        
-        return puntos;
+        // Siempre mostramos al menos dos filas
+        return Math.min(inicio, numFilas - 2);
     }
     
-    /** Devuelve una lista con aquellos puntos de los dados que no excedan los
-     * limites en el eje X determinados por el offset y el zoom
-     * (los puntos de los extremos si se incluyen)
+    /** Busca el nivel de detalle de la columna dada con menos filas que
+     * todavia tiene al menos una fila visible por pixel
      * 
-     * @param puntos los puntos que queremos recortar
-     * @param limiteInferior el valor minimo en el eje X que han de tener los
-     *      puntos de la lista de puntos despues de recortarlos
-     * @param limiteSuperior el valor maximo en el eje X que han de tener los
-     *      puntos de la lista de puntos despues de recortarlos
-     * @return la lista de puntos dada sin aquellos puntos que excedan los
-     *      limites almacenados en el modelo */
-    private List<Punto> recortaPuntos(
-            List<Punto> puntos, double limiteInferior, double limiteSuperior
+     * @param datos una instantanea de los datos a mostrar
+     * @param dato el dato que queremos almacenar en el eje Y
+     * @param primeraFila la primera fila de los datos a mostrar
+     * @param numFilas el numero de filas de los datos
+     * @param limiteInferior el valor minimo en el eje X de las filas
+     * @param limiteSuperior el valor maximo en el eje X de las filas
+     * @param numPixeles el numero de pixeles del grafico en el eje X
+     * @return el nivel de detalle, o los propios datos si no hay ningun
+     *      nivel con suficientes filas o todavia no se han calculado */
+    private DatosSensores getNivelDetalle(DatosSensores datos, int dato,
+            int primeraFila, int numFilas,
+            double limiteInferior, double limiteSuperior, int numPixeles
     ) {
-        List<Punto> ret = new ArrayList<>();
-                
-        // Introducimos todos los puntos en la zona incluido el posterior y el
-        // anterior
-        for (Punto p : puntos) {
-            if (p.getX() < limiteInferior) {
-                if (ret.isEmpty()) {
-                    ret.add(p);
-                } else {
-                    ret.set(0, p);
-                }
-            } else {
-                ret.add(p);
-                if (p.getX() >= limiteSuperior) {
-                    break;
-                }
-            }
-        }
-        
-        // Recortamos los puntos de los extremos
-        if (ret.size() > 1) {
-            Punto   pIni1 = ret.get(0), 
-                    pIni2 = ret.get(1),
-                    pInicial = interpolaPunto(limiteInferior, pIni1, pIni2);
-            ret.set(0, pInicial);
-            
-            Punto   pFin1 = ret.get(ret.size() - 2),
-                    pFin2 = ret.get(ret.size() - 1),
-                    pFinal = interpolaPunto(limiteSuperior, pFin1, pFin2);
-            ret.set(ret.size() - 1, pFinal);
-        }
+        NivelesDetalle niveles = mDatosSensores.getNivelesDetalle(dato);
+        DatosSensores[] nivelesDatos = (niveles != null)? niveles.getNiveles(numFilas) : null;
+        if (nivelesDatos == null) { return datos; }
         
-        return ret;
-    }
-    
-    /** Interpola un punto dado el valor en el eje X del mismo y los puntos que
-     * componen la recta donde está el punto
-     * 
-     * @param valorX la posicion del punto en el eje X
-     * @param pAnterior el punto anterior en el eje X al que queremos calcular
-     * @param pSiguiente el punto siguiente en el eje X al que queremos calcular */
-    private Punto interpolaPunto(double valorX, Punto pAnterior, Punto pSiguiente) {
-        double m = (pSiguiente.getY() - pAnterior.getY())
-                    / (pSiguiente.getX() - pAnterior.getX());
-        
-        return new Punto(valorX, m * (valorX - pAnterior.getX()) + pAnterior.getY());
-    }
-    
-    /** De los puntos dados, calcula aquel que se encuentra más cerca en el eje
-     * X al valor dado
-     * 
-     * @param puntos la lista con los puntos que queremos evaluar
-     * @param x el valor en el eje X que queremos aproximar
-     * @return el punto más cercano, null si la lista estaba vacía */
-    private Punto getPuntoMasCercano(List<Punto> puntos, double x) {
-        
-        Punto puntoMasCercano = null;
-        double masCercanoDif = Double.MAX_VALUE;
-        
-        for (Punto p : puntos) {
-            double curDif = Math.abs(x - p.getX());
-
-            if (puntoMasCercano == null) {
-                puntoMasCercano = p;
-                masCercanoDif = curDif;
-            } else {
-                if (curDif < masCercanoDif) {
-                    masCercanoDif = curDif;
-                    puntoMasCercano = p;
-                }
+        // Recorremos los niveles desde el de menos filas, contando sus filas
+        // visibles mediante busquedas binarias
+        double primerTiempo = datos.getTiempo(primeraFila);
+        for (int i = nivelesDatos.length - 1; i >= 0; i--) {
+            DatosSensores nivel = nivelesDatos[i];
+            int inicio = nivel.buscaFila(Math.max(primerTiempo, limiteInferior)),
+                fin = nivel.buscaFila(limiteSuperior, inicio, nivel.getNumRows());
+            if ((fin > inicio) && (fin - inicio >= numPixeles)) {
+                return nivel;
             }
         }
         
-        return puntoMasCercano;
+        return datos;
     }
     
-    /** Transforma las coordenadas de los puntos de la lista dada en el rango
-     * [minX, maxX]
+    /** Ajusta las filas visibles de los datos o de uno de sus niveles de
+     * detalle a las coordenadas del grafico.
+     * <br>El eje Y se ajusta a todas las filas mostradas de los datos y no
+     * solo a las visibles, para que no cambie al desplazarnos por el grafico
+     * ni al cambiar de nivel de detalle
      * 
-     * @param puntos los puntos que queremos transformar
-     * @param minX el minimo valor en el eje X
-     * @param maxX el minimo valor en el eje X */
-    private void scaleX(List<Punto> puntos, double minX, double maxX) {
-        double  curMinX = getMinX(puntos),
-                curMaxX = getMaxX(puntos);
-        
-        for (Punto punto : puntos) {
-            if (punto != null) {
-                punto.scaleX(curMinX, curMaxX, minX, maxX);
-            }
-        }
-    }
-    
-    /** Transforma las coordenadas de los puntos de la lista dada en el rango
-     * [minY, maxY]
-     * 
-     * @param puntos los puntos que queremos transformar
-     * @param minY el minimo valor en el eje Y
-     * @param maxY el minimo valor en el eje Y */
-    private void scaleY(List<Punto> puntos, double minY, double maxY) {
-        double  curMinY = getMinY(puntos),
-                curMaxY = getMaxY(puntos);
+     * @param datos una instantanea de los datos a mostrar
+     * @param filas las filas a ajustar, los propios datos o uno de sus
+     *      niveles de detalle
+     * @param dato el dato que queremos almacenar en el eje Y
+     * @param primeraFila la primera fila de los datos a mostrar
+     * @param limiteInferior el valor minimo en el eje X de las filas
+     * @param limiteSuperior el valor maximo en el eje X de las filas
+     * @param minX el minimo valor en el eje X en las coordenadas del grafico
+     * @param maxX el maximo valor en el eje X en las coordenadas del grafico
+     * @param minY el minimo valor en el eje Y en las coordenadas del grafico
+     * @param maxY el maximo valor en el eje Y en las coordenadas del grafico
+     * @return los puntos de las filas visibles */
+    private PuntosEscalados getPuntosVisibles(DatosSensores datos,
+            DatosSensores filas, int dato, int primeraFila,
+            double limiteInferior, double limiteSuperior,
+            int minX, int maxX, int minY, int maxY
+    ) {
+        int numFilas = datos.getNumRows();
+        datos.getExtremos(dato, primeraFila, numFilas - primeraFila, mExtremos);
         
-        for (Punto punto : puntos) {
-            if (punto != null) {
-                punto.scaleY(curMinY, curMaxY, minY, maxY);
-            }
-        }
-    }
-    
-    /** @param puntos lista con los puntos
-     * @return el minimo valor existente en la dimension X */
-    private double getMinX(List<Punto> puntos) {
-        double min = Double.MAX_VALUE;
-            
-        for (Punto punto : puntos) {
-            double curX = punto.getX();
-            if (curX < min) { min = curX; }
+        if (filas != datos) {
+            primeraFila = filas.buscaFila(datos.getTiempo(primeraFila));
+            numFilas = filas.getNumRows();
         }
         
-        return min;
+        RangoFilas visibles = getFilasVisibles(
+            filas, primeraFila, numFilas, limiteInferior, limiteSuperior
+        );
+        return new PuntosEscalados(
+            visibles, dato, limiteInferior, limiteSuperior,
+            mExtremos[0], mExtremos[1], minX, maxX, minY, maxY
+        );
     }
     
-    /** @param puntos lista con los puntos
-     * @return el maximo valor existente en la dimension X */
-    private double getMaxX(List<Punto> puntos) {
-        double max = Double.MIN_VALUE;
-            
-        for (Punto punto : puntos) {
-            double curX = punto.getX();
-            if (curX > max) { max = curX; }
-        }
+    /** Busca las filas que no exceden los limites en el eje X determinados
+     * por el offset y el zoom (incluyendo la fila anterior y la posterior a
+     * los limites si existen) mediante busquedas binarias, de forma que el
+     * coste no depende de la zona del grafico que se muestre
+     * 
+     * @param datos los datos a mostrar
+     * @param primeraFila la primera fila de los datos a mostrar
+     * @param numFilas el numero de filas de los datos
+     * @param limiteInferior el valor minimo en el eje X de las filas
+     * @param limiteSuperior el valor maximo en el eje X de las filas
+     * @return las filas visibles */
+    private RangoFilas getFilasVisibles(DatosSensores datos, int primeraFila,
+            int numFilas, double limiteInferior, double limiteSuperior) {
         
-        return max;
-    }
-    
-    /** @param puntos lista con los puntos
-     * @return el minimo valor existente en la dimension Y */
-    private double getMinY(List<Punto> puntos) {
-        double min = Double.MAX_VALUE;
-            
-        for (Punto punto : puntos) {
-            double curY = punto.getY();
-            if (curY < min) { min = curY; }
-        }
+        int inicio = datos.buscaFila(limiteInferior, primeraFila, numFilas),
+            fin = datos.buscaFila(limiteSuperior, inicio, numFilas);
         
-        return min;
-    }
-    
-    /** @param puntos lista con los puntos
-     * @return el maximo valor existente en la dimension Y */
-    private double getMaxY(List<Punto> puntos) {
-        double max = Double.MIN_VALUE;
-            
-        for (Punto punto : puntos) {
-            double curY = punto.getY();
-            if (curY > max) { max = curY; }
-        }
+        inicio = Math.max(inicio - 1, primeraFila);
+        fin = Math.min(fin, numFilas - 1);
         
-        return max;
+        return new RangoFilas(datos, inicio, fin - inicio + 1);
     }
     
 }
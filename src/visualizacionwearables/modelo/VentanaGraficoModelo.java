@@ -1,7 +1,16 @@
 package visualizacionwearables.modelo;
 
+import visualizacionwearables.modelo.utils.CacheBinaria;
+import visualizacionwearables.modelo.utils.CacheDatos;
 import visualizacionwearables.modelo.utils.LectorCSV;
+import visualizacionwearables.modelo.utils.LectorCSVParalelo;
+import visualizacionwearables.modelo.utils.ObservadorLectura;
 import visualizacionwearables.modelo.utils.DatosSensores;
+import visualizacionwearables.modelo.utils.DatosSensoresComprimidos;
+import visualizacionwearables.modelo.utils.DatosSensoresMapeados;
+import visualizacionwearables.modelo.utils.ReceptorSensores;
+import visualizacionwearables.modelo.utils.SeguidorCSV;
+import visualizacionwearables.modelo.utils.SeguidorCSV.ObservadorSeguimiento;
 import java.io.File;
 import java.io.IOException;
 import visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException;
@@ -17,9 +26,13 @@ import visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException;
  */
 public class VentanaGraficoModelo {
     
-    /** El archivo CSV con los datos */
+    /** El archivo CSV con los datos, null si los datos se reciben en
+     * directo */
     private final File mArchivo;
     
+    /** El puerto en el que se reciben los datos en directo */
+    private final int mPuerto;
+    
     /** El dato seleccionado */
     private int mDatoSeleccionado;
     
@@ -29,6 +42,50 @@ public class VentanaGraficoModelo {
     /** El minimo tamaño de ventana para ocultar el panelInferior */
     private final int mLimitePanelSuperior = 320;
     
+    /** El numero de puntos a los que se reducen los datos en el grafico
+     * superior, que muestra todas las filas */
+    private final int mPuntosGraficoSuperior = 2000;
+    
+    /** El tamaño en bytes a partir del cual los archivos se leen en paralelo */
+    private final long mLimiteLecturaParalela = 8 << 20;
+    
+    /** El tamaño en bytes a partir del cual los archivos no se cargan en
+     * memoria, sino que se consultan proyectando su cache en memoria */
+    private final long mLimiteLecturaMapeada = 1L << 30;
+    
+    /** Si los datos leidos se consultan proyectando su cache en memoria */
+    private boolean mMapeado;
+    
+    /** Si al leer el archivo solo se traducen los tiempos de las filas,
+     * dejando las columnas de datos para cuando se consulten */
+    private boolean mCargaDiferida;
+    
+    /** Si los datos leidos se guardan comprimidos en memoria */
+    private boolean mCargaComprimida;
+    
+    /** El numero de bytes del archivo leidos hasta el momento */
+    private long mBytesLeidos;
+    
+    /** La clave de los datos del archivo en la cache de datos, null si
+     * todavia no se han leido o ya se han liberado */
+    private CacheDatos.Clave mClave;
+    
+    /** Si la ventana ya ha liberado los datos del archivo */
+    private boolean mLiberado;
+    
+    /** El seguidor de las nuevas filas del archivo, null si nunca se ha
+     * seguido */
+    private SeguidorCSV mSeguidor;
+    
+    /** El receptor de los datos en directo, null si no se estan recibiendo */
+    private ReceptorSensores mReceptor;
+    
+    /** El numero maximo de mediciones en directo que se guardan */
+    private final int mCapacidadDirecto = 1 << 18;
+    
+    /** El tiempo en milisegundos que se muestra de los datos en directo */
+    private final double mVentanaTiempoDirecto = 10000;
+    
     
     /**
      * Crea un nuevo GraficoModelo a partir del fichero csv de la ruta dada
@@ -37,6 +94,20 @@ public class VentanaGraficoModelo {
      */
     public VentanaGraficoModelo(File archivo) {
         mArchivo = archivo;
+        mPuerto = -1;
+        mDatoSeleccionado = -1;
+        mGraficoSuperiorOculto = false;
+    }
+    
+    /**
+     * Crea un nuevo GraficoModelo que recibira los datos en directo desde el
+     * puerto local dado
+     * 
+     * @param puerto el puerto en el que se recibiran los datos
+     */
+    public VentanaGraficoModelo(int puerto) {
+        mArchivo = null;
+        mPuerto = puerto;
         mDatoSeleccionado = -1;
         mGraficoSuperiorOculto = false;
     }
@@ -45,7 +116,15 @@ public class VentanaGraficoModelo {
      * @return el titulo de la ventana del grafico
      */
     public String getTitulo() {
-        return mArchivo.getName();
+        return (mArchivo != null)? mArchivo.getName() : "Sensores (puerto " + mPuerto + ")";
+    }
+    
+    /**
+     * @return true si los datos se reciben en directo, false si se leen de un
+     *      archivo
+     */
+    public boolean isDirecto() {
+        return mArchivo == null;
     }
     
     /**
@@ -56,8 +135,227 @@ public class VentanaGraficoModelo {
      * @throws visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException
      */
     public DatosSensores lee() throws IOException, DatosFormatException {
-        LectorCSV lector = new LectorCSV();
-        return lector.leeArchivo(mArchivo);
+        return lee(null);
+    }
+    
+    /**
+     * Lee el archivo y retorna su contenido, notificando el progreso de la
+     * lectura al observador dado
+     * <br>Si otra ventana ya tiene abierto el archivo y este no ha cambiado,
+     * se comparten sus datos en lugar de volver a leerlos, por lo que los
+     * datos devueltos no se han de modificar y se han de liberar con libera
+     * al dejar de emplearlos
+     * <br>Si el hilo que realiza la lectura es interrumpido la lectura se
+     * cancela lanzando una InterruptedIOException
+     * 
+     * @param observador el observador al que se notificara el progreso de la
+     *      lectura, null si no hay ninguno
+     * @return el contenido del archivo
+     * @throws java.io.IOException
+     * @throws visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException
+     */
+    public DatosSensores lee(ObservadorLectura observador)
+            throws IOException, DatosFormatException {
+        
+        // Guardamos el estado del archivo antes de leerlo por si cambia
+        // mientras lo estamos leyendo
+        long tamArchivo = mArchivo.length(),
+             fechaArchivo = mArchivo.lastModified();
+        
+        CacheDatos cache = CacheDatos.getInstancia();
+        CacheDatos.Clave clave = new CacheDatos.Clave(
+            mArchivo, tamArchivo, fechaArchivo, getModoCarga(tamArchivo)
+        );
+        
+        // Si los datos ya estan en memoria los compartimos
+        DatosSensores ret = cache.reserva(clave);
+        if (ret != null) {
+            asignaClave(clave);
+            mBytesLeidos = cache.getBytesLeidos(clave);
+            mMapeado = (ret instanceof DatosSensoresMapeados);
+            if (observador != null) {
+                observador.onDatosCreados(ret);
+                observador.onProgreso(tamArchivo, tamArchivo);
+            }
+            return ret;
+        }
+        
+        // Si no los leemos y los guardamos en la cache para el resto de
+        // ventanas
+        boolean completado = false;
+        try {
+            ret = leeArchivo(observador, tamArchivo, fechaArchivo);
+            cache.completa(clave, ret, mBytesLeidos);
+            mMapeado = (ret instanceof DatosSensoresMapeados);
+            completado = true;
+            asignaClave(clave);
+        } finally {
+            if (!completado) {
+                cache.cancela(clave);
+            }
+        }
+        
+        return ret;
+    }
+    
+    /**
+     * Libera los datos leidos del archivo cuando la ventana deja de
+     * emplearlos
+     */
+    public synchronized void libera() {
+        dejaDeSeguir();
+        mSeguidor = null;
+        mLiberado = true;
+        
+        if (mClave != null) {
+            CacheDatos.getInstancia().libera(mClave);
+            mClave = null;
+        }
+    }
+    
+    /**
+     * @return true si al leer el archivo solo se traducen los tiempos de las
+     *      filas, false si se traducen todas las columnas
+     */
+    public boolean isCargaDiferida() {
+        return mCargaDiferida;
+    }
+    
+    /**
+     * @param cargaDiferida si al leer el archivo solo se han de traducir los
+     *      tiempos de las filas, dejando cada columna de datos para la primera
+     *      vez que se consulte
+     */
+    public void setCargaDiferida(boolean cargaDiferida) {
+        mCargaDiferida = cargaDiferida;
+    }
+    
+    /**
+     * @return true si los datos leidos se guardan comprimidos en memoria,
+     *      false en caso contrario
+     */
+    public boolean isCargaComprimida() {
+        return mCargaComprimida;
+    }
+    
+    /**
+     * @param cargaComprimida si los datos leidos se han de guardar comprimidos
+     *      en memoria, ocupando menos a cambio de descomprimirlos al
+     *      consultarlos. No se aplica a la carga diferida ni a los archivos
+     *      que se proyectan en memoria
+     */
+    public void setCargaComprimida(boolean cargaComprimida) {
+        mCargaComprimida = cargaComprimida;
+    }
+    
+    /**
+     * @return true si los datos leidos no se han cargado en memoria sino que
+     *      se consultan proyectando su cache en memoria, por lo que no se
+     *      puede seguir el archivo, false en caso contrario
+     */
+    public boolean isMapeado() {
+        return mMapeado;
+    }
+    
+    /**
+     * @return true si se estan siguiendo las nuevas filas del archivo, false
+     *      en caso contrario
+     */
+    public boolean isSiguiendo() {
+        return (mSeguidor != null) && mSeguidor.isSiguiendo();
+    }
+    
+    /**
+     * Comienza a seguir el archivo, añadiendo las filas que se escriban en el
+     * archivo a partir de lo ya leido
+     * <br>Como los datos leidos se comparten con el resto de ventanas, las
+     * nuevas filas se añaden a una copia de los datos dados que se crea la
+     * primera vez que se sigue el archivo, para lo que antes se cargan todas
+     * sus columnas. Las siguientes veces se continua desde donde se dejo de
+     * seguir
+     * <br>Si la ultima linea leida no terminaba en salto de linea puede que
+     * todavia se estuviese escribiendo, por lo que su fila no se copia y el
+     * seguimiento la vuelve a traducir desde su comienzo
+     * 
+     * @param datos los datos leidos del archivo
+     * @param observador el observador al que se notificaran las nuevas filas
+     * @return los datos a los que se añadiran las nuevas filas
+     * @throws java.io.IOException
+     * @throws visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException
+     */
+    public DatosSensores sigue(DatosSensores datos, ObservadorSeguimiento observador)
+            throws IOException, DatosFormatException {
+        if (mSeguidor == null) {
+            for (int i = 0; i < datos.getNumDatos(); i++) {
+                datos.cargaColumna(i);
+            }
+            
+            long inicio = SeguidorCSV.getInicioLinea(mArchivo, mBytesLeidos);
+            int numFilas = datos.getNumRows();
+            if ((inicio < mBytesLeidos) && (numFilas > 0)) { numFilas--; }
+            
+            DatosSensores copia = (datos instanceof DatosSensoresComprimidos)?
+                new DatosSensoresComprimidos(datos, numFilas) :
+                new DatosSensores(datos, numFilas);
+            mSeguidor = new SeguidorCSV(mArchivo, copia, inicio, observador);
+        }
+        
+        mSeguidor.inicia();
+        return mSeguidor.getDatos();
+    }
+    
+    /**
+     * Deja de seguir el archivo
+     */
+    public void dejaDeSeguir() {
+        if (mSeguidor != null) {
+            mSeguidor.detiene();
+        }
+    }
+    
+    /**
+     * Comienza a recibir los datos en directo desde el puerto del modelo
+     * <br>Los datos se guardan en un buffer circular de capacidad fija, por
+     * lo que solo se mantienen las ultimas mediciones recibidas
+     * 
+     * @return los datos donde se guardaran las mediciones recibidas
+     * @throws java.io.IOException si no se puede abrir el puerto
+     */
+    public DatosSensores conecta() throws IOException {
+        assert isDirecto() : "El modelo no recibe los datos en directo";
+        
+        desconecta();
+        
+        ReceptorSensores receptor = new ReceptorSensores(mPuerto, mCapacidadDirecto);
+        receptor.inicia();
+        mReceptor = receptor;
+        
+        return receptor.getDatos();
+    }
+    
+    /**
+     * Deja de recibir los datos en directo
+     */
+    public void desconecta() {
+        if (mReceptor != null) {
+            mReceptor.detiene();
+            mReceptor = null;
+        }
+    }
+    
+    /**
+     * @return el numero de mediciones recibidas en directo desde el principio
+     */
+    public long getNumMedicionesRecibidas() {
+        return (mReceptor != null)? mReceptor.getDatos().getNumFilasTotales() : 0;
+    }
+    
+    /**
+     * @return el tiempo en milisegundos que se muestra de los datos en
+     *      directo
+     */
+    public double getVentanaTiempoDirecto() {
+        return mVentanaTiempoDirecto;
     }
 
     /**
@@ -95,4 +393,177 @@ public class VentanaGraficoModelo {
         return mLimitePanelSuperior;
     }
 
+    /**
+     * @return el numero de puntos a los que se reducen los datos en el
+     *      grafico superior
+     */
+    public int getPuntosGraficoSuperior() {
+        return mPuntosGraficoSuperior;
+    }
+
+// Funciones privadas
+    /**
+     * Lee los datos del archivo.
+     * <br>Si el archivo ya se habia leido antes y no ha cambiado, sus datos se
+     * cargan desde su cache binaria. En caso contrario se traduce el archivo
+     * y se guarda su cache para la proxima vez
+     * <br>En la carga comprimida el archivo siempre se traduce, comprimiendo
+     * las filas segun se traducen para no tener todos los datos sin comprimir
+     * en memoria a la vez
+     * 
+     * @param observador el observador al que se notificara el progreso de la
+     *      lectura, null si no hay ninguno
+     * @param tamArchivo el tamaño del archivo antes de leerlo
+     * @param fechaArchivo la fecha de modificacion del archivo antes de leerlo
+     * @return el contenido del archivo
+     */
+    private DatosSensores leeArchivo(ObservadorLectura observador,
+            long tamArchivo, long fechaArchivo)
+            throws IOException, DatosFormatException {
+        
+        CacheBinaria cache = new CacheBinaria();
+        DatosSensores ret = null;
+        
+        // Los archivos mas grandes se traducen directamente a su cache, que
+        // se proyecta en memoria en lugar de cargarla
+        if (tamArchivo >= mLimiteLecturaMapeada) {
+            ret = cache.mapea(mArchivo);
+            if (ret == null) {
+                ret = cache.traduce(mArchivo, tamArchivo, fechaArchivo, observador);
+            }
+            
+            mBytesLeidos = tamArchivo;
+            if (observador != null) {
+                observador.onDatosCreados(ret);
+                observador.onProgreso(tamArchivo, tamArchivo);
+            }
+            return ret;
+        }
+        
+        // En la carga diferida solo indexamos el archivo, sin emplear su
+        // cache ya que esta contiene todas las columnas
+        if (mCargaDiferida) {
+            LectorCSVParalelo lector = new LectorCSVParalelo(observador);
+            ret = lector.indexaArchivo(mArchivo);
+            mBytesLeidos = lector.getBytesLeidos();
+            
+            if (observador != null) {
+                observador.onDatosCreados(ret);
+            }
+            return ret;
+        }
+        
+        if (!mCargaComprimida) {
+            try {
+                ret = cache.lee(mArchivo);
+            } catch (IOException e) {
+                // Si la cache no se puede leer volvemos a traducir el archivo
+            }
+        }
+        
+        if (ret != null) {
+            mBytesLeidos = tamArchivo;
+            if (observador != null) {
+                observador.onDatosCreados(ret);
+                observador.onProgreso(tamArchivo, tamArchivo);
+            }
+            return ret;
+        }
+        
+        if (tamArchivo >= mLimiteLecturaParalela) {
+            LectorCSVParalelo lector = creaLectorParalelo(observador);
+            ret = lector.leeArchivo(mArchivo);
+            mBytesLeidos = lector.getBytesLeidos();
+        } else {
+            LectorCSV lector = creaLector(observador);
+            ret = lector.leeArchivo(mArchivo);
+            mBytesLeidos = lector.getBytesLeidos();
+        }
+        
+        try {
+            cache.escribe(mArchivo, tamArchivo, fechaArchivo, ret);
+        } catch (IOException e) {
+            // La cache es opcional, por ejemplo si no se puede escribir en el
+            // directorio del archivo
+        }
+        
+        return ret;
+    }
+    
+    /**
+     * Crea el lector con el que se traducen los archivos pequeños, que guarda
+     * las filas comprimidas si se ha elegido la carga comprimida
+     * 
+     * @param observador el observador al que se notificara el progreso de la
+     *      lectura, null si no hay ninguno
+     * @return el lector
+     */
+    private LectorCSV creaLector(ObservadorLectura observador) {
+        if (!mCargaComprimida) {
+            return new LectorCSV(observador);
+        }
+        
+        return new LectorCSV(observador) {
+            @Override
+            protected DatosSensores creaDatos(String filename, int numDatos) {
+                return new DatosSensoresComprimidos(filename, numDatos);
+            }
+        };
+    }
+    
+    /**
+     * Crea el lector con el que se traducen en paralelo los archivos grandes,
+     * que guarda las filas comprimidas si se ha elegido la carga comprimida
+     * 
+     * @param observador el observador al que se notificara el progreso de la
+     *      lectura, null si no hay ninguno
+     * @return el lector
+     */
+    private LectorCSVParalelo creaLectorParalelo(ObservadorLectura observador) {
+        if (!mCargaComprimida) {
+            return new LectorCSVParalelo(observador);
+        }
+        
+        return new LectorCSVParalelo(observador) {
+            @Override
+            protected DatosSensores creaDatos(String filename, int numDatos) {
+                return new DatosSensoresComprimidos(filename, numDatos);
+            }
+        };
+    }
+    
+    /**
+     * Devuelve el modo con el que se cargan los datos del archivo, que
+     * determina la forma en la que se guardan en memoria
+     * 
+     * @param tamArchivo el tamaño del archivo a leer
+     * @return el nombre del modo de carga
+     */
+    private String getModoCarga(long tamArchivo) {
+        if (tamArchivo >= mLimiteLecturaMapeada) {
+            return "mapeada";
+        } else if (mCargaDiferida) {
+            return "diferida";
+        } else if (mCargaComprimida) {
+            return "comprimida";
+        } else {
+            return "completa";
+        }
+    }
+    
+    /**
+     * Guarda la clave de los datos leidos del archivo en la cache de datos
+     * <br>Si la ventana ya se ha cerrado mientras se leia el archivo, los datos
+     * se liberan directamente
+     * 
+     * @param clave la clave de los datos en la cache de datos
+     */
+    private synchronized void asignaClave(CacheDatos.Clave clave) {
+        if (mLiberado) {
+            CacheDatos.getInstancia().libera(clave);
+        } else {
+            mClave = clave;
+        }
+    }
+
 }
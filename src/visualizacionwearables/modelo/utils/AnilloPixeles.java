@@ -0,0 +1,178 @@
+package visualizacionwearables.modelo.utils;
+
+import java.util.Arrays;
+
+/**
+ * Clase AnilloPixeles, guarda los puntos reducidos de cada pixel del eje X
+ * de la ultima zona mostrada de un grafico, de forma que al desplazar la zona
+ * visible sin cambiar la escala solo hay que reducir los pixeles que aparecen.
+ * <br>Los pixeles se guardan en un buffer circular indexado por su posicion
+ * respecto al inicio de los datos, por lo que al desplazarse basta con mover
+ * el inicio del buffer. Las coordenadas X de los puntos se guardan tambien
+ * respecto al inicio de los datos y se trasladan al consultarlas.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class AnilloPixeles {
+    
+    /** La escala de los puntos guardados, null si no hay ninguno */
+    private Object mEscala;
+    
+    /** La posicion respecto al inicio de los datos del primer pixel visible */
+    private long mPrimerPixel;
+    
+    /** El numero maximo de puntos de cada pixel */
+    private int mMaxPuntosPixel;
+    
+    /** La posicion en el buffer del primer pixel visible */
+    private int mInicio;
+    
+    /** Las coordenadas de los puntos de cada pixel, indexadas como
+     * [posicion * mMaxPuntosPixel + punto] */
+    private double[] mX, mY;
+    
+    /** El numero de puntos de cada pixel, -1 los de los pixeles que todavia
+     * no se han reducido */
+    private int[] mNumPuntos;
+    
+    
+    /** Construye un nuevo AnilloPixeles vacio */
+    public AnilloPixeles() {
+        mEscala = null;
+        mPrimerPixel = 0;
+        mMaxPuntosPixel = 0;
+        mInicio = 0;
+        mX = new double[0];
+        mY = new double[0];
+        mNumPuntos = new int[0];
+    }
+    
+    /** Situa el primer pixel visible en la posicion dada. Si la escala es la
+     * misma que la anterior se conservan los pixeles ya reducidos que siguen
+     * visibles, y si no se descartan todos
+     * 
+     * @param escala un objeto que identifique los datos y la escala de los
+     *      puntos, que ha de ser igual (segun equals) al anterior unicamente
+     *      si los puntos de cada pixel no han cambiado
+     * @param primerPixel la posicion respecto al inicio de los datos del
+     *      primer pixel visible */
+    public void desplaza(Object escala, long primerPixel) {
+        
+        int numPixeles = mNumPuntos.length;
+        long desplazamiento = primerPixel - mPrimerPixel;
+        if ((mEscala == null) || !mEscala.equals(escala)
+                || (Math.abs(desplazamiento) >= numPixeles)) {
+            Arrays.fill(mNumPuntos, -1);
+            mInicio = 0;
+        } else if (desplazamiento > 0) {
+            // Descartamos los pixeles que dejan de verse por la izquierda,
+            // que pasan a ser los que aparecen por la derecha
+            for (int i = 0; i < desplazamiento; i++) {
+                mNumPuntos[getPosicion(i)] = -1;
+            }
+            mInicio = getPosicion((int) desplazamiento);
+        } else if (desplazamiento < 0) {
+            for (int i = numPixeles + (int) desplazamiento; i < numPixeles; i++) {
+                mNumPuntos[getPosicion(i)] = -1;
+            }
+            mInicio = getPosicion(numPixeles + (int) desplazamiento);
+        }
+        
+        mEscala = escala;
+        mPrimerPixel = primerPixel;
+    }
+    
+    /** @return el numero de pixeles visibles */
+    int getNumPixeles() {
+        return mNumPuntos.length;
+    }
+    
+    /** Cambia el numero de pixeles visibles y de puntos de cada pixel,
+     * descartando todos los pixeles si cambian
+     * 
+     * @param numPixeles el numero de pixeles visibles
+     * @param maxPuntosPixel el numero maximo de puntos de cada pixel */
+    void reserva(int numPixeles, int maxPuntosPixel) {
+        
+        if ((numPixeles == mNumPuntos.length) && (maxPuntosPixel == mMaxPuntosPixel)) {
+            return;
+        }
+        
+        mMaxPuntosPixel = maxPuntosPixel;
+        mInicio = 0;
+        mX = new double[numPixeles * maxPuntosPixel];
+        mY = new double[numPixeles * maxPuntosPixel];
+        mNumPuntos = new int[numPixeles];
+        Arrays.fill(mNumPuntos, -1);
+    }
+    
+    /** @param pixel el indice del pixel visible
+     * @return true si ya se han reducido los puntos del pixel */
+    boolean estaReducido(int pixel) {
+        return mNumPuntos[getPosicion(pixel)] >= 0;
+    }
+    
+    /** Descarta los puntos del pixel dado para que se vuelvan a reducir
+     * 
+     * @param pixel el indice del pixel visible, se ignora si no es visible */
+    void invalida(int pixel) {
+        if ((pixel >= 0) && (pixel < mNumPuntos.length)) {
+            mNumPuntos[getPosicion(pixel)] = -1;
+        }
+    }
+    
+    /** Guarda los puntos reducidos del pixel dado
+     * 
+     * @param pixel el indice del pixel visible
+     * @param x las coordenadas X de los puntos en el grafico
+     * @param y las coordenadas Y de los puntos en el grafico
+     * @param inicio la posicion en los arrays del primer punto del pixel
+     * @param numPuntos el numero de puntos del pixel */
+    void setPuntos(int pixel, double[] x, double[] y, int inicio, int numPuntos) {
+        
+        assert numPuntos >= 0 && numPuntos <= mMaxPuntosPixel :
+            "El pixel '" + pixel + "' no puede tener " + numPuntos + " puntos";
+        
+        int posicion = getPosicion(pixel);
+        for (int i = 0; i < numPuntos; i++) {
+            mX[posicion * mMaxPuntosPixel + i] = x[inicio + i] + mPrimerPixel;
+            mY[posicion * mMaxPuntosPixel + i] = y[inicio + i];
+        }
+        mNumPuntos[posicion] = numPuntos;
+    }
+    
+    /** Copia en orden los puntos de todos los pixeles visibles, que ya han
+     * de estar reducidos
+     * 
+     * @param x el array donde se escribiran las coordenadas X de los puntos
+     * @param y el array donde se escribiran las coordenadas Y de los puntos
+     * @return el numero de puntos escritos en los arrays */
+    int getPuntos(double[] x, double[] y) {
+        
+        int ret = 0;
+        for (int pixel = 0; pixel < mNumPuntos.length; pixel++) {
+            int posicion = getPosicion(pixel);
+            
+            assert mNumPuntos[posicion] >= 0 : "El pixel '" + pixel + "' no esta reducido";
+            
+            for (int i = 0; i < mNumPuntos[posicion]; i++) {
+                x[ret] = mX[posicion * mMaxPuntosPixel + i] - mPrimerPixel;
+                y[ret] = mY[posicion * mMaxPuntosPixel + i];
+                ret++;
+            }
+        }
+        
+        return ret;
+    }
+
+// Funciones privadas
+    /** @param pixel el indice del pixel visible
+     * @return la posicion del pixel en el buffer */
+    private int getPosicion(int pixel) {
+        int ret = mInicio + pixel;
+        return (ret >= mNumPuntos.length)? ret - mNumPuntos.length : ret;
+    }
+    
+}
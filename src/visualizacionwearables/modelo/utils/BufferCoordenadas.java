@@ -0,0 +1,112 @@
+package visualizacionwearables.modelo.utils;
+
+import java.util.Arrays;
+
+/**
+ * Clase BufferCoordenadas, guarda las coordenadas de los puntos a dibujar en
+ * un grafico en dos arrays de valores primitivos en vez de en un objeto por
+ * cada punto.
+ * <br>Los arrays solo crecen cuando no caben los puntos, por lo que el mismo
+ * buffer se puede reutilizar para dibujar cada vez el grafico sin reservar
+ * memoria.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class BufferCoordenadas {
+    
+    /** La capacidad inicial en puntos del buffer */
+    private static final int CAPACIDAD_INICIAL = 1024;
+    
+    /** Las coordenadas X e Y de los puntos */
+    private float[] mX, mY;
+    
+    /** El numero de puntos del buffer */
+    private int mNumPuntos;
+    
+    
+    /** Construye un nuevo BufferCoordenadas vacio */
+    public BufferCoordenadas() {
+        this(CAPACIDAD_INICIAL);
+    }
+    
+    /** Construye un nuevo BufferCoordenadas vacio
+     * 
+     * @param capacidad el numero de puntos que caben inicialmente */
+    public BufferCoordenadas(int capacidad) {
+        mX = new float[capacidad];
+        mY = new float[capacidad];
+        mNumPuntos = 0;
+    }
+    
+    /** @return el numero de puntos del buffer */
+    public int getNumPuntos() {
+        return mNumPuntos;
+    }
+    
+    /** @param punto el indice del punto
+     * @return la coordenada X del punto */
+    public float getX(int punto) {
+        
+        assert punto >= 0 && punto < mNumPuntos :
+            "No se puede acceder al punto '" + punto + '\'';
+        
+        return mX[punto];
+    }
+    
+    /** @param punto el indice del punto
+     * @return la coordenada Y del punto */
+    public float getY(int punto) {
+        
+        assert punto >= 0 && punto < mNumPuntos :
+            "No se puede acceder al punto '" + punto + '\'';
+        
+        return mY[punto];
+    }
+    
+    /** Sustituye los puntos del buffer por los dados
+     * 
+     * @param x las coordenadas X de los puntos
+     * @param y las coordenadas Y de los puntos
+     * @param numPuntos el numero de puntos de los arrays a copiar */
+    public void setPuntos(double[] x, double[] y, int numPuntos) {
+        
+        reserva(numPuntos);
+        for (int i = 0; i < numPuntos; i++) {
+            mX[i] = (float) x[i];
+            mY[i] = (float) y[i];
+        }
+        mNumPuntos = numPuntos;
+    }
+    
+    /** Sustituye los puntos del buffer por los del buffer dado
+     * 
+     * @param origen el buffer con los puntos a copiar */
+    public void setPuntos(BufferCoordenadas origen) {
+        
+        reserva(origen.mNumPuntos);
+        System.arraycopy(origen.mX, 0, mX, 0, origen.mNumPuntos);
+        System.arraycopy(origen.mY, 0, mY, 0, origen.mNumPuntos);
+        mNumPuntos = origen.mNumPuntos;
+    }
+    
+    /** Elimina todos los puntos del buffer, conservando su capacidad */
+    public void vacia() {
+        mNumPuntos = 0;
+    }
+
+// Funciones privadas
+    /** Hace crecer los arrays si no cabe el numero de puntos dado
+     * 
+     * @param capacidad el numero de puntos que han de caber */
+    private void reserva(int capacidad) {
+        
+        if (capacidad <= mX.length) { return; }
+        
+        int nuevaCapacidad = Math.max(capacidad, 2 * mX.length);
+        mX = Arrays.copyOf(mX, nuevaCapacidad);
+        mY = Arrays.copyOf(mY, nuevaCapacidad);
+    }
+    
+}
@@ -0,0 +1,577 @@
+package visualizacionwearables.modelo.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException;
+
+/**
+ * Clase CacheBinaria
+ * Se emplea para guardar los datos leidos de un archivo csv en un archivo
+ * binario junto a el, de forma que las siguientes veces que se abra el archivo
+ * csv se puedan cargar sus datos sin tener que volver a traducirlos.
+ * <br>El archivo binario guarda las columnas una detras de otra como valores
+ * double, precedidas por una cabecera con el tamaño, la fecha de modificacion
+ * y un checksum del archivo csv, de forma que si el archivo csv cambia la
+ * cache deja de ser valida.
+ * <br>Los archivos csv demasiado grandes para caber en memoria se pueden
+ * traducir directamente a su cache, cuyas columnas se consultan despues
+ * proyectandolas en memoria mediante DatosSensoresMapeados.
+ * 
+ * <pre>
+ * int    magic                 'VWB1'
+ * int    version
+ * long   tamaño del csv
+ * long   fecha de modificacion del csv
+ * long   checksum del csv
+ * int    numero de columnas de datos
+ * long   numero de filas
+ * ...    relleno hasta TAM_CABECERA bytes
+ * double tiempos[numFilas]
+ * double datos[numDatos][numFilas]
+ * </pre>
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class CacheBinaria {
+    
+    /** La extension que se añade al nombre del archivo csv para obtener el de
+     * su cache */
+    public static final String EXTENSION = ".vwb";
+    
+    /** El numero que identifica los archivos de cache */
+    private static final int MAGIC = 0x56574231;
+    
+    /** La version del formato de los archivos de cache */
+    private static final int VERSION = 1;
+    
+    /** El tamaño en bytes de la cabecera del archivo de cache */
+    private static final int TAM_CABECERA = 64;
+    
+    /** El orden de los bytes de los valores del archivo de cache */
+    private static final ByteOrder ORDEN = ByteOrder.LITTLE_ENDIAN;
+    
+    /** El numero de bytes del principio y del final del archivo csv que se
+     * emplean para calcular su checksum */
+    private static final int TAM_CHECKSUM = 64 * 1024;
+    
+    /** El numero de filas que se copian de cada vez */
+    private static final int FILAS_POR_BLOQUE = 64 * 1024;
+    
+    /** Los datos de la cabecera de un archivo de cache valido */
+    private static class Cabecera {
+        
+        /** El numero de columnas de datos */
+        final int mNumDatos;
+        
+        /** El numero de filas de las columnas */
+        final int mNumFilas;
+        
+        Cabecera(int numDatos, int numFilas) {
+            mNumDatos = numDatos;
+            mNumFilas = numFilas;
+        }
+    }
+    
+    /** Excepcion para propagar los fallos al escribir las columnas temporales
+     * a traves de los metodos de DatosSensores, que no lanzan IOException */
+    private static class ErrorEscritura extends RuntimeException {
+        ErrorEscritura(IOException cause) { super(cause); }
+    }
+    
+    /** Datos que en lugar de guardar las filas en memoria las escriben en un
+     * archivo temporal por cada columna, de forma que se pueden traducir
+     * archivos csv que no caben en memoria. Las filas escritas no se pueden
+     * consultar */
+    private static class ColumnasTemporales extends DatosSensores {
+        
+        /** Los archivos temporales de las columnas, siendo el primero el de
+         * los tiempos */
+        private final File[] mArchivos;
+        
+        /** Los canales con los que se escriben los archivos temporales */
+        private final FileChannel[] mCanales;
+        
+        /** El buffer con el que se escriben los valores */
+        private final ByteBuffer mBuffer;
+        
+        /** El numero de filas escritas */
+        private long mNumFilas;
+        
+        /** Construye unas nuevas ColumnasTemporales
+         * 
+         * @param name el nombre de los datos
+         * @param numDatos la longitud de los datos
+         * @param directorio el directorio donde se crearan los archivos
+         *      temporales */
+        ColumnasTemporales(String name, int numDatos, File directorio)
+                throws IOException {
+            super(name, numDatos, 0);
+            
+            mArchivos = new File[numDatos + 1];
+            mCanales = new FileChannel[numDatos + 1];
+            mBuffer = ByteBuffer.allocateDirect(8 * FILAS_POR_BLOQUE).order(ORDEN);
+            
+            try {
+                for (int j = 0; j <= numDatos; j++) {
+                    mArchivos[j] = File.createTempFile(name + EXTENSION, ".col", directorio);
+                    mCanales[j] = new RandomAccessFile(mArchivos[j], "rw").getChannel();
+                }
+            } catch (IOException e) {
+                cierra();
+                throw e;
+            }
+        }
+        
+        @Override
+        public int getNumRows() {
+            return (int) Math.min(mNumFilas, Integer.MAX_VALUE);
+        }
+        
+        @Override
+        public void addDatos(double tiempo, double[] datos) {
+            double[][] columnas = new double[datos.length][1];
+            for (int j = 0; j < datos.length; j++) {
+                columnas[j][0] = datos[j];
+            }
+            addDatos(new double[] { tiempo }, columnas, 1);
+        }
+        
+        @Override
+        public void addDatos(double[] tiempos, double[][] datos, int numFilas) {
+            try {
+                escribeValores(mCanales[0], tiempos, numFilas);
+                for (int j = 0; j < datos.length; j++) {
+                    escribeValores(mCanales[j + 1], datos[j], numFilas);
+                }
+            } catch (IOException e) {
+                throw new ErrorEscritura(e);
+            }
+            mNumFilas += numFilas;
+        }
+        
+        @Override
+        public double getTiempo(int fila) { throw new UnsupportedOperationException(); }
+        
+        @Override
+        public void getTiempos(int fila, int numFilas, double[] destino) { throw new UnsupportedOperationException(); }
+        
+        @Override
+        public double getDatos(int columna, int fila) { throw new UnsupportedOperationException(); }
+        
+        @Override
+        public void getDatos(int columna, int fila, int numFilas, double[] destino) { throw new UnsupportedOperationException(); }
+        
+        /** Copia las columnas escritas una detras de otra al final del canal
+         * dado
+         * 
+         * @param destino el canal donde queremos copiar las columnas */
+        void copia(FileChannel destino) throws IOException {
+            for (FileChannel canal : mCanales) {
+                long posicion = 0, tam = canal.size();
+                while (posicion < tam) {
+                    posicion += canal.transferTo(posicion, tam - posicion, destino);
+                }
+            }
+        }
+        
+        /** Cierra y borra los archivos temporales */
+        void cierra() {
+            for (int j = 0; j < mArchivos.length; j++) {
+                try {
+                    if (mCanales[j] != null) { mCanales[j].close(); }
+                } catch (IOException e) {
+                    // El archivo se borra igualmente
+                }
+                if (mArchivos[j] != null) { mArchivos[j].delete(); }
+            }
+        }
+        
+        /** Escribe los valores dados al final del canal dado
+         * 
+         * @param canal el canal donde queremos escribir
+         * @param valores los valores que queremos escribir
+         * @param numValores el numero de valores a escribir */
+        private void escribeValores(FileChannel canal, double[] valores,
+                int numValores) throws IOException {
+            for (int i = 0; i < numValores; i += FILAS_POR_BLOQUE) {
+                int n = Math.min(FILAS_POR_BLOQUE, numValores - i);
+                mBuffer.clear();
+                mBuffer.asDoubleBuffer().put(valores, i, n);
+                mBuffer.limit(8 * n);
+                while (mBuffer.hasRemaining()) {
+                    canal.write(mBuffer);
+                }
+            }
+        }
+    }
+    
+    
+    /** Devuelve el archivo donde se guarda la cache del archivo csv dado
+     * 
+     * @param archivo el archivo csv
+     * @return el archivo de cache */
+    public static File getArchivoCache(File archivo) {
+        return new File(archivo.getParentFile(), archivo.getName() + EXTENSION);
+    }
+    
+    /** Lee los datos del archivo csv dado desde su cache
+     * 
+     * @param archivo el archivo csv cuyos datos queremos leer
+     * @return los datos del archivo csv, null si no existe una cache valida
+     *      para el archivo csv en su estado actual */
+    public DatosSensores lee(File archivo) throws IOException {
+        
+        File archivoCache = getArchivoCache(archivo);
+        if (!archivoCache.isFile()) { return null; }
+        
+        try (RandomAccessFile raf = new RandomAccessFile(archivoCache, "r");
+             FileChannel canal = raf.getChannel()) {
+            
+            // Comprobamos que la cache se corresponde con el archivo csv
+            Cabecera cabecera = leeCabecera(archivo, canal);
+            if (cabecera == null) { return null; }
+            
+            int numDatos = cabecera.mNumDatos,
+                numFilas = cabecera.mNumFilas;
+            
+            // Copiamos las columnas a los datos
+            DatosSensores ret = new DatosSensores(archivo.getName(), numDatos);
+            double[] tiempos = new double[FILAS_POR_BLOQUE];
+            double[][] datos = new double[numDatos][FILAS_POR_BLOQUE];
+            
+            for (int fila = 0; fila < numFilas; fila += FILAS_POR_BLOQUE) {
+                int numFilasBloque = Math.min(FILAS_POR_BLOQUE, numFilas - fila);
+                
+                leeColumna(canal, numFilas, 0, fila, tiempos, numFilasBloque);
+                for (int j = 0; j < numDatos; j++) {
+                    leeColumna(canal, numFilas, j + 1, fila, datos[j], numFilasBloque);
+                }
+                
+                ret.addDatos(tiempos, datos, numFilasBloque);
+            }
+            
+            return ret;
+        }
+    }
+    
+    /** Proyecta en memoria las columnas de la cache del archivo csv dado sin
+     * cargarlas en el heap
+     * 
+     * @param archivo el archivo csv cuyos datos queremos consultar
+     * @return los datos del archivo csv, null si no existe una cache valida
+     *      para el archivo csv en su estado actual */
+    public DatosSensores mapea(File archivo) throws IOException {
+        
+        File archivoCache = getArchivoCache(archivo);
+        if (!archivoCache.isFile()) { return null; }
+        
+        // Las proyecciones siguen siendo validas despues de cerrar el canal
+        try (RandomAccessFile raf = new RandomAccessFile(archivoCache, "r");
+             FileChannel canal = raf.getChannel()) {
+            
+            Cabecera cabecera = leeCabecera(archivo, canal);
+            if (cabecera == null) { return null; }
+            
+            return new DatosSensoresMapeados(
+                archivo.getName(), cabecera.mNumDatos,
+                canal, TAM_CABECERA, cabecera.mNumFilas, ORDEN
+            );
+        }
+    }
+    
+    /** Traduce el archivo csv dado escribiendo sus filas directamente a su
+     * cache, sin guardarlas en memoria, y proyecta la cache en memoria
+     * <br>Si el hilo que realiza la lectura es interrumpido la lectura se
+     * cancela lanzando una InterruptedIOException
+     * 
+     * @param archivo el archivo csv que queremos traducir
+     * @param tamArchivo el tamaño del archivo csv antes de leerlo
+     * @param fechaArchivo la fecha de modificacion del archivo csv antes de
+     *      leerlo
+     * @param observador el observador al que se notificara el progreso de la
+     *      lectura, null si no hay ninguno. Como las filas traducidas no se
+     *      pueden consultar hasta que se termina la traduccion, solo se le
+     *      notifica el progreso
+     * @return los datos del archivo csv proyectados desde su cache */
+    public DatosSensores traduce(final File archivo, long tamArchivo,
+            long fechaArchivo, final ObservadorLectura observador)
+            throws IOException, DatosFormatException {
+        
+        final File archivoCache = getArchivoCache(archivo),
+                   archivoTemporal = creaTemporal(archivoCache);
+        final ColumnasTemporales[] columnas = new ColumnasTemporales[1];
+        
+        LectorCSV lector = new LectorCSV(new ObservadorLectura() {
+            @Override
+            public void onDatosCreados(DatosSensores datos) { }
+            
+            @Override
+            public void onProgreso(long bytesLeidos, long bytesTotales) {
+                if (observador != null) {
+                    observador.onProgreso(bytesLeidos, bytesTotales);
+                }
+            }
+        }) {
+            @Override
+            protected DatosSensores creaDatos(String filename, int numDatos)
+                    throws IOException {
+                columnas[0] = new ColumnasTemporales(
+                    filename, numDatos, archivoCache.getAbsoluteFile().getParentFile()
+                );
+                return columnas[0];
+            }
+        };
+        
+        try {
+            lector.leeArchivo(archivo);
+            
+            ColumnasTemporales datos = columnas[0];
+            if (datos.mNumFilas > Integer.MAX_VALUE) {
+                throw new IOException("El archivo tiene demasiadas filas");
+            }
+            
+            // Juntamos las columnas en el archivo de cache
+            try (RandomAccessFile raf = new RandomAccessFile(archivoTemporal, "rw");
+                 FileChannel canal = raf.getChannel()) {
+                
+                ByteBuffer buffer = ByteBuffer.allocate(TAM_CABECERA).order(ORDEN);
+                escribeCabecera(
+                    canal, buffer, archivo, tamArchivo, fechaArchivo,
+                    datos.getNumDatos(), datos.getNumRows()
+                );
+                datos.copia(canal);
+            }
+        } catch (ErrorEscritura e) {
+            archivoTemporal.delete();
+            throw (IOException) e.getCause();
+        } catch (IOException | DatosFormatException e) {
+            archivoTemporal.delete();
+            throw e;
+        } finally {
+            if (columnas[0] != null) {
+                columnas[0].cierra();
+            }
+        }
+        
+        sustituye(archivoTemporal, archivoCache);
+        
+        DatosSensores ret = mapea(archivo);
+        if (ret == null) {
+            throw new IOException("El archivo ha cambiado mientras se leia");
+        }
+        return ret;
+    }
+    
+    /** Guarda los datos dados en la cache del archivo csv dado. La cache se
+     * escribe primero en un archivo temporal que sustituye al anterior al
+     * terminar, de forma que nunca se puede leer una cache a medio escribir
+     * 
+     * @param archivo el archivo csv del que se leyeron los datos
+     * @param tamArchivo el tamaño del archivo csv antes de leerlo
+     * @param fechaArchivo la fecha de modificacion del archivo csv antes de
+     *      leerlo
+     * @param datos los datos leidos del archivo csv */
+    public void escribe(File archivo, long tamArchivo, long fechaArchivo,
+            DatosSensores datos) throws IOException {
+        
+        File archivoCache = getArchivoCache(archivo),
+             archivoTemporal = creaTemporal(archivoCache);
+        
+        int numDatos = datos.getNumDatos(),
+            numFilas = datos.getNumRows();
+        
+        try (RandomAccessFile raf = new RandomAccessFile(archivoTemporal, "rw");
+             FileChannel canal = raf.getChannel()) {
+            
+            // Escribimos la cabecera
+            ByteBuffer buffer = ByteBuffer.allocateDirect(8 * FILAS_POR_BLOQUE).order(ORDEN);
+            escribeCabecera(
+                canal, buffer, archivo, tamArchivo, fechaArchivo, numDatos, numFilas
+            );
+            
+            // Escribimos las columnas por bloques de filas
+            double[] valores = new double[FILAS_POR_BLOQUE];
+            for (int j = -1; j < numDatos; j++) {
+                for (int fila = 0; fila < numFilas; fila += FILAS_POR_BLOQUE) {
+                    int numFilasBloque = Math.min(FILAS_POR_BLOQUE, numFilas - fila);
+                    if (j < 0) {
+                        datos.getTiempos(fila, numFilasBloque, valores);
+                    } else {
+                        datos.getDatos(j, fila, numFilasBloque, valores);
+                    }
+                    
+                    buffer.clear();
+                    buffer.asDoubleBuffer().put(valores, 0, numFilasBloque);
+                    buffer.limit(8 * numFilasBloque);
+                    escribeBuffer(canal, buffer);
+                }
+            }
+        } catch (IOException e) {
+            archivoTemporal.delete();
+            throw e;
+        }
+        
+        sustituye(archivoTemporal, archivoCache);
+    }
+
+// Funciones privadas
+    /** Lee la cabecera del archivo de cache dado y comprueba que se
+     * corresponde con el estado actual del archivo csv
+     * 
+     * @param archivo el archivo csv
+     * @param canal el canal del archivo de cache
+     * @return la cabecera del archivo de cache, null si no es valida */
+    private Cabecera leeCabecera(File archivo, FileChannel canal)
+            throws IOException {
+        
+        if (canal.size() < TAM_CABECERA) { return null; }
+        ByteBuffer cabecera = canal.map(
+            FileChannel.MapMode.READ_ONLY, 0, TAM_CABECERA
+        ).order(ORDEN);
+        
+        if ((cabecera.getInt() != MAGIC)
+            || (cabecera.getInt() != VERSION)
+            || (cabecera.getLong() != archivo.length())
+            || (cabecera.getLong() != archivo.lastModified())
+            || (cabecera.getLong() != calculaChecksum(archivo))) {
+            return null;
+        }
+        
+        int numDatos = cabecera.getInt();
+        long numFilas = cabecera.getLong();
+        if ((numDatos < 1) || (numFilas < 0) || (numFilas > Integer.MAX_VALUE)
+            || (canal.size() != TAM_CABECERA + 8 * numFilas * (numDatos + 1))) {
+            return null;
+        }
+        
+        return new Cabecera(numDatos, (int) numFilas);
+    }
+    
+    /** Escribe la cabecera del archivo de cache al comienzo del canal dado
+     * 
+     * @param canal el canal del archivo de cache, vacio
+     * @param buffer el buffer con el que se escribira la cabecera, de al
+     *      menos TAM_CABECERA bytes
+     * @param archivo el archivo csv del que se leyeron los datos
+     * @param tamArchivo el tamaño del archivo csv antes de leerlo
+     * @param fechaArchivo la fecha de modificacion del archivo csv antes de
+     *      leerlo
+     * @param numDatos el numero de columnas de datos
+     * @param numFilas el numero de filas de las columnas */
+    private void escribeCabecera(FileChannel canal, ByteBuffer buffer,
+            File archivo, long tamArchivo, long fechaArchivo, int numDatos,
+            int numFilas) throws IOException {
+        
+        buffer.clear();
+        buffer.putInt(MAGIC)
+              .putInt(VERSION)
+              .putLong(tamArchivo)
+              .putLong(fechaArchivo)
+              .putLong(calculaChecksum(archivo))
+              .putInt(numDatos)
+              .putLong(numFilas);
+        buffer.position(TAM_CABECERA);
+        buffer.flip();
+        escribeBuffer(canal, buffer);
+    }
+    
+    /** Calcula el checksum del archivo dado a partir de sus primeros y sus
+     * ultimos bytes
+     * 
+     * @param archivo el archivo cuyo checksum queremos calcular
+     * @return el checksum del archivo */
+    private long calculaChecksum(File archivo) throws IOException {
+        
+        CRC32 crc = new CRC32();
+        try (RandomAccessFile raf = new RandomAccessFile(archivo, "r")) {
+            long tam = raf.length();
+            byte[] bytes = new byte[(int) Math.min(TAM_CHECKSUM, tam)];
+            
+            raf.readFully(bytes);
+            crc.update(bytes);
+            
+            raf.seek(tam - bytes.length);
+            raf.readFully(bytes);
+            crc.update(bytes);
+        }
+        
+        return crc.getValue();
+    }
+    
+    /** Copia parte de una columna del archivo de cache al array dado
+     * 
+     * @param canal el canal del archivo de cache
+     * @param numFilas el numero de filas de las columnas
+     * @param columna el indice de la columna, siendo 0 la de los tiempos
+     * @param fila la primera fila que queremos copiar
+     * @param destino el array donde guardaremos los valores
+     * @param numFilasBloque el numero de filas que queremos copiar */
+    private void leeColumna(FileChannel canal, long numFilas, int columna,
+            long fila, double[] destino, int numFilasBloque) throws IOException {
+        
+        long posicion = TAM_CABECERA + 8 * (columna * numFilas + fila);
+        MappedByteBuffer buffer = canal.map(
+            FileChannel.MapMode.READ_ONLY, posicion, 8L * numFilasBloque
+        );
+        
+        DoubleBuffer valores = buffer.order(ORDEN).asDoubleBuffer();
+        valores.get(destino, 0, numFilasBloque);
+    }
+    
+    /** Escribe todo el contenido del buffer dado en el canal
+     * 
+     * @param canal el canal donde queremos escribir
+     * @param buffer el buffer con los bytes a escribir */
+    private void escribeBuffer(FileChannel canal, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+    
+    /** Crea el archivo temporal en el que se escribe la cache dada antes de
+     * sustituirla. Se crea en el mismo directorio que la cache para poder
+     * renombrarlo de forma atomica, y con un nombre unico para que dos
+     * lecturas simultaneas del mismo archivo csv no escriban en el mismo
+     * archivo temporal
+     * 
+     * @param archivoCache el archivo de cache que queremos escribir
+     * @return el archivo temporal, vacio */
+    private static File creaTemporal(File archivoCache) throws IOException {
+        return File.createTempFile(
+            archivoCache.getName(), ".tmp", archivoCache.getAbsoluteFile().getParentFile()
+        );
+    }
+    
+    /** Sustituye la cache dada por el archivo temporal dado renombrandolo de
+     * forma atomica, de forma que quien lea la cache vera la anterior o la
+     * nueva completa, nunca una mezcla. Si no se puede renombrar se borra el
+     * archivo temporal
+     * 
+     * @param archivoTemporal el archivo temporal con la nueva cache
+     * @param archivoCache el archivo de cache que queremos sustituir */
+    private static void sustituye(File archivoTemporal, File archivoCache)
+            throws IOException {
+        try {
+            Files.move(
+                archivoTemporal.toPath(), archivoCache.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE
+            );
+        } catch (IOException e) {
+            archivoTemporal.delete();
+            throw e;
+        }
+    }
+    
+}
@@ -0,0 +1,224 @@
+package visualizacionwearables.modelo.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Clase CacheDatos
+ * Cache compartida por todas las ventanas con los datos leidos de los archivos,
+ * de forma que si se abre varias veces el mismo archivo sus datos solo se leen
+ * y se guardan en memoria una vez.
+ * <br>Los datos se identifican por la ruta canonica, el tamaño y la fecha de
+ * modificacion del archivo, por lo que si el archivo cambia se vuelve a leer,
+ * y por el modo de carga, ya que cada modo guarda los datos de una forma
+ * distinta.
+ * Cada ventana que emplea unos datos ha de liberarlos al cerrarse. Cuando
+ * ninguna ventana los emplea se mantienen mediante una referencia blanda
+ * (SoftReference) por si se vuelven a abrir, de forma que se descartan si la
+ * maquina virtual se queda sin memoria.
+ * <br>Los datos devueltos por la cache son compartidos, por lo que no se han
+ * de modificar.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class CacheDatos {
+    
+    /** Identifica el estado de un archivo del que se han leido datos */
+    public static class Clave {
+        
+        private final String mRuta, mModo;
+        private final long mTam, mFecha;
+        
+        /** Construye la clave del estado dado del archivo dado
+         * 
+         * @param archivo el archivo del que se leen los datos
+         * @param tam el tamaño del archivo
+         * @param fecha la fecha de modificacion del archivo
+         * @param modo el modo con el que se cargan los datos del archivo */
+        public Clave(File archivo, long tam, long fecha, String modo)
+                throws IOException {
+            mRuta = archivo.getCanonicalPath();
+            mModo = modo;
+            mTam = tam;
+            mFecha = fecha;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Clave)) { return false; }
+            Clave otra = (Clave) o;
+            return mRuta.equals(otra.mRuta) && mModo.equals(otra.mModo)
+                && (mTam == otra.mTam) && (mFecha == otra.mFecha);
+        }
+        
+        @Override
+        public int hashCode() {
+            int ret = mRuta.hashCode();
+            ret = 31 * ret + mModo.hashCode();
+            ret = 31 * ret + (int) (mTam ^ (mTam >>> 32));
+            ret = 31 * ret + (int) (mFecha ^ (mFecha >>> 32));
+            return ret;
+        }
+    }
+    
+    /** Los datos de un archivo guardados en la cache */
+    private static class Entrada {
+        
+        /** Si los datos todavia se estan leyendo */
+        boolean mLeyendo = true;
+        
+        /** El numero de ventanas que emplean los datos */
+        int mReferencias = 0;
+        
+        /** Los datos mientras alguna ventana los emplee, null en caso
+         * contrario */
+        DatosSensores mDatos;
+        
+        /** Los datos cuando ninguna ventana los emplea */
+        SoftReference<DatosSensores> mDatosLiberados;
+        
+        /** El numero de bytes del archivo leidos para obtener los datos */
+        long mBytesLeidos;
+        
+        /** @return los datos de la entrada, null si ya se han descartado */
+        DatosSensores getDatos() {
+            if (mDatos != null) { return mDatos; }
+            return (mDatosLiberados != null)? mDatosLiberados.get() : null;
+        }
+    }
+    
+    /** La cache compartida por todas las ventanas */
+    private static final CacheDatos INSTANCIA = new CacheDatos();
+    
+    /** Las entradas de la cache */
+    private final Map<Clave, Entrada> mEntradas;
+    
+    
+    /** @return la cache compartida por todas las ventanas */
+    public static CacheDatos getInstancia() {
+        return INSTANCIA;
+    }
+    
+    /** Construye una nueva CacheDatos */
+    private CacheDatos() {
+        mEntradas = new HashMap<>();
+    }
+    
+    /** Devuelve los datos del archivo dado si estan en la cache. Si otro hilo
+     * esta leyendo el mismo archivo espera a que termine.
+     * <br>Si los datos no estan en la cache se devuelve null y el hilo que
+     * llama pasa a ser el encargado de leerlos, por lo que ha de llamar a
+     * completa o a cancela al terminar la lectura
+     * 
+     * @param clave la clave del archivo
+     * @return los datos del archivo, null si se han de leer
+     * @throws InterruptedIOException si se interrumpe el hilo mientras espera
+     *      a que otro hilo lea los datos */
+    public synchronized DatosSensores reserva(Clave clave)
+            throws InterruptedIOException {
+        
+        purga();
+        
+        Entrada entrada;
+        while (((entrada = mEntradas.get(clave)) != null) && entrada.mLeyendo) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Lectura cancelada");
+            }
+        }
+        
+        DatosSensores ret = (entrada != null)? entrada.getDatos() : null;
+        if (ret == null) {
+            mEntradas.put(clave, new Entrada());
+            return null;
+        }
+        
+        entrada.mReferencias++;
+        entrada.mDatos = ret;
+        entrada.mDatosLiberados = null;
+        return ret;
+    }
+    
+    /** Guarda en la cache los datos leidos por el hilo que los reservo
+     * 
+     * @param clave la clave del archivo
+     * @param datos los datos leidos del archivo
+     * @param bytesLeidos el numero de bytes del archivo leidos para obtener
+     *      los datos */
+    public synchronized void completa(Clave clave, DatosSensores datos,
+            long bytesLeidos) {
+        
+        Entrada entrada = mEntradas.get(clave);
+        assert (entrada != null) && entrada.mLeyendo :
+            "Los datos no se han reservado";
+        
+        entrada.mLeyendo = false;
+        entrada.mReferencias++;
+        entrada.mDatos = datos;
+        entrada.mBytesLeidos = bytesLeidos;
+        notifyAll();
+    }
+    
+    /** Cancela la lectura de los datos reservados, de forma que los datos los
+     * lea el siguiente hilo que los solicite
+     * 
+     * @param clave la clave del archivo */
+    public synchronized void cancela(Clave clave) {
+        
+        Entrada entrada = mEntradas.get(clave);
+        if ((entrada != null) && entrada.mLeyendo) {
+            mEntradas.remove(clave);
+            notifyAll();
+        }
+    }
+    
+    /** @param clave la clave del archivo
+     * @return el numero de bytes del archivo leidos para obtener sus datos,
+     *      0 si no estan en la cache */
+    public synchronized long getBytesLeidos(Clave clave) {
+        Entrada entrada = mEntradas.get(clave);
+        return (entrada != null)? entrada.mBytesLeidos : 0;
+    }
+    
+    /** Libera los datos del archivo dado cuando una ventana deja de
+     * emplearlos. Si ya no los emplea ninguna ventana, los datos se pueden
+     * descartar si falta memoria
+     * 
+     * @param clave la clave del archivo */
+    public synchronized void libera(Clave clave) {
+        
+        Entrada entrada = mEntradas.get(clave);
+        if ((entrada == null) || entrada.mLeyendo || (entrada.mReferencias == 0)) {
+            return;
+        }
+        
+        entrada.mReferencias--;
+        if ((entrada.mReferencias == 0) && (entrada.mDatos != null)) {
+            entrada.mDatosLiberados = new SoftReference<>(entrada.mDatos);
+            entrada.mDatos = null;
+        }
+        
+        purga();
+    }
+
+// Funciones privadas
+    /** Elimina las entradas cuyos datos ya se han descartado */
+    private void purga() {
+        Iterator<Entrada> it = mEntradas.values().iterator();
+        while (it.hasNext()) {
+            Entrada entrada = it.next();
+            if (!entrada.mLeyendo && (entrada.getDatos() == null)) {
+                it.remove();
+            }
+        }
+    }
+    
+}
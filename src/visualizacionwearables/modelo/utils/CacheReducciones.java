@@ -0,0 +1,285 @@
+package visualizacionwearables.modelo.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Clase CacheReducciones
+ * Cache con los puntos obtenidos al reducir los datos de un grafico, de forma
+ * que si se vuelve a mostrar una zona del grafico que ya se habia mostrado
+ * antes no se vuelven a reducir sus datos.
+ * <br>Los puntos se identifican por todo lo que determina su valor: los datos
+ * y sus filas, la columna y la zona mostradas, el tamaño del grafico
+ * y el algoritmo empleado. La cache ocupa como mucho el numero de bytes
+ * dado, descartando los puntos empleados hace mas tiempo cuando se llena.
+ * <br>La cache guarda una copia de los puntos y los copia en el buffer dado
+ * al consultarlos, de forma que se puede reutilizar el mismo buffer para
+ * dibujar el grafico. Del mismo modo guarda una copia de la clave de los
+ * puntos, por lo que se puede reutilizar la misma clave para todas las
+ * consultas.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class CacheReducciones {
+    
+    /** Identifica los puntos de una zona de un grafico
+     * <br>Sus valores se pueden cambiar con set para reutilizar la misma
+     * clave en cada consulta sin crear ningun objeto */
+    public static class Clave {
+        
+        private DatosSensores mDatos;
+        private int mNumFilas, mColumna, mMinX, mMaxX, mMinY, mMaxY;
+        private double mPrimerTiempo, mUltimoTiempo, mVentanaTiempo, mOffset, mZoom;
+        private Reductor mReductor;
+        
+        /** Construye una clave vacia, que se ha de rellenar con set antes de
+         * emplearla */
+        public Clave() {
+            mDatos = null;
+            mReductor = null;
+        }
+        
+        /** Construye una copia de la clave dada
+         * 
+         * @param origen la clave que queremos copiar */
+        public Clave(Clave origen) {
+            set(
+                origen.mDatos, origen.mNumFilas,
+                origen.mPrimerTiempo, origen.mUltimoTiempo, origen.mVentanaTiempo,
+                origen.mColumna, origen.mOffset, origen.mZoom,
+                origen.mMinX, origen.mMaxX, origen.mMinY, origen.mMaxY,
+                origen.mReductor
+            );
+        }
+        
+        /** Cambia la clave por la de los puntos de la zona dada de un grafico
+         * 
+         * @param datos los datos del grafico
+         * @param numFilas el numero de filas de los datos
+         * @param primerTiempo el tiempo de la primera fila de los datos
+         * @param ultimoTiempo el tiempo de la ultima fila de los datos. Junto
+         *      con el numero de filas y el tiempo de la primera identifican
+         *      las filas de los datos aunque se descarten las mas antiguas
+         * @param ventanaTiempo el tiempo que se muestra hasta la ultima fila,
+         *      0 si se muestran todas las filas
+         * @param columna la columna de los datos mostrada
+         * @param offset el offset de la zona mostrada
+         * @param zoom el zoom de la zona mostrada
+         * @param minX el minimo valor en el eje X en las coordenadas del
+         *      grafico
+         * @param maxX el maximo valor en el eje X en las coordenadas del
+         *      grafico
+         * @param minY el minimo valor en el eje Y en las coordenadas del
+         *      grafico
+         * @param maxY el maximo valor en el eje Y en las coordenadas del
+         *      grafico
+         * @param reductor el algoritmo con el que se reducen los datos */
+        public void set(DatosSensores datos, int numFilas,
+                double primerTiempo, double ultimoTiempo, double ventanaTiempo,
+                int columna, double offset, double zoom,
+                int minX, int maxX, int minY, int maxY, Reductor reductor) {
+            mDatos = datos;
+            mNumFilas = numFilas;
+            mPrimerTiempo = primerTiempo;
+            mUltimoTiempo = ultimoTiempo;
+            mVentanaTiempo = ventanaTiempo;
+            mColumna = columna;
+            mOffset = offset;
+            mZoom = zoom;
+            mMinX = minX;
+            mMaxX = maxX;
+            mMinY = minY;
+            mMaxY = maxY;
+            mReductor = reductor;
+        }
+        
+        /** Comprueba si la clave dada identifica los puntos de la misma zona
+         * que esta salvo por el offset, es decir, si los puntos de cada pixel
+         * son los mismos aunque esten desplazados
+         * 
+         * @param otra la clave con la que comparar
+         * @return true si solo se diferencian en el offset, false en caso
+         *      contrario */
+        public boolean isMismaEscala(Clave otra) {
+            return (mDatos == otra.mDatos) && (mNumFilas == otra.mNumFilas)
+                && (Double.compare(mPrimerTiempo, otra.mPrimerTiempo) == 0)
+                && (Double.compare(mUltimoTiempo, otra.mUltimoTiempo) == 0)
+                && (Double.compare(mVentanaTiempo, otra.mVentanaTiempo) == 0)
+                && (mColumna == otra.mColumna)
+                && (Double.compare(mZoom, otra.mZoom) == 0)
+                && (mMinX == otra.mMinX) && (mMaxX == otra.mMaxX)
+                && (mMinY == otra.mMinY) && (mMaxY == otra.mMaxY)
+                && (mReductor == otra.mReductor);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Clave)) { return false; }
+            Clave otra = (Clave) o;
+            return isMismaEscala(otra)
+                && (Double.compare(mOffset, otra.mOffset) == 0);
+        }
+        
+        @Override
+        public int hashCode() {
+            int ret = System.identityHashCode(mDatos);
+            ret = 31 * ret + mNumFilas;
+            ret = 31 * ret + hash(mPrimerTiempo);
+            ret = 31 * ret + hash(mUltimoTiempo);
+            ret = 31 * ret + hash(mVentanaTiempo);
+            ret = 31 * ret + mColumna;
+            ret = 31 * ret + hash(mOffset);
+            ret = 31 * ret + hash(mZoom);
+            ret = 31 * ret + mMinX;
+            ret = 31 * ret + mMaxX;
+            ret = 31 * ret + mMinY;
+            ret = 31 * ret + mMaxY;
+            ret = 31 * ret + System.identityHashCode(mReductor);
+            return ret;
+        }
+        
+        /** @param valor un valor de la clave
+         * @return el hash del valor */
+        private static int hash(double valor) {
+            long bits = Double.doubleToLongBits(valor);
+            return (int) (bits ^ (bits >>> 32));
+        }
+    }
+    
+    /** Los puntos de una zona de un grafico guardados en la cache */
+    private static class Entrada {
+        
+        final BufferCoordenadas mPuntos;
+        final long mBytes;
+        
+        Entrada(BufferCoordenadas puntos) {
+            mPuntos = new BufferCoordenadas(puntos.getNumPuntos());
+            mPuntos.setPuntos(puntos);
+            mBytes = BYTES_ENTRADA + BYTES_PUNTO * puntos.getNumPuntos();
+        }
+    }
+    
+    /** El numero aproximado de bytes que ocupa cada entrada sin contar sus
+     * puntos */
+    private static final long BYTES_ENTRADA = 160;
+    
+    /** El numero aproximado de bytes que ocupa cada punto de una entrada */
+    private static final long BYTES_PUNTO = 8;
+    
+    /** Las entradas de la cache, ordenadas desde la empleada hace mas tiempo
+     * hasta la ultima empleada */
+    private final LinkedHashMap<Clave, Entrada> mEntradas;
+    
+    /** El numero maximo de bytes que puede ocupar la cache */
+    private long mMaxBytes;
+    
+    /** El numero de bytes que ocupan las entradas de la cache */
+    private long mBytes;
+    
+    /** El numero de veces que se han encontrado y no se han encontrado los
+     * puntos buscados en la cache */
+    private long mAciertos, mFallos;
+    
+    
+    /** Construye una nueva CacheReducciones vacia
+     * 
+     * @param maxBytes el numero maximo de bytes que puede ocupar la cache */
+    public CacheReducciones(long maxBytes) {
+        mEntradas = new LinkedHashMap<>(16, 0.75f, true);
+        mMaxBytes = maxBytes;
+        mBytes = 0;
+        mAciertos = 0;
+        mFallos = 0;
+    }
+    
+    /** Copia los puntos con la clave dada en el buffer dado si estan en la
+     * cache
+     * 
+     * @param clave la clave de los puntos
+     * @param destino el buffer donde se copiaran los puntos
+     * @return true si los puntos estaban en la cache, false en caso
+     *      contrario */
+    public synchronized boolean get(Clave clave, BufferCoordenadas destino) {
+        Entrada entrada = mEntradas.get(clave);
+        if (entrada == null) {
+            mFallos++;
+            return false;
+        }
+        
+        mAciertos++;
+        destino.setPuntos(entrada.mPuntos);
+        return true;
+    }
+    
+    /** Guarda en la cache los puntos con la clave dada, descartando los
+     * puntos empleados hace mas tiempo si no caben. Si los puntos no caben
+     * en toda la cache no se guardan
+     * 
+     * @param clave la clave de los puntos, de la que se guarda una copia
+     * @param puntos los puntos a guardar, de los que se guarda una copia */
+    public synchronized void put(Clave clave, BufferCoordenadas puntos) {
+        
+        if (BYTES_ENTRADA + BYTES_PUNTO * puntos.getNumPuntos() > mMaxBytes) { return; }
+        
+        Entrada entrada = new Entrada(puntos);
+        Entrada anterior = mEntradas.put(new Clave(clave), entrada);
+        if (anterior != null) {
+            mBytes -= anterior.mBytes;
+        }
+        mBytes += entrada.mBytes;
+        
+        descarta();
+    }
+    
+    /** Descarta todos los puntos de la cache */
+    public synchronized void vacia() {
+        mEntradas.clear();
+        mBytes = 0;
+    }
+    
+    /** @return el numero maximo de bytes que puede ocupar la cache */
+    public synchronized long getMaxBytes() {
+        return mMaxBytes;
+    }
+    
+    /** Cambia el numero maximo de bytes que puede ocupar la cache,
+     * descartando los puntos empleados hace mas tiempo si ya no caben
+     * 
+     * @param maxBytes el nuevo numero maximo de bytes */
+    public synchronized void setMaxBytes(long maxBytes) {
+        mMaxBytes = maxBytes;
+        descarta();
+    }
+    
+    /** @return el numero aproximado de bytes que ocupa la cache */
+    public synchronized long getBytes() {
+        return mBytes;
+    }
+    
+    /** @return el numero de veces que se han encontrado los puntos buscados
+     *      en la cache */
+    public synchronized long getAciertos() {
+        return mAciertos;
+    }
+    
+    /** @return el numero de veces que no se han encontrado los puntos
+     *      buscados en la cache */
+    public synchronized long getFallos() {
+        return mFallos;
+    }
+
+// Funciones privadas
+    /** Descarta las entradas empleadas hace mas tiempo hasta que la cache no
+     * ocupe mas del numero maximo de bytes */
+    private void descarta() {
+        Iterator<Map.Entry<Clave, Entrada>> it = mEntradas.entrySet().iterator();
+        while ((mBytes > mMaxBytes) && it.hasNext()) {
+            mBytes -= it.next().getValue().mBytes;
+            it.remove();
+        }
+    }
+    
+}
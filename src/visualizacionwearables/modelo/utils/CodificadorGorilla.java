@@ -0,0 +1,399 @@
+package visualizacionwearables.modelo.utils;
+
+import java.util.Arrays;
+
+/**
+ * Clase CodificadorGorilla
+ * Comprime sin perdidas columnas de valores double con las codificaciones del
+ * formato Gorilla de series temporales:
+ * <ul>
+ * <li>Los tiempos se codifican mediante la diferencia de sus diferencias
+ * (delta-of-delta) calculada sobre los bits de cada double, de forma que los
+ * tiempos casi regulares ocupan uno o pocos bits cada uno.</li>
+ * <li>Los datos se codifican mediante el XOR de cada valor con el anterior,
+ * guardando unicamente los bits significativos del resultado, ya que los
+ * valores consecutivos de los sensores suelen compartir el signo, el
+ * exponente y los primeros bits de la mantisa.</li>
+ * </ul>
+ * Como los datos leidos de los csv tienen un numero fijo de decimales, sus
+ * bits de mantisa apenas se repiten y el XOR comprime poco. Por ello, si todos
+ * los valores de un bloque se obtienen exactamente a partir de un entero y
+ * una potencia de 10, se guardan en su lugar las diferencias entre esos
+ * enteros.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+final class CodificadorGorilla {
+    
+    /** Las potencias de 10 por las que se escalan los valores decimales */
+    private static final double[] POTENCIAS_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9
+    };
+    
+    /** El valor absoluto a partir del cual los enteros escalados dejan de
+     * representarse exactamente como double */
+    private static final long MAX_ENTERO = 1L << 53;
+    
+    /** Escribe valores de un numero de bits cualquiera uno detras de otro,
+     * empezando por el bit mas significativo de cada palabra */
+    private static class EscritorBits {
+        
+        private long[] mPalabras = new long[16];
+        private long mNumBits = 0;
+        
+        /** Escribe los ultimos bits del valor dado
+         * 
+         * @param valor el valor a escribir
+         * @param numBits el numero de bits del valor en el rango [1, 64] */
+        void escribe(long valor, int numBits) {
+            
+            int palabra = (int) (mNumBits >>> 6),
+                libres = 64 - (int) (mNumBits & 63);
+            if (palabra + 1 >= mPalabras.length) {
+                mPalabras = Arrays.copyOf(mPalabras, 2 * mPalabras.length);
+            }
+            
+            long bits = (numBits == 64)? valor : valor & ((1L << numBits) - 1);
+            if (numBits <= libres) {
+                mPalabras[palabra] |= bits << (libres - numBits);
+            } else {
+                mPalabras[palabra] |= bits >>> (numBits - libres);
+                mPalabras[palabra + 1] |= bits << (64 - numBits + libres);
+            }
+            mNumBits += numBits;
+        }
+        
+        /** @return las palabras con los bits escritos */
+        long[] getPalabras() {
+            return Arrays.copyOf(mPalabras, (int) ((mNumBits + 63) >>> 6));
+        }
+    }
+    
+    /** Lee los valores escritos por un EscritorBits */
+    private static class LectorBits {
+        
+        private final long[] mPalabras;
+        private long mPosicion = 0;
+        
+        LectorBits(long[] palabras) {
+            mPalabras = palabras;
+        }
+        
+        /** Lee el siguiente valor
+         * 
+         * @param numBits el numero de bits del valor en el rango [1, 64]
+         * @return el valor leido en los ultimos bits */
+        long lee(int numBits) {
+            
+            int palabra = (int) (mPosicion >>> 6),
+                desplazamiento = (int) (mPosicion & 63),
+                libres = 64 - desplazamiento;
+            
+            long ret = (mPalabras[palabra] << desplazamiento) >>> (64 - numBits);
+            if (numBits > libres) {
+                ret |= mPalabras[palabra + 1] >>> (64 - numBits + libres);
+            }
+            mPosicion += numBits;
+            return ret;
+        }
+        
+        /** Lee el siguiente valor con signo
+         * 
+         * @param numBits el numero de bits del valor en el rango [1, 64]
+         * @return el valor leido */
+        long leeConSigno(int numBits) {
+            return (lee(numBits) << (64 - numBits)) >> (64 - numBits);
+        }
+        
+        /** @return el siguiente bit */
+        boolean leeBit() {
+            return lee(1) != 0;
+        }
+    }
+    
+    
+    private CodificadorGorilla() { }
+    
+    /** Comprime los tiempos dados
+     * 
+     * @param tiempos el array con los tiempos
+     * @param numValores el numero de tiempos a comprimir desde el comienzo
+     *      del array, al menos 1
+     * @return los tiempos comprimidos */
+    static long[] codificaTiempos(double[] tiempos, int numValores) {
+        
+        EscritorBits escritor = new EscritorBits();
+        
+        long anterior = Double.doubleToRawLongBits(tiempos[0]),
+             delta = 0;
+        escritor.escribe(anterior, 64);
+        
+        for (int i = 1; i < numValores; i++) {
+            long actual = Double.doubleToRawLongBits(tiempos[i]),
+                 nuevoDelta = actual - anterior,
+                 dod = nuevoDelta - delta;
+            
+            if (dod == 0) {
+                escritor.escribe(0, 1);
+            } else if ((dod >= -64) && (dod < 64)) {
+                escritor.escribe(0x2, 2);
+                escritor.escribe(dod, 7);
+            } else if ((dod >= -256) && (dod < 256)) {
+                escritor.escribe(0x6, 3);
+                escritor.escribe(dod, 9);
+            } else if ((dod >= -2048) && (dod < 2048)) {
+                escritor.escribe(0xE, 4);
+                escritor.escribe(dod, 12);
+            } else {
+                escritor.escribe(0xF, 4);
+                escritor.escribe(dod, 64);
+            }
+            
+            delta = nuevoDelta;
+            anterior = actual;
+        }
+        
+        return escritor.getPalabras();
+    }
+    
+    /** Descomprime los tiempos comprimidos con codificaTiempos
+     * 
+     * @param palabras los tiempos comprimidos
+     * @param destino el array donde se guardaran los tiempos
+     * @param numValores el numero de tiempos comprimidos */
+    static void decodificaTiempos(long[] palabras, double[] destino, int numValores) {
+        
+        LectorBits lector = new LectorBits(palabras);
+        
+        long anterior = lector.lee(64),
+             delta = 0;
+        destino[0] = Double.longBitsToDouble(anterior);
+        
+        for (int i = 1; i < numValores; i++) {
+            long dod;
+            if (!lector.leeBit()) {
+                dod = 0;
+            } else if (!lector.leeBit()) {
+                dod = lector.leeConSigno(7);
+            } else if (!lector.leeBit()) {
+                dod = lector.leeConSigno(9);
+            } else if (!lector.leeBit()) {
+                dod = lector.leeConSigno(12);
+            } else {
+                dod = lector.lee(64);
+            }
+            
+            delta += dod;
+            anterior += delta;
+            destino[i] = Double.longBitsToDouble(anterior);
+        }
+    }
+    
+    /** Comprime los valores dados. Si todos los valores son decimales con
+     * pocas cifras, como los que se leen de los archivos csv, se guardan como
+     * enteros escalados; en caso contrario se codifican mediante XOR
+     * 
+     * @param valores el array con los valores
+     * @param numValores el numero de valores a comprimir desde el comienzo
+     *      del array, al menos 1
+     * @return los valores comprimidos */
+    static long[] codificaValores(double[] valores, int numValores) {
+        
+        EscritorBits escritor = new EscritorBits();
+        
+        int decimales = calculaDecimales(valores, numValores);
+        if (decimales >= 0) {
+            escritor.escribe(1, 1);
+            codificaDecimales(escritor, valores, numValores, decimales);
+        } else {
+            escritor.escribe(0, 1);
+            codificaXOR(escritor, valores, numValores);
+        }
+        
+        return escritor.getPalabras();
+    }
+    
+    /** Descomprime los valores comprimidos con codificaValores
+     * 
+     * @param palabras los valores comprimidos
+     * @param destino el array donde se guardaran los valores
+     * @param numValores el numero de valores comprimidos */
+    static void decodificaValores(long[] palabras, double[] destino, int numValores) {
+        
+        LectorBits lector = new LectorBits(palabras);
+        if (lector.leeBit()) {
+            decodificaDecimales(lector, destino, numValores);
+        } else {
+            decodificaXOR(lector, destino, numValores);
+        }
+    }
+
+// Funciones privadas
+    /** Calcula el menor numero de decimales con el que todos los valores dados
+     * se pueden obtener exactamente dividiendo un entero entre una potencia
+     * de 10, que es como ParserCSV traduce los numeros con pocas cifras
+     * 
+     * @param valores el array con los valores
+     * @param numValores el numero de valores desde el comienzo del array
+     * @return el numero de decimales, -1 si no existe */
+    private static int calculaDecimales(double[] valores, int numValores) {
+        
+        // Como un valor con k decimales tambien los tiene con mas, basta con
+        // ir aumentando los decimales y comprobar al final todos los valores
+        int ret = 0;
+        for (int i = 0; i < numValores; i++) {
+            while (!esDecimal(valores[i], ret)) {
+                if (++ret >= POTENCIAS_10.length) { return -1; }
+            }
+        }
+        for (int i = 0; i < numValores; i++) {
+            if (!esDecimal(valores[i], ret)) { return -1; }
+        }
+        
+        return ret;
+    }
+    
+    /** @param valor el valor a comprobar
+     * @param decimales el numero de decimales
+     * @return true si el valor se obtiene exactamente al dividir su entero
+     *      escalado entre 10 elevado a los decimales dados */
+    private static boolean esDecimal(double valor, int decimales) {
+        long entero = Math.round(valor * POTENCIAS_10[decimales]);
+        return (Math.abs(entero) < MAX_ENTERO)
+            && (Double.doubleToRawLongBits(entero / POTENCIAS_10[decimales])
+                == Double.doubleToRawLongBits(valor));
+    }
+    
+    /** Codifica los valores dados como enteros escalados, guardando la
+     * diferencia de cada entero con el anterior con el menor numero de bits
+     * fijo en el que caben todas las diferencias
+     * 
+     * @param escritor el escritor donde se guardaran los valores
+     * @param valores el array con los valores
+     * @param numValores el numero de valores desde el comienzo del array
+     * @param decimales el numero de decimales de los valores */
+    private static void codificaDecimales(EscritorBits escritor,
+            double[] valores, int numValores, int decimales) {
+        
+        double escala = POTENCIAS_10[decimales];
+        
+        long primero = Math.round(valores[0] * escala),
+             anterior = primero,
+             bitsDiferencias = 0;
+        long[] diferencias = new long[numValores];
+        for (int i = 1; i < numValores; i++) {
+            long actual = Math.round(valores[i] * escala),
+                 diferencia = actual - anterior;
+            
+            // Codificacion zigzag para que las diferencias negativas pequeñas
+            // tambien ocupen pocos bits
+            diferencias[i] = (diferencia << 1) ^ (diferencia >> 63);
+            bitsDiferencias |= diferencias[i];
+            anterior = actual;
+        }
+        int numBits = 64 - Long.numberOfLeadingZeros(bitsDiferencias);
+        
+        escritor.escribe(decimales, 4);
+        escritor.escribe(primero, 64);
+        escritor.escribe(numBits, 7);
+        if (numBits > 0) {
+            for (int i = 1; i < numValores; i++) {
+                escritor.escribe(diferencias[i], numBits);
+            }
+        }
+    }
+    
+    /** Decodifica los valores codificados mediante codificaDecimales
+     * 
+     * @param lector el lector de los valores
+     * @param destino el array donde se guardaran los valores
+     * @param numValores el numero de valores codificados */
+    private static void decodificaDecimales(LectorBits lector,
+            double[] destino, int numValores) {
+        
+        double escala = POTENCIAS_10[(int) lector.lee(4)];
+        long actual = lector.lee(64);
+        int numBits = (int) lector.lee(7);
+        
+        destino[0] = actual / escala;
+        for (int i = 1; i < numValores; i++) {
+            if (numBits > 0) {
+                long zigzag = lector.lee(numBits);
+                actual += (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+            destino[i] = actual / escala;
+        }
+    }
+    
+    /** Codifica los valores dados mediante el XOR de cada valor con el
+     * anterior
+     * 
+     * @param escritor el escritor donde se guardaran los valores
+     * @param valores el array con los valores
+     * @param numValores el numero de valores desde el comienzo del array */
+    private static void codificaXOR(EscritorBits escritor,
+            double[] valores, int numValores) {
+        
+        long anterior = Double.doubleToRawLongBits(valores[0]);
+        escritor.escribe(anterior, 64);
+        
+        // Los ceros iniciales y finales del ultimo XOR escrito con su
+        // ventana de bits significativos, -1 si todavia no hay ninguno
+        int ceros = -1, finales = 0;
+        for (int i = 1; i < numValores; i++) {
+            long actual = Double.doubleToRawLongBits(valores[i]),
+                 xor = actual ^ anterior;
+            
+            if (xor == 0) {
+                escritor.escribe(0, 1);
+            } else {
+                int nuevosCeros = Math.min(Long.numberOfLeadingZeros(xor), 31),
+                    nuevosFinales = Long.numberOfTrailingZeros(xor);
+                
+                if ((ceros >= 0) && (nuevosCeros >= ceros) && (nuevosFinales >= finales)) {
+                    // Los bits significativos caben en la ventana anterior
+                    escritor.escribe(0x2, 2);
+                    escritor.escribe(xor >>> finales, 64 - ceros - finales);
+                } else {
+                    ceros = nuevosCeros;
+                    finales = nuevosFinales;
+                    int significativos = 64 - ceros - finales;
+                    
+                    escritor.escribe(0x3, 2);
+                    escritor.escribe(ceros, 5);
+                    escritor.escribe(significativos - 1, 6);
+                    escritor.escribe(xor >>> finales, significativos);
+                }
+            }
+            
+            anterior = actual;
+        }
+    }
+    
+    /** Decodifica los valores codificados mediante codificaXOR
+     * 
+     * @param lector el lector de los valores
+     * @param destino el array donde se guardaran los valores
+     * @param numValores el numero de valores codificados */
+    private static void decodificaXOR(LectorBits lector,
+            double[] destino, int numValores) {
+        
+        long anterior = lector.lee(64);
+        destino[0] = Double.longBitsToDouble(anterior);
+        
+        int ceros = 0, finales = 0;
+        for (int i = 1; i < numValores; i++) {
+            if (lector.leeBit()) {
+                if (lector.leeBit()) {
+                    ceros = (int) lector.lee(5);
+                    finales = 64 - ceros - ((int) lector.lee(6) + 1);
+                }
+                anterior ^= lector.lee(64 - ceros - finales) << finales;
+            }
+            destino[i] = Double.longBitsToDouble(anterior);
+        }
+    }
+    
+}
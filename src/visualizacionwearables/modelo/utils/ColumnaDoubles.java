@@ -0,0 +1,84 @@
+package visualizacionwearables.modelo.utils;
+
+import java.util.Arrays;
+
+/**
+ * Clase ColumnaDoubles, representa una columna de valores de tipo double que
+ * crece segun se le añaden valores, sin necesidad de crear un objeto por cada
+ * valor
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+class ColumnaDoubles {
+    
+    /** Los valores de la columna, solo son validos los mTam primeros */
+    private double[] mValores;
+    
+    /** El numero de valores de la columna */
+    private int mTam;
+    
+    
+    /** Construye una nueva ColumnaDoubles vacia
+     * 
+     * @param capacidad el numero de valores que podra guardar la columna
+     *      antes de tener que crecer */
+    ColumnaDoubles(int capacidad) {
+        mValores = new double[Math.max(capacidad, 16)];
+        mTam = 0;
+    }
+    
+    /** @return el numero de valores de la columna */
+    int size() {
+        return mTam;
+    }
+    
+    /** Añade un nuevo valor al final de la columna
+     * 
+     * @param valor el valor que queremos añadir */
+    void add(double valor) {
+        if (mTam == mValores.length) {
+            mValores = Arrays.copyOf(mValores, 2 * mTam);
+        }
+        mValores[mTam++] = valor;
+    }
+    
+    /** Devuelve el valor situado en la posicion dada
+     * 
+     * @param indice la posicion del valor en la columna
+     * @return el valor de la posicion dada */
+    double get(int indice) {
+        assert indice >= 0 && indice < mTam :
+            "No se puede acceder a la posicion '" + indice + '\'';
+        
+        return mValores[indice];
+    }
+    
+    /** Sustituye cada valor de la columna por la suma del valor inicial dado
+     * y de todos los valores hasta el, sumados en orden
+     * 
+     * @param inicial el valor al que se suma el primer valor de la columna
+     * @return la suma del valor inicial y de todos los valores de la columna,
+     *      o el propio valor inicial si la columna esta vacia */
+    double acumula(double inicial) {
+        double ret = inicial;
+        for (int i = 0; i < mTam; i++) {
+            ret += mValores[i];
+            mValores[i] = ret;
+        }
+        return ret;
+    }
+    
+    /** @return el array con los valores de la columna, solo son validos los
+     *      size() primeros */
+    double[] getArray() {
+        return mValores;
+    }
+    
+    /** Elimina todos los valores de la columna conservando su capacidad */
+    void clear() {
+        mTam = 0;
+    }
+    
+}
@@ -1,40 +1,102 @@
 package visualizacionwearables.modelo.utils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.util.Arrays;
+import visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException;
 
 /**
  * Clase DatosSensores, se emplea unicamente para almacenar los datos obtenidos
  * del fichero csv en forma de tabla
+ * <br>Los datos se guardan por columnas en arrays de valores primitivos que
+ * crecen segun se añaden filas, de forma que los valores de cada columna
+ * quedan contiguos en memoria
+ * <br>Se pueden seguir añadiendo filas desde el hilo que lee el fichero
+ * mientras se consultan las ya leidas desde otro hilo. Las consultas no
+ * bloquean, ya que el numero de filas solo se publica despues de escribirlas
+ * y las filas existentes nunca cambian al crecer los arrays
  * 
  * @author Daniel González Alonso
  * @since   28-07-2016
  * @version 1.0
  */
 public class DatosSensores {
-
+    
+    /** La capacidad inicial en filas de las columnas */
+    private static final int CAPACIDAD_INICIAL = 1024;
+    
     /** nombre de las mediciones */
     private final String name;
     
     /** la columna de la tabla con los tiempos */
-    private List<Double> tiempo;
+    private volatile double[] tiempo;
+    
+    /** Las columnas con las componentes de los datos de las mediciones,
+     * indexadas como datos[columna][fila] */
+    private volatile double[][] datos;
     
-    /** Las componentes de los datos de una medicion */
-    private List<double[]> datos;
-
     /** Numero de componentes necesarias para una medicion */
     private final int numDatos;
-
+    
+    /** Numero de filas de la tabla que ya se han terminado de escribir */
+    private volatile int numRows;
+    
+    /** Las piramides con los extremos de cada columna, null las de las
+     * columnas de las que todavia no se han consultado los extremos */
+    private final PiramideExtremos[] piramides;
+    
+    /** Los niveles de detalle de cada columna, null los de las columnas que
+     * todavia no se han mostrado */
+    private final NivelesDetalle[] niveles;
+    
     /** Construye un nuevo objeto Datos
      * 
      * @param name el nombre de los datos
      * @param numDatos la longitud de los datos */
     public DatosSensores(String name, int numDatos) {
-
+        this(name, numDatos, CAPACIDAD_INICIAL);
+    }
+    
+    /** Construye un nuevo objeto Datos con la capacidad inicial dada, que
+     * pueden poner a 0 las subclases que no guardan las filas en las
+     * columnas de esta clase
+     * 
+     * @param name el nombre de los datos
+     * @param numDatos la longitud de los datos
+     * @param capacidad el numero de filas que caben inicialmente */
+    protected DatosSensores(String name, int numDatos, int capacidad) {
+        
         this.name = name;
         this.numDatos = numDatos;
-        tiempo = new ArrayList<>();
-        datos = new ArrayList<>();
+        tiempo = new double[capacidad];
+        datos = new double[numDatos][capacidad];
+        numRows = 0;
+        piramides = new PiramideExtremos[numDatos];
+        niveles = new NivelesDetalle[numDatos];
+    }
+    
+    /** Construye una copia de los datos dados
+     * 
+     * @param origen los datos que queremos copiar */
+    public DatosSensores(DatosSensores origen) {
+        this(origen, origen.getNumRows());
+    }
+    
+    /** Construye una copia de las primeras filas de los datos dados
+     * 
+     * @param origen los datos que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar */
+    public DatosSensores(DatosSensores origen, int numFilas) {
+        this(origen.getName(), origen.getNumDatos());
+        
+        DatosSensores instantanea = origen.getInstantanea();
+        numFilas = Math.min(numFilas, instantanea.getNumRows());
+        
+        reserva(numFilas);
+        instantanea.getTiempos(0, numFilas, tiempo);
+        for (int j = 0; j < numDatos; j++) {
+            instantanea.getDatos(j, 0, numFilas, datos[j]);
+        }
+        numRows = numFilas;
     }
     
     /** @return el numero de componentes que tiene una medicion
@@ -46,64 +108,307 @@ public class DatosSensores {
     
     /** @return el numero de filas que tiene la tabla  */
     public int getNumRows() {
-        return tiempo.size();
+        return numRows;
     }
     
     /** @return the name */
     public String getName() {
         return name;
     }
-
+    
     /** Introduce una nueva fila de datos en la tabla Datos Sensores
      * 
      * @param tiempo los datos de tipo tiempo que queremos introducir
      * @param datos los datos de que queremos introducir como datos en la
      *      tabla */
-    public void addDatos(double tiempo, double[] datos) {
-     
+    public synchronized void addDatos(double tiempo, double[] datos) {
+        
         assert datos.length == numDatos :
             "la longitud de los datos no coinciden con la de los datos de la tabla";
         
-        this.tiempo.add(tiempo);
-        this.datos.add(datos);
-    }    
+        int fila = numRows;
+        reserva(fila + 1);
+        
+        this.tiempo[fila] = tiempo;
+        for (int j = 0; j < numDatos; j++) {
+            this.datos[j][fila] = datos[j];
+        }
+        
+        numRows = fila + 1;
+    }
+    
+    /** Introduce varias filas nuevas de datos en la tabla Datos Sensores
+     * 
+     * @param tiempos los datos de tipo tiempo de cada fila que queremos
+     *      introducir
+     * @param datos las columnas con los datos que queremos introducir como
+     *      datos en la tabla, indexadas como datos[columna][fila]
+     * @param numFilas el numero de filas de los arrays dados que queremos
+     *      introducir */
+    public synchronized void addDatos(double[] tiempos, double[][] datos, int numFilas) {
+        
+        assert datos.length == numDatos :
+            "la longitud de los datos no coinciden con la de los datos de la tabla";
+        
+        int fila = numRows;
+        reserva(fila + numFilas);
+        
+        System.arraycopy(tiempos, 0, this.tiempo, fila, numFilas);
+        for (int j = 0; j < numDatos; j++) {
+            System.arraycopy(datos[j], 0, this.datos[j], fila, numFilas);
+        }
+        
+        numRows = fila + numFilas;
+    }
     
     /** Devuelve el tiempo de la fila dada
      * 
      * @param fila la posicion de la fila en la tabla
      * @return el tiempo de la tabla de la fila dada  */
-    public Double getTiempo(int fila) {
+    public double getTiempo(int fila) {
         
-        assert fila >= 0 && fila < tiempo.size() :
+        assert fila >= 0 && fila < numRows :
             "No se puede acceder a la fila '" + fila + '\'';
         
-        return tiempo.get(fila);
+        return tiempo[fila];
+    }
+    
+    /** Copia los tiempos de las filas dadas al array dado
+     * 
+     * @param fila la posicion de la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los tiempos, empezando por su
+     *      primera posicion */
+    public void getTiempos(int fila, int numFilas, double[] destino) {
+        
+        assert fila >= 0 && numFilas >= 0 && fila + numFilas <= numRows :
+            "No se puede acceder a las filas [" + fila + ", " + (fila + numFilas) + ')';
+        
+        System.arraycopy(tiempo, fila, destino, 0, numFilas);
+    }
+    
+    /** Busca mediante una busqueda binaria la primera fila cuyo tiempo es
+     * mayor o igual que el tiempo dado, ya que los tiempos de las filas son
+     * crecientes
+     * 
+     * @param tiempo el tiempo a buscar
+     * @return la posicion de la fila, el numero de filas si todas tienen un
+     *      tiempo menor */
+    public int buscaFila(double tiempo) {
+        return buscaFila(tiempo, 0, getNumRows());
+    }
+    
+    /** Busca mediante una busqueda binaria la primera fila del rango dado
+     * cuyo tiempo es mayor o igual que el tiempo dado
+     * 
+     * @param tiempo el tiempo a buscar
+     * @param inicio la posicion de la primera fila del rango
+     * @param fin la posicion siguiente a la ultima fila del rango
+     * @return la posicion de la fila, fin si todas las filas del rango tienen
+     *      un tiempo menor */
+    public int buscaFila(double tiempo, int inicio, int fin) {
+        
+        assert inicio >= 0 && inicio <= fin && fin <= getNumRows() :
+            "No se puede acceder a las filas [" + inicio + ", " + fin + ')';
+        
+        while (inicio < fin) {
+            int medio = (inicio + fin) >>> 1;
+            if (getTiempo(medio) < tiempo) {
+                inicio = medio + 1;
+            } else {
+                fin = medio;
+            }
+        }
+        
+        return inicio;
     }
     
     /**  Almacena el tiempo dado en la posicion del indice
      * 
      * @param fila el indice de la fila donde queremos cambiar el tiempo
      * @param tiempo el nuevo tiempo a guardar */
-    public void setTiempo(int fila, Double tiempo) {
-        assert fila >= 0 && fila < this.tiempo.size() :
+    public synchronized void setTiempo(int fila, double tiempo) {
+        assert fila >= 0 && fila < numRows :
             "No se puede acceder a la fila '" + fila + '\'';
         
-        this.tiempo.set(fila, tiempo);
+        this.tiempo[fila] = tiempo;
     }
-
+    
+    /** Devuelve unos datos con las filas actuales que se pueden consultar de
+     * forma coherente aunque se sigan añadiendo filas desde otro hilo.
+     * <br>Como las filas solo se añaden al final de la tabla, las filas
+     * existentes nunca cambian y se devuelve la propia tabla
+     * 
+     * @return los datos a consultar */
+    public DatosSensores getInstantanea() {
+        return this;
+    }
+    
+    /** Devuelve unos datos con las filas actuales de la ventana de tiempo
+     * dada que se pueden consultar de forma coherente aunque se sigan
+     * añadiendo filas desde otro hilo.
+     * <br>Por defecto se devuelve getInstantanea, por lo que los datos pueden
+     * tener tambien las filas anteriores a la ventana
+     * 
+     * @param ventanaTiempo el tiempo hasta la ultima fila de las filas que
+     *      se quieren consultar, 0 si se quieren consultar todas las filas
+     * @return los datos a consultar, con al menos las filas de la ventana, y
+     *      como minimo las dos ultimas filas */
+    public DatosSensores getInstantanea(double ventanaTiempo) {
+        return getInstantanea();
+    }
+    
+    /** @param columna el indice de la columna
+     * @return true si los valores de la columna dada estan disponibles, false
+     *      si todavia se han de cargar mediante cargaColumna */
+    public boolean isColumnaCargada(int columna) {
+        return true;
+    }
+    
+    /** Se asegura de que los valores de la columna dada estan disponibles,
+     * de forma que se puedan consultar sin tener que esperar a leerlos.
+     * <br>Por defecto todas las columnas estan siempre disponibles. Si no lo
+     * estan la carga puede tardar, por lo que no se ha de llamar desde el
+     * hilo de eventos de Swing
+     * 
+     * @param columna el indice de la columna que queremos consultar
+     * @throws IOException si no se puede leer la columna
+     * @throws DatosFormatException si la columna tiene un formato incorrecto */
+    public void cargaColumna(int columna) throws IOException, DatosFormatException {
+    }
+    
     /** Devuelve el valor del dato situado en la columna y fila dada de la tabla
      * 
      * @param columna el indice de la columna del datos que queremos
      * @param fila el indice de la fila del datos que queremos
      * @return el dato situados en la columna y fila dada */
-    public Double getDatos(int columna, int fila) {
+    public double getDatos(int columna, int fila) {
         
         assert columna >= 0 && columna < numDatos :
             "No se pueden obtener los datos de la columna '" + columna + '\'';
-        assert fila >= 0 && fila < datos.size() :
+        assert fila >= 0 && fila < numRows :
             "No se pueden obtener los datos de la fila '" + fila + '\'';
         
-        return datos.get(fila)[columna];
+        return datos[columna][fila];
+    }
+    
+    /** Copia los valores de la columna dada de las filas dadas al array dado
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @param fila la posicion de la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los valores, empezando por su
+     *      primera posicion */
+    public void getDatos(int columna, int fila, int numFilas, double[] destino) {
+        
+        assert columna >= 0 && columna < numDatos :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        assert fila >= 0 && numFilas >= 0 && fila + numFilas <= numRows :
+            "No se pueden obtener los datos de las filas [" + fila + ", " + (fila + numFilas) + ')';
+        
+        System.arraycopy(datos[columna], fila, destino, 0, numFilas);
+    }
+    
+    /** Calcula el valor minimo y maximo de la columna dada en las filas dadas,
+     * ignorando los valores NaN
+     * <br>Los extremos se obtienen de una piramide con los extremos de la
+     * columna a varias resoluciones, por lo que el coste es logaritmico
+     * respecto al numero de filas. La piramide se crea la primera vez que se
+     * consultan los extremos de la columna y se calcula en segundo plano
+     * segun se consultan las nuevas filas, recorriendo mientras tanto las
+     * filas que todavia no resume
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @param fila la posicion de la primera fila
+     * @param numFilas el numero de filas
+     * @param extremos el array donde se guardaran el minimo y el maximo en
+     *      ese orden. Si no hay ningun valor seran +infinito y -infinito */
+    public void getExtremos(int columna, int fila, int numFilas, double[] extremos) {
+        
+        assert columna >= 0 && columna < numDatos :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        assert fila >= 0 && numFilas >= 0 && fila + numFilas <= getNumRows() :
+            "No se pueden obtener los datos de las filas [" + fila + ", " + (fila + numFilas) + ')';
+        
+        PiramideExtremos piramide;
+        synchronized (piramides) {
+            piramide = piramides[columna];
+            if (piramide == null) {
+                piramide = new PiramideExtremos(this, columna);
+                piramides[columna] = piramide;
+            }
+        }
+        
+        piramide.getExtremos(fila, numFilas, extremos);
+    }
+    
+    /** Devuelve los niveles de detalle de la columna dada, con los que se
+     * pueden mostrar zonas grandes de los datos sin recorrer todas sus filas.
+     * Los niveles se crean la primera vez que se consultan
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @return los niveles de detalle de la columna, null si no se pueden
+     *      mantener con estos datos */
+    public NivelesDetalle getNivelesDetalle(int columna) {
+        
+        assert columna >= 0 && columna < numDatos :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        
+        synchronized (niveles) {
+            if (niveles[columna] == null) {
+                niveles[columna] = new NivelesDetalle(this, columna);
+            }
+            return niveles[columna];
+        }
+    }
+    
+    /** Calcula el valor minimo y maximo de la columna dada en las filas dadas
+     * recorriendo todas ellas, ignorando los valores NaN
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @param fila la posicion de la primera fila
+     * @param numFilas el numero de filas
+     * @param extremos el array donde se guardaran el minimo y el maximo en
+     *      ese orden. Si no hay ningun valor seran +infinito y -infinito */
+    protected void calculaExtremos(int columna, int fila, int numFilas, double[] extremos) {
+        
+        double minimo = Double.POSITIVE_INFINITY, maximo = Double.NEGATIVE_INFINITY;
+        
+        // Recorremos las filas por trozos mediante getDatos para que sirva
+        // para cualquier forma de guardar los datos
+        double[] valores = new double[Math.min(numFilas, CAPACIDAD_INICIAL)];
+        for (int i = 0; i < numFilas; i += valores.length) {
+            int n = Math.min(valores.length, numFilas - i);
+            getDatos(columna, fila + i, n, valores);
+            for (int k = 0; k < n; k++) {
+                if (valores[k] < minimo) { minimo = valores[k]; }
+                if (valores[k] > maximo) { maximo = valores[k]; }
+            }
+        }
+        
+        extremos[0] = minimo;
+        extremos[1] = maximo;
+    }
+
+// Funciones privadas
+    /** Hace crecer las columnas si no caben el numero de filas dado.
+     * <br>Las nuevas columnas se publican con todas las filas existentes ya
+     * copiadas, de forma que los hilos que consultan los datos siempre
+     * encuentran las filas escritas en las columnas que ven
+     * 
+     * @param capacidad el numero de filas que han de caber en las columnas */
+    private void reserva(int capacidad) {
+        
+        if (capacidad <= tiempo.length) { return; }
+        
+        int nuevaCapacidad = Math.max(capacidad, 2 * tiempo.length);
+        
+        double[][] nuevosDatos = new double[numDatos][];
+        for (int j = 0; j < numDatos; j++) {
+            nuevosDatos[j] = Arrays.copyOf(datos[j], nuevaCapacidad);
+        }
+        datos = nuevosDatos;
+        tiempo = Arrays.copyOf(tiempo, nuevaCapacidad);
     }
     
 }
@@ -0,0 +1,452 @@
+package visualizacionwearables.modelo.utils;
+
+/**
+ * Clase DatosSensoresCirculares, almacena las ultimas filas recibidas de unos
+ * sensores en un buffer circular de capacidad fija, de forma que la memoria
+ * empleada no crece por mucho tiempo que se esten recibiendo datos.
+ * <br>Las filas se añaden desde un unico hilo sin bloquear nunca a los hilos
+ * que consultan los datos. Como al añadir filas se sobreescriben las mas
+ * antiguas, los indices de las filas cambian segun llegan datos, por lo que
+ * para consultar varias filas de forma coherente hay que emplear
+ * getInstantanea.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class DatosSensoresCirculares extends DatosSensores {
+    
+    /** El numero maximo de filas que se guardan */
+    private final int mCapacidad;
+    
+    /** La columna con los tiempos, indexada por la posicion en el buffer */
+    private final double[] mTiempos;
+    
+    /** Las columnas con los datos, indexadas como [columna][posicion] */
+    private final double[][] mColumnas;
+    
+    /** El numero de filas añadidas desde el principio que ya se han terminado
+     * de escribir */
+    private volatile long mNumEscritas;
+    
+    /** El numero de filas añadidas desde el principio contando las que se
+     * estan escribiendo */
+    private volatile long mNumReservadas;
+    
+    
+    /** Construye un nuevo objeto DatosSensoresCirculares
+     * 
+     * @param name el nombre de los datos
+     * @param numDatos la longitud de los datos
+     * @param capacidad el numero maximo de filas que se guardaran */
+    public DatosSensoresCirculares(String name, int numDatos, int capacidad) {
+        super(name, numDatos, 0);
+        
+        assert capacidad > 0 : "La capacidad ha de ser mayor que 0";
+        
+        mCapacidad = capacidad;
+        mTiempos = new double[capacidad];
+        mColumnas = new double[numDatos][capacidad];
+        mNumEscritas = 0;
+        mNumReservadas = 0;
+    }
+    
+    /** @return el numero maximo de filas que se guardan */
+    public int getCapacidad() {
+        return mCapacidad;
+    }
+    
+    /** @return el numero de filas añadidas desde el principio, incluidas las
+     *      que ya se han descartado */
+    public long getNumFilasTotales() {
+        return mNumEscritas;
+    }
+    
+    /** @return el numero de filas que tiene actualmente la tabla */
+    @Override
+    public int getNumRows() {
+        return (int) Math.min(mNumEscritas, mCapacidad);
+    }
+    
+    /** Introduce una nueva fila de datos, descartando la mas antigua si ya no
+     * cabe. Solo se pueden añadir filas desde un unico hilo
+     * 
+     * @param tiempo los datos de tipo tiempo que queremos introducir
+     * @param datos los datos de que queremos introducir como datos en la
+     *      tabla */
+    @Override
+    public void addDatos(double tiempo, double[] datos) {
+        
+        assert datos.length == getNumDatos() :
+            "la longitud de los datos no coinciden con la de los datos de la tabla";
+        
+        long numEscritas = mNumEscritas;
+        mNumReservadas = numEscritas + 1;
+        
+        int posicion = (int) (numEscritas % mCapacidad);
+        mTiempos[posicion] = tiempo;
+        for (int j = 0; j < mColumnas.length; j++) {
+            mColumnas[j][posicion] = datos[j];
+        }
+        
+        mNumEscritas = numEscritas + 1;
+    }
+    
+    /** Introduce varias filas nuevas de datos, descartando las mas antiguas
+     * si ya no caben. Solo se pueden añadir filas desde un unico hilo
+     * 
+     * @param tiempos los datos de tipo tiempo de cada fila que queremos
+     *      introducir
+     * @param datos las columnas con los datos que queremos introducir como
+     *      datos en la tabla, indexadas como datos[columna][fila]
+     * @param numFilas el numero de filas de los arrays dados que queremos
+     *      introducir */
+    @Override
+    public void addDatos(double[] tiempos, double[][] datos, int numFilas) {
+        
+        assert datos.length == getNumDatos() :
+            "la longitud de los datos no coinciden con la de los datos de la tabla";
+        
+        // Avisamos a los lectores de las filas que vamos a sobreescribir
+        // antes de escribirlas
+        long numEscritas = mNumEscritas;
+        mNumReservadas = numEscritas + numFilas;
+        
+        // Si hay mas filas que capacidad solo copiamos las ultimas
+        int primera = Math.max(0, numFilas - mCapacidad);
+        long destino = numEscritas + primera;
+        while (primera < numFilas) {
+            int posicion = (int) (destino % mCapacidad),
+                n = Math.min(numFilas - primera, mCapacidad - posicion);
+            
+            System.arraycopy(tiempos, primera, mTiempos, posicion, n);
+            for (int j = 0; j < mColumnas.length; j++) {
+                System.arraycopy(datos[j], primera, mColumnas[j], posicion, n);
+            }
+            
+            primera += n;
+            destino += n;
+        }
+        
+        mNumEscritas = numEscritas + numFilas;
+    }
+    
+    /** Devuelve el tiempo de la fila dada, siendo la fila 0 la mas antigua de
+     * las que hay actualmente en la tabla
+     * 
+     * @param fila la posicion de la fila en la tabla
+     * @return el tiempo de la tabla de la fila dada  */
+    @Override
+    public double getTiempo(int fila) {
+        return mTiempos[getPosicion(fila)];
+    }
+    
+    /** Copia los tiempos de las filas dadas al array dado, siendo la fila 0
+     * la mas antigua de las que hay actualmente en la tabla
+     * 
+     * @param fila la posicion de la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los tiempos, empezando por su
+     *      primera posicion */
+    @Override
+    public void getTiempos(int fila, int numFilas, double[] destino) {
+        copia(mTiempos, getInicio(mNumEscritas) + fila, destino, numFilas);
+    }
+    
+    /** Los tiempos de las filas recibidas no se pueden modificar
+     * 
+     * @param fila el indice de la fila donde queremos cambiar el tiempo
+     * @param tiempo el nuevo tiempo a guardar */
+    @Override
+    public void setTiempo(int fila, double tiempo) {
+        throw new UnsupportedOperationException(
+            "No se pueden modificar los tiempos de las filas recibidas"
+        );
+    }
+    
+    /** Devuelve el valor del dato situado en la columna y fila dada de la
+     * tabla, siendo la fila 0 la mas antigua de las que hay actualmente en la
+     * tabla
+     * 
+     * @param columna el indice de la columna del datos que queremos
+     * @param fila el indice de la fila del datos que queremos
+     * @return el dato situados en la columna y fila dada */
+    @Override
+    public double getDatos(int columna, int fila) {
+        
+        assert columna >= 0 && columna < getNumDatos() :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        
+        return mColumnas[columna][getPosicion(fila)];
+    }
+    
+    /** Copia los valores de la columna dada de las filas dadas al array dado,
+     * siendo la fila 0 la mas antigua de las que hay actualmente en la tabla
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @param fila la posicion de la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los valores, empezando por su
+     *      primera posicion */
+    @Override
+    public void getDatos(int columna, int fila, int numFilas, double[] destino) {
+        
+        assert columna >= 0 && columna < getNumDatos() :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        
+        copia(mColumnas[columna], getInicio(mNumEscritas) + fila, destino, numFilas);
+    }
+    
+    /** Calcula el valor minimo y maximo de la columna dada en las filas dadas
+     * recorriendo todas ellas, ya que al descartar las filas mas antiguas
+     * cambia la posicion de todas las filas y no se puede mantener una
+     * piramide con sus extremos
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @param fila la posicion de la primera fila
+     * @param numFilas el numero de filas
+     * @param extremos el array donde se guardaran el minimo y el maximo en
+     *      ese orden. Si no hay ningun valor seran +infinito y -infinito */
+    @Override
+    public void getExtremos(int columna, int fila, int numFilas, double[] extremos) {
+        calculaExtremos(columna, fila, numFilas, extremos);
+    }
+    
+    /** Al descartar las filas mas antiguas cambia la posicion de todas las
+     * filas, por lo que no se pueden mantener niveles de detalle
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @return null */
+    @Override
+    public NivelesDetalle getNivelesDetalle(int columna) {
+        return null;
+    }
+    
+    /** Copia todas las filas que hay actualmente en el buffer
+     * 
+     * @return una copia de las filas actuales que no cambia al añadir nuevas
+     *      filas */
+    @Override
+    public DatosSensores getInstantanea() {
+        return getInstantanea(0);
+    }
+    
+    /** Copia las filas de la ventana de tiempo dada que hay actualmente en el
+     * buffer sin bloquear al hilo que añade las filas. Las filas que se
+     * sobreescriben mientras se estan copiando se descartan de la copia.
+     * <br>La primera fila de la ventana se busca mediante una busqueda binaria
+     * sobre las filas escritas, por lo que solo se copian las filas que se
+     * van a consultar
+     * 
+     * @param ventanaTiempo el tiempo hasta la ultima fila de las filas que
+     *      se quieren copiar, 0 si se quieren copiar todas las filas
+     * @return una copia de las filas que no cambia al añadir nuevas filas,
+     *      con las filas de la ventana y como minimo las dos ultimas filas */
+    @Override
+    public DatosSensores getInstantanea(double ventanaTiempo) {
+        
+        // Buscamos las filas escritas de la ventana contando desde el
+        // principio, ya que sus indices cambian segun se añaden filas
+        long fin = mNumEscritas,
+             inicio = getInicio(fin);
+        if ((ventanaTiempo > 0) && (fin - inicio > 2)) {
+            double limite = mTiempos[(int) ((fin - 1) % mCapacidad)] - ventanaTiempo;
+            long primera = inicio, ultima = fin - 2;
+            while (primera < ultima) {
+                long medio = (primera + ultima) >>> 1;
+                if (mTiempos[(int) (medio % mCapacidad)] < limite) {
+                    primera = medio + 1;
+                } else {
+                    ultima = medio;
+                }
+            }
+            inicio = primera;
+        }
+        
+        // Copiamos las filas
+        int numFilas = (int) (fin - inicio);
+        double[] tiempos = new double[numFilas];
+        double[][] columnas = new double[mColumnas.length][numFilas];
+        copia(mTiempos, inicio, tiempos, numFilas);
+        for (int j = 0; j < mColumnas.length; j++) {
+            copia(mColumnas[j], inicio, columnas[j], numFilas);
+        }
+        
+        // Descartamos las filas que se han podido sobreescribir mientras las
+        // copiabamos
+        long primeraValida = Math.max(inicio, mNumReservadas - mCapacidad);
+        int descartadas = (int) Math.min(numFilas, primeraValida - inicio);
+        
+        return new Instantanea(this, tiempos, columnas, descartadas, numFilas - descartadas);
+    }
+
+// Funciones privadas
+    /** Devuelve la posicion en el buffer de la fila dada
+     * 
+     * @param fila la posicion de la fila en la tabla, siendo la fila 0 la mas
+     *      antigua
+     * @return la posicion de la fila en el buffer */
+    private int getPosicion(int fila) {
+        long numEscritas = mNumEscritas,
+             inicio = getInicio(numEscritas);
+        
+        assert fila >= 0 && inicio + fila < numEscritas :
+            "No se puede acceder a la fila '" + fila + '\'';
+        
+        return (int) ((inicio + fila) % mCapacidad);
+    }
+    
+    /** Devuelve el numero de la fila mas antigua que hay en el buffer
+     * 
+     * @param numEscritas el numero de filas añadidas desde el principio
+     * @return el numero de la fila mas antigua contando desde el principio */
+    private long getInicio(long numEscritas) {
+        return Math.max(0, numEscritas - mCapacidad);
+    }
+    
+    /** Copia las filas dadas del buffer a un array
+     * 
+     * @param origen la columna del buffer de la que queremos copiar
+     * @param inicio el numero de la primera fila a copiar contando desde el
+     *      principio
+     * @param destino el array donde copiaremos las filas
+     * @param numFilas el numero de filas a copiar */
+    private void copia(double[] origen, long inicio, double[] destino, int numFilas) {
+        int posicion = (int) (inicio % mCapacidad),
+            n = Math.min(numFilas, mCapacidad - posicion);
+        
+        System.arraycopy(origen, posicion, destino, 0, n);
+        System.arraycopy(origen, 0, destino, n, numFilas - n);
+    }
+    
+    
+    /**
+     * Las filas copiadas del buffer por getInstantanea, que se consultan
+     * directamente desde los arrays de la copia y no se pueden modificar.
+     */
+    private static class Instantanea extends DatosSensores {
+        
+        /** Los tiempos de las filas copiadas */
+        private final double[] mTiempos;
+        
+        /** Las columnas de las filas copiadas, indexadas como
+         * [columna][posicion] */
+        private final double[][] mColumnas;
+        
+        /** La posicion en los arrays de la primera fila */
+        private final int mInicio;
+        
+        /** El numero de filas */
+        private final int mNumFilas;
+        
+        /** Construye una nueva Instantanea
+         * 
+         * @param datos los datos de los que se han copiado las filas
+         * @param tiempos los tiempos de las filas copiadas
+         * @param columnas las columnas de las filas copiadas
+         * @param inicio la posicion en los arrays de la primera fila
+         * @param numFilas el numero de filas */
+        Instantanea(DatosSensores datos, double[] tiempos, double[][] columnas,
+                int inicio, int numFilas) {
+            super(datos.getName(), datos.getNumDatos(), 0);
+            mTiempos = tiempos;
+            mColumnas = columnas;
+            mInicio = inicio;
+            mNumFilas = numFilas;
+        }
+        
+        @Override
+        public int getNumRows() {
+            return mNumFilas;
+        }
+        
+        /** Las instantaneas no se pueden modificar
+         * 
+         * @throws UnsupportedOperationException siempre */
+        @Override
+        public void addDatos(double tiempo, double[] datos) {
+            throw new UnsupportedOperationException("No se pueden modificar las instantaneas");
+        }
+        
+        /** Las instantaneas no se pueden modificar
+         * 
+         * @throws UnsupportedOperationException siempre */
+        @Override
+        public void addDatos(double[] tiempos, double[][] datos, int numFilas) {
+            throw new UnsupportedOperationException("No se pueden modificar las instantaneas");
+        }
+        
+        /** Las instantaneas no se pueden modificar
+         * 
+         * @throws UnsupportedOperationException siempre */
+        @Override
+        public void setTiempo(int fila, double tiempo) {
+            throw new UnsupportedOperationException("No se pueden modificar las instantaneas");
+        }
+        
+        @Override
+        public double getTiempo(int fila) {
+            
+            assert fila >= 0 && fila < mNumFilas :
+                "No se puede acceder a la fila '" + fila + '\'';
+            
+            return mTiempos[mInicio + fila];
+        }
+        
+        @Override
+        public void getTiempos(int fila, int numFilas, double[] destino) {
+            
+            assert fila >= 0 && numFilas >= 0 && fila + numFilas <= mNumFilas :
+                "No se puede acceder a las filas [" + fila + ", " + (fila + numFilas) + ')';
+            
+            System.arraycopy(mTiempos, mInicio + fila, destino, 0, numFilas);
+        }
+        
+        @Override
+        public double getDatos(int columna, int fila) {
+            
+            assert columna >= 0 && columna < getNumDatos() :
+                "No se pueden obtener los datos de la columna '" + columna + '\'';
+            assert fila >= 0 && fila < mNumFilas :
+                "No se pueden obtener los datos de la fila '" + fila + '\'';
+            
+            return mColumnas[columna][mInicio + fila];
+        }
+        
+        @Override
+        public void getDatos(int columna, int fila, int numFilas, double[] destino) {
+            
+            assert columna >= 0 && columna < getNumDatos() :
+                "No se pueden obtener los datos de la columna '" + columna + '\'';
+            assert fila >= 0 && numFilas >= 0 && fila + numFilas <= mNumFilas :
+                "No se pueden obtener los datos de las filas [" + fila + ", " + (fila + numFilas) + ')';
+            
+            System.arraycopy(mColumnas[columna], mInicio + fila, destino, 0, numFilas);
+        }
+        
+        /** Calcula los extremos recorriendo las filas, ya que cada instantanea
+         * solo se consulta mientras se dibuja el grafico
+         * 
+         * @param columna el indice de la columna de los datos que queremos
+         * @param fila la posicion de la primera fila
+         * @param numFilas el numero de filas
+         * @param extremos el array donde se guardaran el minimo y el maximo en
+         *      ese orden. Si no hay ningun valor seran +infinito y -infinito */
+        @Override
+        public void getExtremos(int columna, int fila, int numFilas, double[] extremos) {
+            calculaExtremos(columna, fila, numFilas, extremos);
+        }
+        
+        /** Las instantaneas solo se consultan mientras se dibuja el grafico,
+         * por lo que no compensa calcular sus niveles de detalle
+         * 
+         * @param columna el indice de la columna
+         * @return null */
+        @Override
+        public NivelesDetalle getNivelesDetalle(int columna) {
+            return null;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,480 @@
+package visualizacionwearables.modelo.utils;
+
+import java.util.Arrays;
+
+/**
+ * Clase DatosSensoresComprimidos, guarda los datos comprimidos en memoria para
+ * poder mantener abiertas muchas mas horas de mediciones.
+ * <br>Las filas se agrupan en bloques de tamaño fijo. Mientras se rellena, el
+ * ultimo bloque se guarda sin comprimir, y al completarse se comprime cada una
+ * de sus columnas mediante CodificadorGorilla y se guarda junto al minimo y
+ * al maximo de cada columna del bloque, de forma que al calcular los extremos
+ * de un rango de filas los bloques completos no se tienen que descomprimir.
+ * <br>Los bloques se descomprimen al consultarlos. Se guarda el ultimo bloque
+ * descomprimido de cada columna, por lo que las consultas secuenciales solo
+ * descomprimen cada bloque una vez.
+ * <br>Igual que en DatosSensores, se pueden seguir añadiendo filas desde un
+ * hilo mientras se consultan las ya añadidas desde otro, ya que los bloques
+ * nunca cambian una vez publicados.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class DatosSensoresComprimidos extends DatosSensores {
+    
+    /** El numero de filas de cada bloque */
+    public static final int FILAS_POR_BLOQUE = 1024;
+    
+    /** Bloque completo con sus columnas comprimidas */
+    private static class Bloque {
+        
+        /** Las columnas comprimidas, siendo la columna 0 la de los tiempos */
+        final long[][] mColumnas;
+        
+        /** Los valores minimo y maximo de cada columna del bloque */
+        final double[] mMinimos, mMaximos;
+        
+        Bloque(long[][] columnas, double[] minimos, double[] maximos) {
+            mColumnas = columnas;
+            mMinimos = minimos;
+            mMaximos = maximos;
+        }
+    }
+    
+    /** Bloque que todavia se esta rellenando, sin comprimir */
+    private static class BloqueAbierto {
+        
+        /** El indice del bloque */
+        final int mIndice;
+        
+        /** Las columnas del bloque, siendo la columna 0 la de los tiempos */
+        final double[][] mColumnas;
+        
+        BloqueAbierto(int indice, int numColumnas) {
+            mIndice = indice;
+            mColumnas = new double[numColumnas][FILAS_POR_BLOQUE];
+        }
+    }
+    
+    /** Columna de un bloque ya descomprimida */
+    private static class ColumnaDescomprimida {
+        
+        final int mBloque;
+        final double[] mValores;
+        
+        ColumnaDescomprimida(int bloque, double[] valores) {
+            mBloque = bloque;
+            mValores = valores;
+        }
+    }
+    
+    /** Los bloques completos. Solo contiene bloques validos hasta el indice
+     * del bloque abierto */
+    private volatile Bloque[] mBloques;
+    
+    /** El bloque que se esta rellenando. Al completarse se publica un nuevo
+     * bloque abierto en lugar de vaciarlo, ya que otros hilos pueden estar
+     * consultandolo */
+    private volatile BloqueAbierto mAbierto;
+    
+    /** Numero de filas de la tabla que ya se han terminado de escribir */
+    private volatile int mNumFilas;
+    
+    /** La ultima columna descomprimida de cada columna, siendo la columna 0
+     * la de los tiempos */
+    private final ColumnaDescomprimida[] mDescomprimidas;
+    
+    
+    /** Construye un nuevo objeto DatosSensoresComprimidos vacio
+     * 
+     * @param name el nombre de los datos
+     * @param numDatos la longitud de los datos */
+    public DatosSensoresComprimidos(String name, int numDatos) {
+        super(name, numDatos, 0);
+        
+        mBloques = new Bloque[16];
+        mAbierto = new BloqueAbierto(0, numDatos + 1);
+        mNumFilas = 0;
+        mDescomprimidas = new ColumnaDescomprimida[numDatos + 1];
+    }
+    
+    /** Construye una copia comprimida de los datos dados
+     * 
+     * @param origen los datos que queremos copiar */
+    public DatosSensoresComprimidos(DatosSensores origen) {
+        this(origen, origen.getNumRows());
+    }
+    
+    /** Construye una copia comprimida de las primeras filas de los datos
+     * dados
+     * 
+     * @param origen los datos que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar */
+    public DatosSensoresComprimidos(DatosSensores origen, int numFilas) {
+        this(origen.getName(), origen.getNumDatos());
+        
+        DatosSensores instantanea = origen.getInstantanea();
+        numFilas = Math.min(numFilas, instantanea.getNumRows());
+        int numDatos = getNumDatos();
+        
+        double[] tiempos = new double[FILAS_POR_BLOQUE];
+        double[][] datos = new double[numDatos][FILAS_POR_BLOQUE];
+        for (int fila = 0; fila < numFilas; fila += FILAS_POR_BLOQUE) {
+            int n = Math.min(FILAS_POR_BLOQUE, numFilas - fila);
+            instantanea.getTiempos(fila, n, tiempos);
+            for (int j = 0; j < numDatos; j++) {
+                instantanea.getDatos(j, fila, n, datos[j]);
+            }
+            addDatos(tiempos, datos, n);
+        }
+    }
+    
+    /** @return el numero de filas que tiene la tabla */
+    @Override
+    public int getNumRows() {
+        return mNumFilas;
+    }
+    
+    /** Introduce una nueva fila de datos en la tabla
+     * 
+     * @param tiempo los datos de tipo tiempo que queremos introducir
+     * @param datos los datos de que queremos introducir como datos en la
+     *      tabla */
+    @Override
+    public synchronized void addDatos(double tiempo, double[] datos) {
+        
+        assert datos.length == getNumDatos() :
+            "la longitud de los datos no coinciden con la de los datos de la tabla";
+        
+        BloqueAbierto abierto = mAbierto;
+        int fila = mNumFilas,
+            posicion = fila - abierto.mIndice * FILAS_POR_BLOQUE;
+        
+        abierto.mColumnas[0][posicion] = tiempo;
+        for (int j = 0; j < datos.length; j++) {
+            abierto.mColumnas[j + 1][posicion] = datos[j];
+        }
+        
+        mNumFilas = fila + 1;
+        if (posicion + 1 == FILAS_POR_BLOQUE) {
+            cierraBloque();
+        }
+    }
+    
+    /** Introduce varias filas nuevas de datos en la tabla
+     * 
+     * @param tiempos los datos de tipo tiempo de cada fila que queremos
+     *      introducir
+     * @param datos las columnas con los datos que queremos introducir como
+     *      datos en la tabla, indexadas como datos[columna][fila]
+     * @param numFilas el numero de filas de los arrays dados que queremos
+     *      introducir */
+    @Override
+    public synchronized void addDatos(double[] tiempos, double[][] datos, int numFilas) {
+        
+        assert datos.length == getNumDatos() :
+            "la longitud de los datos no coinciden con la de los datos de la tabla";
+        
+        int copiadas = 0;
+        while (copiadas < numFilas) {
+            BloqueAbierto abierto = mAbierto;
+            int fila = mNumFilas,
+                posicion = fila - abierto.mIndice * FILAS_POR_BLOQUE,
+                n = Math.min(numFilas - copiadas, FILAS_POR_BLOQUE - posicion);
+            
+            System.arraycopy(tiempos, copiadas, abierto.mColumnas[0], posicion, n);
+            for (int j = 0; j < datos.length; j++) {
+                System.arraycopy(datos[j], copiadas, abierto.mColumnas[j + 1], posicion, n);
+            }
+            
+            copiadas += n;
+            mNumFilas = fila + n;
+            if (posicion + n == FILAS_POR_BLOQUE) {
+                cierraBloque();
+            }
+        }
+    }
+    
+    /** Devuelve el tiempo de la fila dada
+     * 
+     * @param fila la posicion de la fila en la tabla
+     * @return el tiempo de la tabla de la fila dada  */
+    @Override
+    public double getTiempo(int fila) {
+        
+        assert fila >= 0 && fila < mNumFilas :
+            "No se puede acceder a la fila '" + fila + '\'';
+        
+        return get(0, fila);
+    }
+    
+    /** Copia los tiempos de las filas dadas al array dado
+     * 
+     * @param fila la posicion de la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los tiempos, empezando por su
+     *      primera posicion */
+    @Override
+    public void getTiempos(int fila, int numFilas, double[] destino) {
+        
+        assert fila >= 0 && numFilas >= 0 && fila + numFilas <= mNumFilas :
+            "No se puede acceder a las filas [" + fila + ", " + (fila + numFilas) + ')';
+        
+        copia(0, fila, numFilas, destino);
+    }
+    
+    /** Busca la primera fila del rango dado cuyo tiempo es mayor o igual que
+     * el tiempo dado. Primero se busca el bloque de la fila mediante los
+     * tiempos maximos de los bloques, de forma que solo se descomprime ese
+     * bloque
+     * 
+     * @param tiempo el tiempo a buscar
+     * @param inicio la posicion de la primera fila del rango
+     * @param fin la posicion siguiente a la ultima fila del rango
+     * @return la posicion de la fila, fin si todas las filas del rango tienen
+     *      un tiempo menor */
+    @Override
+    public int buscaFila(double tiempo, int inicio, int fin) {
+        
+        if (inicio >= fin) { return super.buscaFila(tiempo, inicio, fin); }
+        
+        // Buscamos el primer bloque completo del rango cuyo ultimo tiempo no
+        // es menor que el dado
+        Bloque[] bloques = mBloques;
+        int bloqueInicial = inicio / FILAS_POR_BLOQUE,
+            bloqueFinal = Math.min((fin - 1) / FILAS_POR_BLOQUE, mAbierto.mIndice - 1),
+            bloque = bloqueInicial, limite = bloqueFinal + 1;
+        while (bloque < limite) {
+            int medio = (bloque + limite) >>> 1;
+            if (bloques[medio].mMaximos[0] < tiempo) {
+                bloque = medio + 1;
+            } else {
+                limite = medio;
+            }
+        }
+        
+        // Si no hay ninguno la fila esta en el bloque abierto o no existe
+        int nuevoInicio = Math.min(fin, Math.max(inicio, bloque * FILAS_POR_BLOQUE)),
+            nuevoFin = (bloque <= bloqueFinal)?
+                Math.min(fin, (bloque + 1) * FILAS_POR_BLOQUE) : fin;
+        
+        return super.buscaFila(tiempo, nuevoInicio, nuevoFin);
+    }
+    
+    /** Los tiempos de los bloques comprimidos no se pueden modificar
+     * 
+     * @param fila el indice de la fila donde queremos cambiar el tiempo
+     * @param tiempo el nuevo tiempo a guardar */
+    @Override
+    public void setTiempo(int fila, double tiempo) {
+        throw new UnsupportedOperationException(
+            "No se pueden modificar los datos comprimidos"
+        );
+    }
+    
+    /** Devuelve el valor del dato situado en la columna y fila dada de la tabla
+     * 
+     * @param columna el indice de la columna del datos que queremos
+     * @param fila el indice de la fila del datos que queremos
+     * @return el dato situados en la columna y fila dada */
+    @Override
+    public double getDatos(int columna, int fila) {
+        
+        assert columna >= 0 && columna < getNumDatos() :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        assert fila >= 0 && fila < mNumFilas :
+            "No se pueden obtener los datos de la fila '" + fila + '\'';
+        
+        return get(columna + 1, fila);
+    }
+    
+    /** Copia los valores de la columna dada de las filas dadas al array dado
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @param fila la posicion de la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los valores, empezando por su
+     *      primera posicion */
+    @Override
+    public void getDatos(int columna, int fila, int numFilas, double[] destino) {
+        
+        assert columna >= 0 && columna < getNumDatos() :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        assert fila >= 0 && numFilas >= 0 && fila + numFilas <= mNumFilas :
+            "No se pueden obtener los datos de las filas [" + fila + ", " + (fila + numFilas) + ')';
+        
+        copia(columna + 1, fila, numFilas, destino);
+    }
+    
+    /** Calcula el valor minimo y maximo de la columna dada en las filas dadas
+     * recorriendo todas ellas, ignorando los valores NaN. Los bloques
+     * completos dentro del rango se resuelven con sus extremos guardados sin
+     * descomprimirlos
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @param fila la posicion de la primera fila
+     * @param numFilas el numero de filas
+     * @param extremos el array donde se guardaran el minimo y el maximo en
+     *      ese orden. Si no hay ningun valor seran +infinito y -infinito */
+    @Override
+    protected void calculaExtremos(int columna, int fila, int numFilas, double[] extremos) {
+        
+        assert columna >= 0 && columna < getNumDatos() :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        assert fila >= 0 && numFilas >= 0 && fila + numFilas <= mNumFilas :
+            "No se pueden obtener los datos de las filas [" + fila + ", " + (fila + numFilas) + ')';
+        
+        double minimo = Double.POSITIVE_INFINITY, maximo = Double.NEGATIVE_INFINITY;
+        
+        int fin = fila + numFilas;
+        while (fila < fin) {
+            int indice = fila / FILAS_POR_BLOQUE,
+                posicion = fila - indice * FILAS_POR_BLOQUE,
+                n = Math.min(fin - fila, FILAS_POR_BLOQUE - posicion);
+            
+            Bloque bloque = (n == FILAS_POR_BLOQUE)? getBloque(indice) : null;
+            if (bloque != null) {
+                if (bloque.mMinimos[columna + 1] < minimo) { minimo = bloque.mMinimos[columna + 1]; }
+                if (bloque.mMaximos[columna + 1] > maximo) { maximo = bloque.mMaximos[columna + 1]; }
+            } else {
+                double[] valores = getValores(columna + 1, indice);
+                for (int k = posicion; k < posicion + n; k++) {
+                    if (valores[k] < minimo) { minimo = valores[k]; }
+                    if (valores[k] > maximo) { maximo = valores[k]; }
+                }
+            }
+            
+            fila += n;
+        }
+        
+        extremos[0] = minimo;
+        extremos[1] = maximo;
+    }
+    
+    /** @return el numero aproximado de bytes que ocupan los datos en
+     *      memoria */
+    public long getTamComprimido() {
+        
+        BloqueAbierto abierto = mAbierto;
+        Bloque[] bloques = mBloques;
+        
+        long ret = 8L * abierto.mColumnas.length * FILAS_POR_BLOQUE;
+        for (int b = 0; b < abierto.mIndice; b++) {
+            for (long[] columna : bloques[b].mColumnas) {
+                ret += 8L * columna.length;
+            }
+            ret += 16L * bloques[b].mMinimos.length;
+        }
+        
+        return ret;
+    }
+
+// Funciones privadas
+    /** Comprime el bloque abierto, que ya esta completo, y abre el siguiente */
+    private void cierraBloque() {
+        
+        BloqueAbierto abierto = mAbierto;
+        int numColumnas = abierto.mColumnas.length;
+        
+        long[][] columnas = new long[numColumnas][];
+        double[] minimos = new double[numColumnas],
+                 maximos = new double[numColumnas];
+        for (int j = 0; j < numColumnas; j++) {
+            double[] valores = abierto.mColumnas[j];
+            columnas[j] = (j == 0)?
+                CodificadorGorilla.codificaTiempos(valores, FILAS_POR_BLOQUE) :
+                CodificadorGorilla.codificaValores(valores, FILAS_POR_BLOQUE);
+            
+            minimos[j] = Double.POSITIVE_INFINITY;
+            maximos[j] = Double.NEGATIVE_INFINITY;
+            for (double valor : valores) {
+                if (valor < minimos[j]) { minimos[j] = valor; }
+                if (valor > maximos[j]) { maximos[j] = valor; }
+            }
+        }
+        
+        // Publicamos el bloque comprimido antes que el nuevo bloque abierto,
+        // para que quien ya no vea el bloque abierto encuentre el comprimido
+        Bloque[] bloques = mBloques;
+        if (abierto.mIndice >= bloques.length) {
+            bloques = Arrays.copyOf(bloques, 2 * bloques.length);
+        }
+        bloques[abierto.mIndice] = new Bloque(columnas, minimos, maximos);
+        mBloques = bloques;
+        
+        mAbierto = new BloqueAbierto(abierto.mIndice + 1, numColumnas);
+    }
+    
+    /** Devuelve el bloque completo dado
+     * 
+     * @param indice el indice del bloque
+     * @return el bloque, null si todavia es el bloque abierto */
+    private Bloque getBloque(int indice) {
+        return (mAbierto.mIndice == indice)? null : mBloques[indice];
+    }
+    
+    /** Devuelve los valores sin comprimir de la columna dada del bloque dado,
+     * descomprimiendolos si es necesario
+     * 
+     * @param columna la columna, siendo 0 la de los tiempos
+     * @param indice el indice del bloque
+     * @return los valores de la columna del bloque */
+    private double[] getValores(int columna, int indice) {
+        
+        // El bloque abierto se lee antes que los completos, ya que solo deja
+        // de ser el abierto despues de publicarse comprimido
+        BloqueAbierto abierto = mAbierto;
+        if (abierto.mIndice == indice) {
+            return abierto.mColumnas[columna];
+        }
+        
+        ColumnaDescomprimida descomprimida = mDescomprimidas[columna];
+        if ((descomprimida != null) && (descomprimida.mBloque == indice)) {
+            return descomprimida.mValores;
+        }
+        
+        double[] valores = new double[FILAS_POR_BLOQUE];
+        long[] comprimidos = mBloques[indice].mColumnas[columna];
+        if (columna == 0) {
+            CodificadorGorilla.decodificaTiempos(comprimidos, valores, FILAS_POR_BLOQUE);
+        } else {
+            CodificadorGorilla.decodificaValores(comprimidos, valores, FILAS_POR_BLOQUE);
+        }
+        
+        mDescomprimidas[columna] = new ColumnaDescomprimida(indice, valores);
+        return valores;
+    }
+    
+    /** Devuelve el valor de la fila dada de la columna dada
+     * 
+     * @param columna la columna, siendo 0 la de los tiempos
+     * @param fila la fila del valor
+     * @return el valor de la fila */
+    private double get(int columna, int fila) {
+        int indice = fila / FILAS_POR_BLOQUE;
+        return getValores(columna, indice)[fila - indice * FILAS_POR_BLOQUE];
+    }
+    
+    /** Copia las filas dadas de la columna dada al array dado, recorriendo
+     * los bloques en los que estan las filas
+     * 
+     * @param columna la columna, siendo 0 la de los tiempos
+     * @param fila la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los valores */
+    private void copia(int columna, int fila, int numFilas, double[] destino) {
+        
+        int copiadas = 0;
+        while (copiadas < numFilas) {
+            int actual = fila + copiadas,
+                indice = actual / FILAS_POR_BLOQUE,
+                posicion = actual - indice * FILAS_POR_BLOQUE,
+                n = Math.min(numFilas - copiadas, FILAS_POR_BLOQUE - posicion);
+            
+            System.arraycopy(getValores(columna, indice), posicion, destino, copiadas, n);
+            copiadas += n;
+        }
+    }
+    
+}
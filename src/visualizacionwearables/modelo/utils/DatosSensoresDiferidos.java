@@ -0,0 +1,211 @@
+package visualizacionwearables.modelo.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException;
+
+/**
+ * Clase DatosSensoresDiferidos, guarda los datos de un archivo csv del que al
+ * leerlo solo se han traducido los tiempos de las filas. Cada columna de datos
+ * se traduce desde el archivo mediante cargaColumna y se guarda para las
+ * siguientes consultas, de forma que si solo se consulta una de las columnas
+ * ni se espera a traducir ni se guardan en memoria las demas.
+ * <br>Para traducir las columnas se emplea el indice de bloques de lineas
+ * calculado al leer el archivo, de forma que los bloques se traducen en
+ * paralelo y cada uno sabe en que fila empieza.
+ * <br>Los datos no se pueden modificar, por lo que se pueden consultar desde
+ * cualquier hilo.
+ * 
+ * @note los valores de las columnas que todavia no se han traducido son NaN.
+ * Como traducir una columna recorre todo el archivo, cargaColumna no se ha de
+ * llamar desde el hilo de eventos de Swing. Si la columna tiene un formato
+ * incorrecto se queda sin traducir, por lo que se puede volver a intentar
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class DatosSensoresDiferidos extends DatosSensores {
+    
+    /** El archivo del que se traducen las columnas */
+    private final File mArchivo;
+    
+    /** Las posiciones de inicio de cada bloque de lineas del archivo seguidas
+     * de la posicion final del ultimo bloque */
+    private final long[] mLimites;
+    
+    /** La primera fila de cada bloque de lineas seguida del numero total de
+     * filas */
+    private final int[] mFilas;
+    
+    /** Los tiempos absolutos de las filas */
+    private final double[] mTiempos;
+    
+    /** Las columnas de datos, null las que todavia no se han traducido. Al
+     * traducir una columna se publica una copia del array con la columna */
+    private volatile double[][] mColumnas;
+    
+    
+    /** Construye un nuevo objeto DatosSensoresDiferidos
+     * 
+     * @param name el nombre de los datos
+     * @param numDatos la longitud de los datos
+     * @param archivo el archivo del que se traduciran las columnas
+     * @param limites las posiciones de inicio de cada bloque de lineas del
+     *      archivo seguidas de la posicion final del ultimo bloque
+     * @param filas la primera fila de cada bloque seguida del numero total de
+     *      filas
+     * @param tiempos los tiempos absolutos de todas las filas */
+    DatosSensoresDiferidos(String name, int numDatos, File archivo,
+            long[] limites, int[] filas, double[] tiempos) {
+        super(name, numDatos, 0);
+        
+        mArchivo = archivo;
+        mLimites = limites;
+        mFilas = filas;
+        mTiempos = tiempos;
+        mColumnas = new double[numDatos][];
+    }
+    
+    /** @return el numero de filas que tiene la tabla */
+    @Override
+    public int getNumRows() {
+        return mTiempos.length;
+    }
+    
+    /** Los datos diferidos no se pueden modificar
+     * 
+     * @param tiempo los datos de tipo tiempo que queremos introducir
+     * @param datos los datos de que queremos introducir como datos en la
+     *      tabla */
+    @Override
+    public void addDatos(double tiempo, double[] datos) {
+        throw new UnsupportedOperationException(
+            "No se pueden modificar los datos diferidos de un archivo"
+        );
+    }
+    
+    /** Los datos diferidos no se pueden modificar
+     * 
+     * @param tiempos los datos de tipo tiempo de cada fila que queremos
+     *      introducir
+     * @param datos las columnas con los datos que queremos introducir
+     * @param numFilas el numero de filas que queremos introducir */
+    @Override
+    public void addDatos(double[] tiempos, double[][] datos, int numFilas) {
+        throw new UnsupportedOperationException(
+            "No se pueden modificar los datos diferidos de un archivo"
+        );
+    }
+    
+    /** Devuelve el tiempo de la fila dada
+     * 
+     * @param fila la posicion de la fila en la tabla
+     * @return el tiempo de la tabla de la fila dada  */
+    @Override
+    public double getTiempo(int fila) {
+        return mTiempos[fila];
+    }
+    
+    /** Copia los tiempos de las filas dadas al array dado
+     * 
+     * @param fila la posicion de la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los tiempos, empezando por su
+     *      primera posicion */
+    @Override
+    public void getTiempos(int fila, int numFilas, double[] destino) {
+        System.arraycopy(mTiempos, fila, destino, 0, numFilas);
+    }
+    
+    /** Los datos diferidos no se pueden modificar
+     * 
+     * @param fila el indice de la fila donde queremos cambiar el tiempo
+     * @param tiempo el nuevo tiempo a guardar */
+    @Override
+    public void setTiempo(int fila, double tiempo) {
+        throw new UnsupportedOperationException(
+            "No se pueden modificar los datos diferidos de un archivo"
+        );
+    }
+    
+    /** @param columna el indice de la columna
+     * @return true si la columna dada ya se ha traducido, false en caso
+     *      contrario */
+    @Override
+    public boolean isColumnaCargada(int columna) {
+        return mColumnas[columna] != null;
+    }
+    
+    /** Traduce la columna dada desde el archivo si todavia no se ha hecho
+     * 
+     * @param columna el indice de la columna que queremos consultar
+     * @throws IOException si no se puede leer el archivo
+     * @throws DatosFormatException si la columna tiene un formato incorrecto */
+    @Override
+    public synchronized void cargaColumna(int columna)
+            throws IOException, DatosFormatException {
+        
+        assert columna >= 0 && columna < getNumDatos() :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        
+        if (mColumnas[columna] != null) { return; }
+        
+        double[] valores = new double[mTiempos.length];
+        LectorCSVParalelo.traduceColumna(mArchivo, mLimites, mFilas, columna + 1, valores);
+        publica(columna, valores);
+    }
+    
+    /** Devuelve el valor del dato situado en la columna y fila dada de la
+     * tabla, NaN si la columna todavia no se ha traducido
+     * 
+     * @param columna el indice de la columna del datos que queremos
+     * @param fila el indice de la fila del datos que queremos
+     * @return el dato situados en la columna y fila dada */
+    @Override
+    public double getDatos(int columna, int fila) {
+        double[] valores = getColumna(columna);
+        return (valores != null)? valores[fila] : Double.NaN;
+    }
+    
+    /** Copia los valores de la columna dada de las filas dadas al array dado,
+     * o NaN si la columna todavia no se ha traducido
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @param fila la posicion de la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los valores, empezando por su
+     *      primera posicion */
+    @Override
+    public void getDatos(int columna, int fila, int numFilas, double[] destino) {
+        double[] valores = getColumna(columna);
+        if (valores != null) {
+            System.arraycopy(valores, fila, destino, 0, numFilas);
+        } else {
+            Arrays.fill(destino, 0, numFilas, Double.NaN);
+        }
+    }
+
+// Funciones privadas
+    /** @param columna el indice de la columna
+     * @return los valores de la columna dada, null si todavia no se ha
+     *      traducido */
+    private double[] getColumna(int columna) {
+        
+        assert columna >= 0 && columna < getNumDatos() :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+                
+        return mColumnas[columna];
+    }
+    
+    /** Publica la columna traducida dada para el resto de hilos
+     * 
+     * @param columna el indice de la columna
+     * @param valores los valores de la columna */
+    private void publica(int columna, double[] valores) {
+        double[][] columnas = mColumnas.clone();
+        columnas[columna] = valores;
+        mColumnas = columnas;
+    }
+    
+}
@@ -0,0 +1,223 @@
+package visualizacionwearables.modelo.utils;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Clase DatosSensoresMapeados, permite consultar los datos guardados en un
+ * archivo de cache binaria sin cargarlos en memoria.
+ * <br>Las columnas del archivo se proyectan en memoria (memory-mapped) por
+ * segmentos, de forma que es el sistema operativo el que lee del disco las
+ * partes del archivo que se consultan y las descarta cuando necesita la
+ * memoria. Asi se pueden consultar archivos mucho mas grandes que el heap de
+ * la maquina virtual sin que crezcan las pausas del recolector de basura.
+ * <br>Los datos no se pueden modificar, por lo que se pueden consultar desde
+ * cualquier hilo.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class DatosSensoresMapeados extends DatosSensores {
+    
+    /** El logaritmo en base 2 del numero de filas de cada segmento */
+    private static final int BITS_SEGMENTO = 24;
+    
+    /** El numero de filas de cada segmento proyectado en memoria */
+    private static final int FILAS_POR_SEGMENTO = 1 << BITS_SEGMENTO;
+    
+    /** Los segmentos de las columnas proyectados en memoria, indexados como
+     * [columna][segmento], siendo la columna 0 la de los tiempos */
+    private final DoubleBuffer[][] mSegmentos;
+    
+    /** El numero de filas de la tabla */
+    private final int mNumFilas;
+    
+    
+    /** Construye un nuevo objeto DatosSensoresMapeados a partir de las
+     * columnas guardadas en el archivo dado
+     * 
+     * @param name el nombre de los datos
+     * @param numDatos la longitud de los datos
+     * @param canal el canal del archivo con las columnas. El canal se puede
+     *      cerrar despues de crear los datos
+     * @param posicion la posicion del archivo donde comienza la columna de los
+     *      tiempos, seguida por las columnas de los datos
+     * @param numFilas el numero de filas de las columnas
+     * @param orden el orden de los bytes de los valores del archivo
+     * @throws IOException si no se puede proyectar el archivo */
+    public DatosSensoresMapeados(String name, int numDatos, FileChannel canal,
+            long posicion, int numFilas, ByteOrder orden) throws IOException {
+        super(name, numDatos, 0);
+        
+        mNumFilas = numFilas;
+        
+        int numSegmentos = (numFilas + FILAS_POR_SEGMENTO - 1) / FILAS_POR_SEGMENTO;
+        mSegmentos = new DoubleBuffer[numDatos + 1][numSegmentos];
+        for (int j = 0; j <= numDatos; j++) {
+            for (int s = 0; s < numSegmentos; s++) {
+                long fila = (long) s * FILAS_POR_SEGMENTO;
+                int numFilasSegmento = (int) Math.min(FILAS_POR_SEGMENTO, numFilas - fila);
+                
+                mSegmentos[j][s] = canal.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    posicion + 8 * ((long) j * numFilas + fila),
+                    8L * numFilasSegmento
+                ).order(orden).asDoubleBuffer();
+            }
+        }
+    }
+    
+    /** @return el numero de filas que tiene la tabla */
+    @Override
+    public int getNumRows() {
+        return mNumFilas;
+    }
+    
+    /** Los datos proyectados no se pueden modificar
+     * 
+     * @param tiempo los datos de tipo tiempo que queremos introducir
+     * @param datos los datos de que queremos introducir como datos en la
+     *      tabla */
+    @Override
+    public void addDatos(double tiempo, double[] datos) {
+        throw new UnsupportedOperationException(
+            "No se pueden modificar los datos proyectados de un archivo"
+        );
+    }
+    
+    /** Los datos proyectados no se pueden modificar
+     * 
+     * @param tiempos los datos de tipo tiempo de cada fila que queremos
+     *      introducir
+     * @param datos las columnas con los datos que queremos introducir
+     * @param numFilas el numero de filas que queremos introducir */
+    @Override
+    public void addDatos(double[] tiempos, double[][] datos, int numFilas) {
+        throw new UnsupportedOperationException(
+            "No se pueden modificar los datos proyectados de un archivo"
+        );
+    }
+    
+    /** Devuelve el tiempo de la fila dada
+     * 
+     * @param fila la posicion de la fila en la tabla
+     * @return el tiempo de la tabla de la fila dada  */
+    @Override
+    public double getTiempo(int fila) {
+        
+        assert fila >= 0 && fila < mNumFilas :
+            "No se puede acceder a la fila '" + fila + '\'';
+        
+        return get(0, fila);
+    }
+    
+    /** Copia los tiempos de las filas dadas al array dado
+     * 
+     * @param fila la posicion de la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los tiempos, empezando por su
+     *      primera posicion */
+    @Override
+    public void getTiempos(int fila, int numFilas, double[] destino) {
+        
+        assert fila >= 0 && numFilas >= 0 && fila + numFilas <= mNumFilas :
+            "No se puede acceder a las filas [" + fila + ", " + (fila + numFilas) + ')';
+        
+        copia(0, fila, numFilas, destino);
+    }
+    
+    /** Los datos proyectados no se pueden modificar
+     * 
+     * @param fila el indice de la fila donde queremos cambiar el tiempo
+     * @param tiempo el nuevo tiempo a guardar */
+    @Override
+    public void setTiempo(int fila, double tiempo) {
+        throw new UnsupportedOperationException(
+            "No se pueden modificar los datos proyectados de un archivo"
+        );
+    }
+    
+    /** Devuelve el valor del dato situado en la columna y fila dada de la tabla
+     * 
+     * @param columna el indice de la columna del datos que queremos
+     * @param fila el indice de la fila del datos que queremos
+     * @return el dato situados en la columna y fila dada */
+    @Override
+    public double getDatos(int columna, int fila) {
+        
+        assert columna >= 0 && columna < getNumDatos() :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        assert fila >= 0 && fila < mNumFilas :
+            "No se pueden obtener los datos de la fila '" + fila + '\'';
+        
+        return get(columna + 1, fila);
+    }
+    
+    /** Copia los valores de la columna dada de las filas dadas al array dado
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @param fila la posicion de la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los valores, empezando por su
+     *      primera posicion */
+    @Override
+    public void getDatos(int columna, int fila, int numFilas, double[] destino) {
+        
+        assert columna >= 0 && columna < getNumDatos() :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        assert fila >= 0 && numFilas >= 0 && fila + numFilas <= mNumFilas :
+            "No se pueden obtener los datos de las filas [" + fila + ", " + (fila + numFilas) + ')';
+        
+        copia(columna + 1, fila, numFilas, destino);
+    }
+    
+    /** Los datos proyectados no tienen niveles de detalle, ya que los niveles
+     * se guardarian en el heap y ocuparian una parte de las filas del archivo
+     * 
+     * @param columna el indice de la columna de los datos que queremos
+     * @return null */
+    @Override
+    public NivelesDetalle getNivelesDetalle(int columna) {
+        return null;
+    }
+    
+// Funciones privadas
+    /** Devuelve el valor de la fila dada de la columna dada del archivo
+     * 
+     * @param columna la columna del archivo, siendo 0 la de los tiempos
+     * @param fila la fila del valor
+     * @return el valor de la fila */
+    private double get(int columna, int fila) {
+        return mSegmentos[columna][fila >>> BITS_SEGMENTO]
+            .get(fila & (FILAS_POR_SEGMENTO - 1));
+    }
+    
+    /** Copia las filas dadas de la columna dada del archivo al array dado,
+     * recorriendo los segmentos en los que estan las filas
+     * 
+     * @param columna la columna del archivo, siendo 0 la de los tiempos
+     * @param fila la primera fila que queremos copiar
+     * @param numFilas el numero de filas que queremos copiar
+     * @param destino el array donde se copiaran los valores */
+    private void copia(int columna, int fila, int numFilas, double[] destino) {
+        
+        int copiadas = 0;
+        while (copiadas < numFilas) {
+            int actual = fila + copiadas,
+                posicion = actual & (FILAS_POR_SEGMENTO - 1);
+            
+            // Duplicamos el segmento para no cambiar su posicion mientras lo
+            // consultan otros hilos
+            DoubleBuffer segmento = mSegmentos[columna][actual >>> BITS_SEGMENTO].duplicate();
+            int n = Math.min(numFilas - copiadas, segmento.limit() - posicion);
+            
+            segmento.position(posicion);
+            segmento.get(destino, copiadas, n);
+            copiadas += n;
+        }
+    }
+    
+}
@@ -1,10 +1,12 @@
 package visualizacionwearables.modelo.utils;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * Clase LectorCSV
@@ -17,131 +19,199 @@ import java.util.ArrayList;
 public class LectorCSV {
     
     /** Excepcion por si hay un fallo en el formato de el archivo indicado */
-    public class DatosFormatException extends Exception {
+    public static class DatosFormatException extends Exception {
         
-        public DatosFormatException() { super(); }
-        public DatosFormatException(String message) { super(message); }
-        public DatosFormatException(String message, Throwable cause) { super(message, cause); }
-        public DatosFormatException(Throwable cause) { super(cause); }
+        /** La linea del archivo donde se encontro el fallo, -1 si no se
+         * conoce */
+        private final long mLinea;
+        
+        /** La columna de la linea donde se encontro el fallo, -1 si no se
+         * conoce */
+        private final int mColumna;
+        
+        public DatosFormatException() { super(); mLinea = -1; mColumna = -1; }
+        public DatosFormatException(String message) { super(message); mLinea = -1; mColumna = -1; }
+        public DatosFormatException(String message, Throwable cause) { super(message, cause); mLinea = -1; mColumna = -1; }
+        public DatosFormatException(Throwable cause) { super(cause); mLinea = -1; mColumna = -1; }
+        public DatosFormatException(long linea, int columna) {
+            super("Formato incorrecto en la linea " + linea + ", columna " + columna);
+            mLinea = linea;
+            mColumna = columna;
+        }
+        
+        /** @return la linea del archivo donde se encontro el fallo, -1 si no
+         *      se conoce */
+        public long getLinea() { return mLinea; }
+        
+        /** @return la columna de la linea donde se encontro el fallo, -1 si
+         *      no se conoce */
+        public int getColumna() { return mColumna; }
+    }
+    
+    /** El tamaño inicial en bytes del buffer de lectura */
+    private static final int TAM_BUFFER = 64 * 1024;
+    
+    /** El observador al que se notifica el progreso de la lectura, null si
+     * no hay ninguno */
+    private final ObservadorLectura mObservador;
+    
+    /** El numero de bytes del archivo traducidos en la ultima lectura */
+    private long mBytesLeidos;
+    
+    
+    /** Construye un nuevo LectorCSV */
+    public LectorCSV() {
+        mObservador = null;
+    }
+    
+    /** Construye un nuevo LectorCSV que notificara el progreso de las lecturas
+     * 
+     * @param observador el observador al que se notificara el progreso de la
+     *      lectura */
+    public LectorCSV(ObservadorLectura observador) {
+        mObservador = observador;
+    }
+    
+    /** @return el numero de bytes del archivo que se tradujeron en la ultima
+     *      lectura, es decir, la posicion del archivo desde la que habria que
+     *      continuar leyendo si se le añaden nuevas filas */
+    public long getBytesLeidos() {
+        return mBytesLeidos;
     }
     
     /** Dado la ruta del archivo csv con los datos que queremos leer, devuelve
      * los datos del fichero en forma de objeto de tipo DatosSensores
+     * <br>El archivo se lee en una sola pasada, traduciendo los bytes de cada
+     * bloque leido directamente a los datos y calculando el tiempo absoluto en
+     * ese mismo momento, por lo que no se almacenan las lineas del fichero en
+     * memoria
+     * 
+     * <br>Si el hilo que realiza la lectura es interrumpido la lectura se
+     * cancela lanzando una InterruptedIOException
      * 
      * @param archivo el archivo CSV que queremos leer
      * @return los datos del fichero traducidos a objeto DatosSensores */
     public DatosSensores leeArchivo(File archivo)
             throws IOException, DatosFormatException {
         
-        // Obtenemos las lineas del archivo
-        ArrayList<String> lineas = getLineas(archivo);
-        
-        // Traducimos las lineas a objetos de tipo Datos
-        DatosSensores datosSens = parseDatos(lineas, archivo.getName());
-        
-        // Calculamos el tiempo absoluto
-        setTiempoAbsoluto(datosSens);
-        
-        return datosSens;
-    }
-    
-    /** Dado un archivo, devuelve una lista con las lineas del mismo
-     *
-     * @param archivo el archivo a leer 
-     * @return una lista con las lineas del archivo */
-    private ArrayList<String> getLineas(File archivo) throws IOException {
-        
-        ArrayList<String> lineas = new ArrayList<>();
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(archivo))) {
-            String linea;
-            while ((linea = br.readLine()) != null) {
-               lineas.add(linea);
-            }
+        try (InputStream entrada = new FileInputStream(archivo)) {
+            return parseDatos(entrada, archivo.getName(), archivo.length());
         }
-        
-        return lineas;
     }
     
     /**
-     * Transforma el tiempo relativo almacenado en tiemposList (la diferencia de 
-     * tiempo entre dos mediciones  consecutivas, a excepcion del primer dato)
-     * por el tiempo absoluto (diferencia de tiempo con el primer dato)
+     * Crea los datos donde se guardaran las filas traducidas del archivo
+     * <br>Por defecto las filas se guardan en memoria, pero se puede
+     * sobreescribir para guardarlas en otro lugar
      * 
-     * @param tiemposList la lista con los datos uyas fechas queremos transformar
+     * @param filename el nombre del archivo que cuyos datos queremos traducir
+     * @param numDatos el numero de columnas de datos de las filas
+     * @return los datos donde se guardaran las filas
+     * @throws IOException si no se pueden crear los datos
      */
-    private void setTiempoAbsoluto(DatosSensores datosSens) {
-        
-        // Solo si tenemos mas de un dato transformaremos los tiempos ya que el
-        // tiempo del primer dato ya es absoluto
-        if (datosSens.getNumRows() > 1) {
-            
-            // El primer dato no ha de perder la diferencia absoluta
-            double lastTiempo = datosSens.getTiempo(0);
-
-            for (int i = 1; i < datosSens.getNumRows(); i++) {
-                double curTiempo = datosSens.getTiempo(i) + lastTiempo;
-                datosSens.setTiempo(i, curTiempo);
-                lastTiempo = curTiempo;
-            }
-        }
+    protected DatosSensores creaDatos(String filename, int numDatos)
+            throws IOException {
+        return new DatosSensores(filename, numDatos);
     }
     
     /**
-     * Traduce la lista pasada con las filas de la tabla a un objeto de tipo
-     * DatosSensores
+     * Traduce las filas de la tabla leidas de la entrada dada a un objeto de
+     * tipo DatosSensores, transformando a la vez el tiempo relativo de cada
+     * fila (la diferencia de tiempo entre dos mediciones consecutivas, a
+     * excepcion del primer dato) por el tiempo absoluto (diferencia de tiempo
+     * con el primer dato)
      * 
      * @note los datos de las filas han de estar separadas por ';'
-     * @param lineas la lista con las filas de la tabla que queremos traducir
+     * @param entrada la entrada de la que obtenemos las filas de la tabla que
+     *      queremos traducir
      * @param filename el nombre del archivo que cuyos datos queremos traducir
+     * @param tamTotal el numero de bytes que se esperan leer de la entrada
      * @return los Datos traducidos
      */
-    private DatosSensores parseDatos(ArrayList<String> lineas, String filename)
-            throws DatosFormatException {
-        
-        if (lineas.size() < 1) { throw(new DatosFormatException()); }
+    private DatosSensores parseDatos(InputStream entrada, String filename,
+            long tamTotal) throws IOException, DatosFormatException {
         
-        // Obtenemos el numero de columnas necesarias para datos
-        int lengthData = lineas.get(1).split(";").length - 1;
-        DatosSensores ret = new DatosSensores(filename, lengthData);
+        byte[] bytes = new byte[TAM_BUFFER];
+        ParserCSV parser = new ParserCSV(2);
+        DatosSensores ret = null;
+        boolean cabecera = true;
         
-        for (int i = 1 ; i < lineas.size(); i++) {  // Saltamos la cabecera
-            // Dividimos los datos
-            String[] datosString = lineas.get(i).split(";");
+        // Los bytes validos del buffer son los del rango [inicio, fin)
+        int inicio = 0, fin = 0, leidos;
+        long totalLeidos = 0;
+        while ((leidos = entrada.read(bytes, fin, bytes.length - fin)) >= 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("Lectura cancelada");
+            }
             
-            // Traducimos y añadimos los datos
-            switch (datosString.length) {
-                case 2:
-                    try {
-                        ret.addDatos(
-                            Double.parseDouble(datosString[0]),
-                            new double[]{
-                                Double.parseDouble(datosString[1])
-                            } );
-                    } catch (NumberFormatException e) {
-                        throw new DatosFormatException();
-                    }
-                    break;
-                case 4:
-                    try {
-                        ret.addDatos(
-                            Double.parseDouble(datosString[0]),
-                            new double[]{
-                                Double.parseDouble(datosString[1]),
-                                Double.parseDouble(datosString[2]),
-                                Double.parseDouble(datosString[3])
-                            } );
-                    } catch (NumberFormatException e) {
-                        throw new DatosFormatException();
-                    }
-                    break;
-                default:
-                    throw new DatosFormatException();
+            fin += leidos;
+            totalLeidos += leidos;
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            
+            // Saltamos la cabecera
+            if (cabecera) {
+                int i = inicio;
+                while ((i < fin) && (bytes[i] != '\n')) { i++; }
+                if (i < fin) {
+                    inicio = i + 1;
+                    cabecera = false;
+                }
+            }
+            
+            // Traducimos las lineas completas y las añadimos a los datos
+            if (!cabecera) {
+                inicio = parser.parseaLineas(buffer, inicio, fin);
+                ret = vuelca(parser, ret, filename);
+            }
+            if (mObservador != null) {
+                mObservador.onProgreso(totalLeidos, tamTotal);
+            }
+            
+            // Movemos la linea incompleta al comienzo del buffer, haciendolo
+            // crecer si no cabe una linea entera
+            System.arraycopy(bytes, inicio, bytes, 0, fin - inicio);
+            fin -= inicio;
+            inicio = 0;
+            if (fin == bytes.length) {
+                bytes = Arrays.copyOf(bytes, 2 * bytes.length);
             }
-
         }
         
+        // Traducimos la ultima linea si no termina en salto de linea
+        if (cabecera) { throw new DatosFormatException(); }
+        if (fin > inicio) {
+            parser.parseaLinea(ByteBuffer.wrap(bytes), inicio, fin);
+            ret = vuelca(parser, ret, filename);
+        }
+        if (ret == null) { throw new DatosFormatException(); }
+        
+        mBytesLeidos = totalLeidos;
         return ret;
     }
     
+    /**
+     * Añade las filas traducidas por el parser a los datos dados
+     * 
+     * @param parser el parser con las filas traducidas
+     * @param datos los datos donde queremos añadir las filas, null si todavia
+     *      no se han creado
+     * @param filename el nombre del archivo que cuyos datos queremos traducir
+     * @return los datos con las nuevas filas
+     */
+    private DatosSensores vuelca(ParserCSV parser, DatosSensores datos,
+            String filename) throws IOException {
+        
+        if ((datos == null) && (parser.getNumFilas() > 0)) {
+            datos = creaDatos(filename, parser.getNumDatos());
+            if (mObservador != null) {
+                mObservador.onDatosCreados(datos);
+            }
+        }
+        if (datos != null) {
+            parser.vuelca(datos);
+        }
+        
+        return datos;
+    }
+    
 }
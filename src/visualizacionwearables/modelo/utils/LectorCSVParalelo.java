@@ -0,0 +1,554 @@
+package visualizacionwearables.modelo.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException;
+
+/**
+ * Clase LectorCSVParalelo
+ * Se emplea para cargar y traducir archivos csv de gran tamaño empleando todos
+ * los nucleos del procesador. El archivo se proyecta en memoria y se divide en
+ * bloques de lineas completas que se traducen en paralelo.
+ * <br>Como el tiempo de cada fila es relativo al de la fila anterior, cada
+ * bloque calcula en paralelo los tiempos relativos al inicio del bloque y su
+ * tiempo total, y al unir los bloques en orden se desplazan los tiempos de
+ * cada bloque por la suma de los tiempos totales de los bloques anteriores
+ * (suma de prefijos por bloques). Asi cada bloque se puede añadir a los datos
+ * en cuanto terminan los anteriores, sin esperar al resto del archivo.
+ * <br>Tambien se puede indexar el archivo traduciendo solo los tiempos de las
+ * filas, de forma que las columnas de datos se traduzcan mas tarde por
+ * separado a partir de los bloques del indice (DatosSensoresDiferidos).
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class LectorCSVParalelo {
+    
+    /** El pool de hilos compartido por todas las lecturas */
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+    
+    /** El tamaño minimo en bytes de cada bloque */
+    private static final long MIN_TAM_BLOQUE = 1 << 20;
+    
+    /** El tamaño maximo en bytes de cada bloque */
+    private static final long MAX_TAM_BLOQUE = 64 << 20;
+    
+    /** El numero de bloques por hilo en los que intentaremos dividir el
+     * archivo para repartir mejor el trabajo */
+    private static final int BLOQUES_POR_HILO = 4;
+    
+    /** Tarea que traduce uno de los bloques del archivo */
+    private static class TareaTraduccion extends RecursiveTask<ParserCSV> {
+        
+        private final FileChannel mCanal;
+        private final long mInicio, mFin;
+        private final boolean mSoloTiempos;
+        
+        TareaTraduccion(FileChannel canal, long inicio, long fin, boolean soloTiempos) {
+            mCanal = canal;
+            mInicio = inicio;
+            mFin = fin;
+            mSoloTiempos = soloTiempos;
+        }
+        
+        @Override
+        protected ParserCSV compute() {
+            try {
+                return traduceBloque(mCanal, mInicio, mFin, mSoloTiempos);
+            } catch (IOException | DatosFormatException e) {
+                throw new ErrorTraduccion(e);
+            }
+        }
+    }
+    
+    /** Tarea que traduce una columna de uno de los bloques del archivo */
+    private static class TareaColumna extends RecursiveTask<Integer> {
+        
+        private final FileChannel mCanal;
+        private final long mInicio, mFin;
+        private final int mCampo, mFila;
+        private final double[] mDestino;
+        
+        TareaColumna(FileChannel canal, long inicio, long fin, int campo,
+                double[] destino, int fila) {
+            mCanal = canal;
+            mInicio = inicio;
+            mFin = fin;
+            mCampo = campo;
+            mDestino = destino;
+            mFila = fila;
+        }
+        
+        @Override
+        protected Integer compute() {
+            try {
+                return traduceColumnaBloque(mCanal, mInicio, mFin, mCampo, mDestino, mFila);
+            } catch (IOException | DatosFormatException e) {
+                throw new ErrorTraduccion(e);
+            }
+        }
+    }
+    
+    /** Excepcion empleada para sacar los errores de las tareas del pool */
+    private static class ErrorTraduccion extends RuntimeException {
+        ErrorTraduccion(Throwable cause) { super(cause); }
+    }
+    
+    /** El observador al que se notifica el progreso de la lectura, null si
+     * no hay ninguno */
+    private final ObservadorLectura mObservador;
+    
+    /** El numero de bytes del archivo traducidos en la ultima lectura */
+    private long mBytesLeidos;
+    
+    
+    /** Construye un nuevo LectorCSVParalelo */
+    public LectorCSVParalelo() {
+        mObservador = null;
+    }
+    
+    /** Construye un nuevo LectorCSVParalelo que notificara el progreso de las
+     * lecturas
+     * 
+     * @param observador el observador al que se notificara el progreso de la
+     *      lectura */
+    public LectorCSVParalelo(ObservadorLectura observador) {
+        mObservador = observador;
+    }
+    
+    /** @return el numero de bytes del archivo que se tradujeron en la ultima
+     *      lectura, es decir, la posicion del archivo desde la que habria que
+     *      continuar leyendo si se le añaden nuevas filas */
+    public long getBytesLeidos() {
+        return mBytesLeidos;
+    }
+    
+    /** Dado la ruta del archivo csv con los datos que queremos leer, devuelve
+     * los datos del fichero en forma de objeto de tipo DatosSensores
+     * <br>Si el hilo que realiza la lectura es interrumpido la lectura se
+     * cancela lanzando una InterruptedIOException
+     * 
+     * @param archivo el archivo CSV que queremos leer
+     * @return los datos del fichero traducidos a objeto DatosSensores */
+    public DatosSensores leeArchivo(File archivo)
+            throws IOException, DatosFormatException {
+        
+        try (RandomAccessFile raf = new RandomAccessFile(archivo, "r");
+             FileChannel canal = raf.getChannel()) {
+            
+            // Dividimos el archivo en bloques de lineas completas saltandonos
+            // la cabecera
+            long tam = canal.size();
+            long[] limites = calculaLimites(canal, siguienteLinea(canal, 0, tam), tam);
+            if (limites.length < 2) { throw new DatosFormatException(); }
+            
+            // Traducimos los bloques en paralelo
+            DatosSensores ret = traduceBloques(canal, limites, archivo.getName());
+            mBytesLeidos = limites[limites.length - 1];
+            return ret;
+        }
+    }
+    
+    /** Indexa el archivo csv dado traduciendo unicamente los tiempos de sus
+     * filas, de forma que sus columnas de datos se traduciran por separado la
+     * primera vez que se consulten
+     * <br>Si el hilo que realiza la lectura es interrumpido la lectura se
+     * cancela lanzando una InterruptedIOException
+     * 
+     * @param archivo el archivo CSV que queremos indexar
+     * @return los datos del fichero con los tiempos traducidos */
+    public DatosSensoresDiferidos indexaArchivo(File archivo)
+            throws IOException, DatosFormatException {
+        
+        try (RandomAccessFile raf = new RandomAccessFile(archivo, "r");
+             FileChannel canal = raf.getChannel()) {
+            
+            long tam = canal.size();
+            long[] limites = calculaLimites(canal, siguienteLinea(canal, 0, tam), tam);
+            if (limites.length < 2) { throw new DatosFormatException(); }
+            
+            DatosSensoresDiferidos ret = indexaBloques(canal, limites, archivo);
+            mBytesLeidos = limites[limites.length - 1];
+            return ret;
+        }
+    }
+    
+    /** Traduce en paralelo el campo dado de todas las filas de los bloques
+     * dados del archivo dado
+     * 
+     * @param archivo el archivo CSV que queremos traducir
+     * @param limites las posiciones de inicio de cada bloque seguidas de la
+     *      posicion final del ultimo bloque
+     * @param filas la primera fila de cada bloque seguida del numero total de
+     *      filas
+     * @param campo el indice del campo que queremos traducir, siendo 0 el
+     *      tiempo relativo
+     * @param destino el array donde se guardaran los valores del campo de
+     *      cada fila */
+    static void traduceColumna(File archivo, long[] limites, int[] filas,
+            int campo, double[] destino) throws IOException, DatosFormatException {
+        
+        try (RandomAccessFile raf = new RandomAccessFile(archivo, "r");
+             FileChannel canal = raf.getChannel()) {
+            
+            int numBloques = limites.length - 1;
+            List<ForkJoinTask<Integer>> tareas = new ArrayList<>(numBloques);
+            for (int i = 0; i < numBloques; i++) {
+                tareas.add(POOL.submit(new TareaColumna(
+                    canal, limites[i], limites[i + 1], campo, destino, filas[i]
+                )));
+            }
+            
+            try {
+                for (int i = 0; i < numBloques; i++) {
+                    if (espera(tareas.get(i)) != filas[i + 1]) {
+                        throw new IOException("El archivo ha cambiado desde que se indexo");
+                    }
+                }
+            } catch (IOException | DatosFormatException e) {
+                cancela(tareas);
+                throw e;
+            }
+        }
+    }
+    
+    /** Crea los datos donde se guardaran las filas traducidas del archivo
+     * <br>Por defecto las filas se guardan en memoria, pero se puede
+     * sobreescribir para guardarlas de otra forma
+     * 
+     * @param filename el nombre del archivo cuyos datos queremos traducir
+     * @param numDatos el numero de columnas de datos de las filas
+     * @return los datos donde se guardaran las filas
+     * @throws IOException si no se pueden crear los datos */
+    protected DatosSensores creaDatos(String filename, int numDatos)
+            throws IOException {
+        return new DatosSensores(filename, numDatos);
+    }
+
+// Funciones privadas
+    /** Traduce en paralelo los bloques del archivo y los une en orden segun
+     * terminan, de forma que las filas de cada bloque se añaden a los datos
+     * en cuanto se han añadido las de todos los bloques anteriores
+     * 
+     * @param canal el canal del archivo que queremos traducir
+     * @param limites las posiciones de inicio de cada bloque seguidas de la
+     *      posicion final del ultimo bloque
+     * @param filename el nombre del archivo cuyos datos queremos traducir
+     * @return los Datos de todos los bloques */
+    private DatosSensores traduceBloques(FileChannel canal, long[] limites,
+            String filename) throws IOException, DatosFormatException {
+        
+        int numBloques = limites.length - 1;
+        List<ForkJoinTask<ParserCSV>> tareas = lanzaBloques(canal, limites, false);
+        
+        DatosSensores ret = null;
+        double tiempoInicial = 0;
+        int i = 0;
+        try {
+            for (; i < numBloques; i++) {
+                ParserCSV bloque = espera(tareas.get(i));
+                
+                // Acumulamos los tiempos en el orden del archivo a partir del
+                // tiempo de la ultima fila de los bloques anteriores
+                tiempoInicial = bloque.acumulaTiempos(tiempoInicial);
+                
+                if (bloque.getNumFilas() > 0) {
+                    if (ret == null) {
+                        ret = creaDatos(filename, bloque.getNumDatos());
+                        if (mObservador != null) {
+                            mObservador.onDatosCreados(ret);
+                        }
+                    } else if (ret.getNumDatos() != bloque.getNumDatos()) {
+                        throw new DatosFormatException(1, 1);
+                    }
+                    bloque.vuelca(ret);
+                }
+                
+                if (mObservador != null) {
+                    mObservador.onProgreso(limites[i + 1], limites[numBloques]);
+                }
+            }
+        } catch (DatosFormatException e) {
+            cancela(tareas);
+            throw ajustaLinea(e, canal, limites[i]);
+        } catch (IOException e) {
+            cancela(tareas);
+            throw e;
+        }
+        
+        if (ret == null) { throw new DatosFormatException(); }
+        
+        return ret;
+    }
+    
+    /** Traduce en paralelo los tiempos de los bloques del archivo y los une
+     * en orden en una unica columna
+     * 
+     * @param canal el canal del archivo que queremos indexar
+     * @param limites las posiciones de inicio de cada bloque seguidas de la
+     *      posicion final del ultimo bloque
+     * @param archivo el archivo que queremos indexar
+     * @return los datos del archivo con los tiempos traducidos */
+    private DatosSensoresDiferidos indexaBloques(FileChannel canal,
+            long[] limites, File archivo) throws IOException, DatosFormatException {
+        
+        int numBloques = limites.length - 1;
+        List<ForkJoinTask<ParserCSV>> tareas = lanzaBloques(canal, limites, true);
+        List<ParserCSV> bloques = new ArrayList<>(numBloques);
+        int[] filas = new int[numBloques + 1];
+        
+        int numDatos = -1;
+        long numFilas = 0;
+        double tiempoInicial = 0;
+        int i = 0;
+        try {
+            for (; i < numBloques; i++) {
+                ParserCSV bloque = espera(tareas.get(i));
+                
+                tiempoInicial = bloque.acumulaTiempos(tiempoInicial);
+                
+                if (bloque.getNumFilas() > 0) {
+                    if (numDatos < 0) {
+                        numDatos = bloque.getNumDatos();
+                    } else if (numDatos != bloque.getNumDatos()) {
+                        throw new DatosFormatException(1, 1);
+                    }
+                }
+                
+                filas[i] = (int) numFilas;
+                numFilas += bloque.getNumFilas();
+                if (numFilas > Integer.MAX_VALUE) {
+                    throw new IOException("El archivo tiene demasiadas filas");
+                }
+                bloques.add(bloque);
+                
+                if (mObservador != null) {
+                    mObservador.onProgreso(limites[i + 1], limites[numBloques]);
+                }
+            }
+        } catch (DatosFormatException e) {
+            cancela(tareas);
+            throw ajustaLinea(e, canal, limites[i]);
+        } catch (IOException e) {
+            cancela(tareas);
+            throw e;
+        }
+        filas[numBloques] = (int) numFilas;
+        
+        if (numDatos < 0) { throw new DatosFormatException(); }
+        
+        // Unimos los tiempos de todos los bloques
+        double[] tiempos = new double[(int) numFilas];
+        for (int b = 0; b < numBloques; b++) {
+            System.arraycopy(
+                bloques.get(b).getTiempos(), 0, tiempos, filas[b], filas[b + 1] - filas[b]
+            );
+            bloques.set(b, null);
+        }
+        
+        return new DatosSensoresDiferidos(
+            archivo.getName(), numDatos, archivo, limites, filas, tiempos
+        );
+    }
+    
+    /** Lanza en el pool las tareas que traducen cada uno de los bloques dados
+     * 
+     * @param canal el canal del archivo que queremos traducir
+     * @param limites las posiciones de inicio de cada bloque seguidas de la
+     *      posicion final del ultimo bloque
+     * @param soloTiempos si solo se han de traducir los tiempos de las filas
+     * @return las tareas lanzadas en el orden de los bloques */
+    private List<ForkJoinTask<ParserCSV>> lanzaBloques(FileChannel canal,
+            long[] limites, boolean soloTiempos) {
+        
+        int numBloques = limites.length - 1;
+        List<ForkJoinTask<ParserCSV>> ret = new ArrayList<>(numBloques);
+        for (int i = 0; i < numBloques; i++) {
+            ret.add(POOL.submit(
+                new TareaTraduccion(canal, limites[i], limites[i + 1], soloTiempos)
+            ));
+        }
+        return ret;
+    }
+    
+    /** Espera a que termine la tarea dada y devuelve su resultado, sacando
+     * los errores producidos en la tarea
+     * 
+     * @param tarea la tarea que queremos esperar
+     * @return el resultado de la tarea */
+    private static <T> T espera(ForkJoinTask<T> tarea)
+            throws IOException, DatosFormatException {
+        
+        try {
+            return tarea.get();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Lectura cancelada");
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            while (causa instanceof ErrorTraduccion) { causa = causa.getCause(); }
+            
+            if (causa instanceof DatosFormatException) {
+                throw (DatosFormatException) causa;
+            } else if (causa instanceof IOException) {
+                throw (IOException) causa;
+            }
+            throw new IOException(causa);
+        }
+    }
+    
+    /** Cancela las tareas dadas que todavia no se hayan ejecutado
+     * 
+     * @param tareas las tareas que queremos cancelar */
+    private static void cancela(List<? extends ForkJoinTask<?>> tareas) {
+        for (ForkJoinTask<?> tarea : tareas) {
+            tarea.cancel(true);
+        }
+    }
+    
+    /** Crea una nueva excepcion igual a la dada pero con el numero de linea
+     * relativo al archivo en lugar de al bloque donde se produjo
+     * 
+     * @param e la excepcion producida al traducir el bloque
+     * @param canal el canal del archivo que se estaba traduciendo
+     * @param inicioBloque la posicion del primer byte del bloque
+     * @return la nueva excepcion */
+    private DatosFormatException ajustaLinea(DatosFormatException e,
+            FileChannel canal, long inicioBloque) throws IOException {
+        
+        if (e.getLinea() < 0) { return e; }
+        
+        // Contamos las lineas anteriores al bloque
+        long numLineas = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        for (long posicion = 0; posicion < inicioBloque; ) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), inicioBloque - posicion));
+            int leidos = canal.read(buffer, posicion);
+            if (leidos <= 0) { break; }
+            
+            for (int i = 0; i < leidos; i++) {
+                if (buffer.get(i) == '\n') { numLineas++; }
+            }
+            posicion += leidos;
+        }
+        
+        return new DatosFormatException(numLineas + e.getLinea(), e.getColumna());
+    }
+    
+    /** Divide el rango dado del archivo en bloques que terminan en un salto de
+     * linea
+     * 
+     * @param canal el canal del archivo que queremos dividir
+     * @param inicio la posicion del primer byte a dividir
+     * @param fin la posicion siguiente al ultimo byte a dividir
+     * @return las posiciones de inicio de cada bloque seguidas de la posicion
+     *      final del ultimo bloque */
+    private long[] calculaLimites(FileChannel canal, long inicio, long fin)
+            throws IOException {
+        
+        long tamBloque = (fin - inicio)
+                / (POOL.getParallelism() * BLOQUES_POR_HILO);
+        tamBloque = Math.max(MIN_TAM_BLOQUE, Math.min(MAX_TAM_BLOQUE, tamBloque));
+        
+        List<Long> limites = new ArrayList<>();
+        limites.add(inicio);
+        
+        long posicion = inicio;
+        while (posicion < fin) {
+            posicion = siguienteLinea(canal, Math.min(posicion + tamBloque, fin), fin);
+            limites.add(posicion);
+        }
+        
+        long[] ret = new long[limites.size()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = limites.get(i);
+        }
+        return ret;
+    }
+    
+    /** Busca el comienzo de la siguiente linea desde la posicion dada
+     * 
+     * @param canal el canal del archivo en el que buscamos
+     * @param posicion la posicion desde la que empezamos a buscar
+     * @param fin la posicion siguiente al ultimo byte del archivo
+     * @return la posicion siguiente al primer salto de linea encontrado, o
+     *      fin si no hay mas saltos de linea */
+    private long siguienteLinea(FileChannel canal, long posicion, long fin)
+            throws IOException {
+        
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (posicion < fin) {
+            buffer.clear();
+            int leidos = canal.read(buffer, posicion);
+            if (leidos <= 0) { break; }
+            
+            for (int i = 0; i < leidos; i++) {
+                if (buffer.get(i) == '\n') {
+                    return posicion + i + 1;
+                }
+            }
+            posicion += leidos;
+        }
+        
+        return fin;
+    }
+    
+    /** Traduce las lineas del rango dado del archivo
+     * 
+     * @param canal el canal del archivo que queremos traducir
+     * @param inicio la posicion del primer byte del bloque
+     * @param fin la posicion siguiente al ultimo byte del bloque
+     * @return el parser con las filas traducidas del bloque */
+    private static ParserCSV traduceBloque(FileChannel canal, long inicio,
+            long fin, boolean soloTiempos) throws IOException, DatosFormatException {
+        
+        MappedByteBuffer buffer = canal.map(
+            FileChannel.MapMode.READ_ONLY, inicio, fin - inicio
+        );
+        
+        // Las lineas se numeran de forma relativa al comienzo del bloque
+        ParserCSV ret = new ParserCSV(1, soloTiempos, true);
+        int resto = ret.parseaLineas(buffer, 0, buffer.limit());
+        if (resto < buffer.limit()) {
+            ret.parseaLinea(buffer, resto, buffer.limit());
+        }
+        
+        return ret;
+    }
+    
+    /** Traduce una columna de las lineas del rango dado del archivo
+     * 
+     * @param canal el canal del archivo que queremos traducir
+     * @param inicio la posicion del primer byte del bloque
+     * @param fin la posicion siguiente al ultimo byte del bloque
+     * @param campo el indice del campo que queremos traducir, siendo 0 el
+     *      tiempo relativo
+     * @param destino el array donde se guardaran los valores del campo
+     * @param fila la fila del archivo que es la primera linea del bloque
+     * @return la fila siguiente a la ultima linea del bloque */
+    private static int traduceColumnaBloque(FileChannel canal, long inicio,
+            long fin, int campo, double[] destino, int fila)
+            throws IOException, DatosFormatException {
+        
+        MappedByteBuffer buffer = canal.map(
+            FileChannel.MapMode.READ_ONLY, inicio, fin - inicio
+        );
+        
+        // Cada fila ocupa una linea y la primera linea es la cabecera
+        ParserCSV parser = new ParserCSV(fila + 2L);
+        return parser.parseaColumna(buffer, 0, buffer.limit(), campo, destino, fila);
+    }
+    
+}
@@ -0,0 +1,532 @@
+package visualizacionwearables.modelo.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Clase NivelesDetalle
+ * Guarda una columna de unos datos reducida a varias resoluciones, de forma
+ * que al mostrar una zona grande de los datos se pueden recorrer las filas de
+ * un nivel con menos detalle en vez de todas las filas de los datos.
+ * <br>Cada nivel se forma resumiendo cada grupo de filas consecutivas del
+ * nivel anterior en la fila con el valor minimo y la fila con el valor maximo
+ * del grupo, en el orden en el que aparecen y con sus tiempos originales, por
+ * lo que se conservan los picos de los datos. El primer nivel resume grupos de
+ * FILAS_GRUPO_BASE filas de los datos, ya que recorrer unas pocas filas de los
+ * datos por pixel apenas cuesta, y cada nivel siguiente reduce a la mitad las
+ * filas del anterior hasta llegar a unas MIN_FILAS_NIVEL filas.
+ * <br>Los niveles se calculan en un hilo en segundo plano segun se consultan,
+ * resumiendo unicamente las filas añadidas desde el ultimo calculo, y se
+ * publican como datos que no cambian, de forma que se pueden consultar sin
+ * bloquear mientras se calculan los siguientes. Mientras se siguen añadiendo
+ * filas, a los ultimos niveles publicados se les añaden las filas de los
+ * datos que todavia no resumen.
+ * <br>Las filas de los niveles se guardan igual que las de los datos, de
+ * forma que los niveles de unos datos comprimidos tambien se comprimen.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class NivelesDetalle {
+    
+    /** El numero de filas de los datos que se resumen en cada grupo del
+     * primer nivel */
+    private static final int FILAS_GRUPO_BASE = 16;
+    
+    /** El numero de filas de un nivel que se resumen en cada grupo del
+     * siguiente nivel */
+    private static final int FILAS_GRUPO = 4;
+    
+    /** El numero minimo de filas que ha de tener un nivel para crearlo */
+    private static final int MIN_FILAS_NIVEL = 1024;
+    
+    /** El numero maximo de niveles */
+    private static final int MAX_NIVELES = 32;
+    
+    /** El numero de grupos que se resumen de una vez */
+    private static final int GRUPOS_POR_LECTURA = 1024;
+    
+    /** El hilo en el que se calculan los niveles de todos los datos */
+    private static final ExecutorService EJECUTOR =
+        Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread ret = new Thread(r, "NivelesDetalle");
+                ret.setDaemon(true);
+                return ret;
+            }
+        });
+    
+    /** Los datos de los que se calculan los niveles */
+    private final DatosSensores mDatos;
+    
+    /** La columna de los datos de la que se calculan los niveles */
+    private final int mColumna;
+    
+    /** Las filas de los grupos ya completos de cada nivel, con una unica
+     * columna. Solo se modifican desde el hilo de EJECUTOR */
+    private final DatosSensores[] mCompletas;
+    
+    /** El numero de filas del nivel anterior, o de los datos en el primer
+     * nivel, que ya se han resumido en cada nivel */
+    private final int[] mResumidas;
+    
+    /** El numero de niveles creados */
+    private int mNumNiveles;
+    
+    /** Los ultimos niveles publicados, null si todavia no se han calculado */
+    private volatile Estado mEstado;
+    
+    /** Si ya se ha programado un calculo de los niveles que todavia no ha
+     * empezado */
+    private final AtomicBoolean mPendiente;
+    
+    
+    /** Construye unos nuevos NivelesDetalle sin calcular
+     * 
+     * @param datos los datos de los que se calculan los niveles. Solo se han
+     *      de añadir filas al final de los datos, sin que cambien las
+     *      existentes
+     * @param columna la columna de los datos */
+    public NivelesDetalle(DatosSensores datos, int columna) {
+        
+        assert columna >= 0 && columna < datos.getNumDatos() :
+            "No se pueden obtener los datos de la columna '" + columna + '\'';
+        
+        mDatos = datos;
+        mColumna = columna;
+        mCompletas = new DatosSensores[MAX_NIVELES];
+        mResumidas = new int[MAX_NIVELES];
+        mNumNiveles = 0;
+        mEstado = null;
+        mPendiente = new AtomicBoolean(false);
+    }
+    
+    /** Devuelve los niveles calculados con las filas dadas de los datos. Si
+     * los ultimos niveles calculados no resumen todas las filas se programa
+     * su calculo en segundo plano, y mientras tanto se devuelven los ultimos
+     * niveles seguidos de las filas de los datos que todavia no resumen
+     * 
+     * @param numFilas el numero de filas de los datos que han de tener los
+     *      niveles
+     * @return los niveles ordenados de mayor a menor detalle, cada uno con
+     *      las mismas columnas que los datos pero del que solo se puede
+     *      consultar la columna de los niveles. null si todavia no se han
+     *      calculado niveles con como mucho el numero de filas dado. El
+     *      array se comparte entre todas las consultas, por lo que no se ha
+     *      de modificar */
+    public DatosSensores[] getNiveles(int numFilas) {
+        
+        Estado estado = mEstado;
+        if ((estado != null) && (estado.mNumFilas == numFilas)) {
+            return estado.mNiveles;
+        }
+        
+        DatosSensores[] ret = null;
+        if ((estado != null) && (estado.mNumFilas < numFilas)) {
+            ret = new DatosSensores[estado.mNiveles.length];
+            for (int i = 0; i < ret.length; i++) {
+                ret[i] = estado.mNiveles[i].conFilasDatos(numFilas);
+            }
+        }
+        
+        if (mPendiente.compareAndSet(false, true)) {
+            EJECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mPendiente.set(false);
+                    actualiza();
+                }
+            });
+        }
+        
+        return ret;
+    }
+
+// Funciones privadas
+    /** Resume en cada nivel las filas añadidas desde el ultimo calculo y
+     * publica los nuevos niveles */
+    private void actualiza() {
+        
+        int numFilas = mDatos.getNumRows();
+        
+        // Resumimos los grupos completos de cada nivel, creando los niveles
+        // que ya tienen suficientes filas
+        DatosSensores origen = mDatos;
+        int columnaOrigen = mColumna, filasGrupo = FILAS_GRUPO_BASE,
+            filasOrigen = numFilas;
+        for (int nivel = 0; nivel < MAX_NIVELES; nivel++) {
+            if (nivel >= mNumNiveles) {
+                if (2 * (filasOrigen / filasGrupo) < MIN_FILAS_NIVEL) { break; }
+                
+                mCompletas[nivel] = (mDatos instanceof DatosSensoresComprimidos)?
+                    new DatosSensoresComprimidos(mDatos.getName(), 1) :
+                    new DatosSensores(mDatos.getName(), 1);
+                mNumNiveles = nivel + 1;
+            }
+            
+            resume(origen, columnaOrigen, filasOrigen, filasGrupo, nivel);
+            
+            origen = mCompletas[nivel];
+            columnaOrigen = 0;
+            filasGrupo = FILAS_GRUPO;
+            filasOrigen = origen.getNumRows();
+        }
+        
+        // Resumimos las filas que todavia no forman un grupo completo junto
+        // con las del nivel anterior que tampoco lo forman
+        Nivel[] niveles = new Nivel[mNumNiveles];
+        double[] tiempos = new double[FILAS_GRUPO_BASE + 2],
+                 valores = new double[FILAS_GRUPO_BASE + 2],
+                 tiemposCola = new double[0],
+                 valoresCola = new double[0];
+        origen = mDatos;
+        columnaOrigen = mColumna;
+        filasOrigen = numFilas;
+        for (int nivel = 0; nivel < mNumNiveles; nivel++) {
+            int fila = mResumidas[nivel],
+                n = filasOrigen - fila;
+            origen.getTiempos(fila, n, tiempos);
+            origen.getDatos(columnaOrigen, fila, n, valores);
+            System.arraycopy(tiemposCola, 0, tiempos, n, tiemposCola.length);
+            System.arraycopy(valoresCola, 0, valores, n, valoresCola.length);
+            n += tiemposCola.length;
+            
+            double[] tiemposResumen = new double[2], valoresResumen = new double[2];
+            int numResumen = resumeGrupo(tiempos, valores, 0, n, tiemposResumen, valoresResumen, 0);
+            tiemposCola = Arrays.copyOf(tiemposResumen, numResumen);
+            valoresCola = Arrays.copyOf(valoresResumen, numResumen);
+            
+            DatosSensores completas = mCompletas[nivel];
+            niveles[nivel] = new Nivel(
+                mDatos, mColumna, completas, completas.getNumRows(),
+                tiemposCola, valoresCola, numFilas, 0
+            );
+            
+            origen = completas;
+            columnaOrigen = 0;
+            filasOrigen = completas.getNumRows();
+        }
+        
+        mEstado = new Estado(numFilas, niveles);
+    }
+    
+    /** Resume en el nivel dado los grupos completos de filas del origen que
+     * todavia no se han resumido
+     * 
+     * @param origen los datos o el nivel anterior
+     * @param columna la columna del origen a resumir
+     * @param numFilas el numero de filas del origen
+     * @param filasGrupo el numero de filas del origen de cada grupo
+     * @param nivel el nivel donde se añaden los grupos resumidos */
+    private void resume(DatosSensores origen, int columna, int numFilas,
+            int filasGrupo, int nivel) {
+        
+        if (mResumidas[nivel] + filasGrupo > numFilas) { return; }
+        
+        double[] tiempos = new double[GRUPOS_POR_LECTURA * filasGrupo],
+                 valores = new double[GRUPOS_POR_LECTURA * filasGrupo],
+                 tiemposResumen = new double[2 * GRUPOS_POR_LECTURA];
+        double[][] valoresResumen = new double[1][2 * GRUPOS_POR_LECTURA];
+        
+        while (mResumidas[nivel] + filasGrupo <= numFilas) {
+            int fila = mResumidas[nivel],
+                numGrupos = Math.min(GRUPOS_POR_LECTURA, (numFilas - fila) / filasGrupo),
+                n = numGrupos * filasGrupo;
+            origen.getTiempos(fila, n, tiempos);
+            origen.getDatos(columna, fila, n, valores);
+            
+            int numResumen = 0;
+            for (int i = 0; i < n; i += filasGrupo) {
+                numResumen = resumeGrupo(
+                    tiempos, valores, i, filasGrupo,
+                    tiemposResumen, valoresResumen[0], numResumen
+                );
+            }
+            
+            mCompletas[nivel].addDatos(tiemposResumen, valoresResumen, numResumen);
+            mResumidas[nivel] = fila + n;
+        }
+    }
+    
+    /** Resume el grupo de filas dado en la fila con el valor minimo y la fila
+     * con el valor maximo, en el orden en el que aparecen e ignorando los
+     * valores NaN. Si las dos son la misma fila o el grupo solo tiene NaN se
+     * resume en una unica fila
+     * 
+     * @param tiempos los tiempos de las filas
+     * @param valores los valores de las filas
+     * @param inicio la posicion de la primera fila del grupo
+     * @param numFilas el numero de filas del grupo
+     * @param tiemposDestino el array donde se escribiran los tiempos de las
+     *      filas resumidas
+     * @param valoresDestino el array donde se escribiran los valores de las
+     *      filas resumidas
+     * @param destino la posicion de los arrays de destino donde se escribira
+     *      la primera fila resumida
+     * @return la posicion siguiente a la ultima fila resumida escrita */
+    private static int resumeGrupo(double[] tiempos, double[] valores,
+            int inicio, int numFilas,
+            double[] tiemposDestino, double[] valoresDestino, int destino) {
+        
+        if (numFilas <= 0) { return destino; }
+        
+        int minimo = -1, maximo = -1;
+        for (int i = inicio; i < inicio + numFilas; i++) {
+            if (!Double.isNaN(valores[i])) {
+                if ((minimo < 0) || (valores[i] < valores[minimo])) { minimo = i; }
+                if ((maximo < 0) || (valores[i] > valores[maximo])) { maximo = i; }
+            }
+        }
+        if (minimo < 0) {
+            minimo = inicio;
+            maximo = inicio;
+        }
+        
+        int primera = Math.min(minimo, maximo), ultima = Math.max(minimo, maximo);
+        tiemposDestino[destino] = tiempos[primera];
+        valoresDestino[destino] = valores[primera];
+        destino++;
+        if (ultima != primera) {
+            tiemposDestino[destino] = tiempos[ultima];
+            valoresDestino[destino] = valores[ultima];
+            destino++;
+        }
+        
+        return destino;
+    }
+    
+    
+    /** Los niveles publicados junto con el numero de filas de los datos que
+     * resumen */
+    private static class Estado {
+        
+        /** El numero de filas de los datos que resumen los niveles */
+        private final int mNumFilas;
+        
+        /** Los niveles ordenados de mayor a menor detalle */
+        private final Nivel[] mNiveles;
+        
+        /** Construye un nuevo Estado
+         * 
+         * @param numFilas el numero de filas de los datos resumidas
+         * @param niveles los niveles */
+        Estado(int numFilas, Nivel[] niveles) {
+            mNumFilas = numFilas;
+            mNiveles = niveles;
+        }
+        
+    }
+    
+    
+    /**
+     * Las filas de un nivel en el momento en el que se publico, que no
+     * cambian aunque se sigan resumiendo filas en el nivel.
+     * <br>Tiene las mismas columnas que los datos de los que se calcula para
+     * que se pueda consultar en su lugar, pero solo se puede consultar la
+     * columna resumida. Sus filas son las de los grupos completos seguidas de
+     * las del resumen de las filas que todavia no forman un grupo, y por
+     * ultimo de las filas de los datos añadidas despues de calcular el nivel.
+     */
+    private static class Nivel extends DatosSensores {
+        
+        /** Los datos de los que se calcula el nivel */
+        private final DatosSensores mDatos;
+        
+        /** La columna de los datos que se resume */
+        private final int mColumna;
+        
+        /** Las filas de los grupos completos del nivel */
+        private final DatosSensores mCompletas;
+        
+        /** El numero de filas de mCompletas que forman parte del nivel */
+        private final int mNumCompletas;
+        
+        /** Los tiempos y los valores de las filas resumidas del final del
+         * nivel */
+        private final double[] mTiemposCola, mValoresCola;
+        
+        /** La posicion en los datos de la primera fila que no resume el
+         * nivel, y el numero de filas de los datos que se añaden al nivel a
+         * partir de ella */
+        private final int mFilaDatos, mNumFilasDatos;
+        
+        /** Construye un nuevo Nivel
+         * 
+         * @param datos los datos de los que se calcula el nivel
+         * @param columna la columna de los datos que se resume
+         * @param completas las filas de los grupos completos del nivel
+         * @param numCompletas el numero de filas de completas que forman parte
+         *      del nivel
+         * @param tiemposCola los tiempos de las filas resumidas del final del
+         *      nivel
+         * @param valoresCola los valores de las filas resumidas del final del
+         *      nivel
+         * @param filaDatos la primera fila de los datos que no resume el nivel
+         * @param numFilasDatos el numero de filas de los datos a partir de
+         *      filaDatos que se añaden sin resumir al final del nivel */
+        Nivel(DatosSensores datos, int columna,
+                DatosSensores completas, int numCompletas,
+                double[] tiemposCola, double[] valoresCola,
+                int filaDatos, int numFilasDatos) {
+            super(datos.getName(), datos.getNumDatos(), 0);
+            mDatos = datos;
+            mColumna = columna;
+            mCompletas = completas;
+            mNumCompletas = numCompletas;
+            mTiemposCola = tiemposCola;
+            mValoresCola = valoresCola;
+            mFilaDatos = filaDatos;
+            mNumFilasDatos = numFilasDatos;
+        }
+        
+        /** Devuelve el nivel seguido de las filas de los datos que todavia
+         * no resume
+         * 
+         * @param numFilas el numero de filas de los datos, ninguna de ellas
+         *      anterior a las que resume el nivel
+         * @return el nivel con las filas de los datos hasta numFilas */
+        Nivel conFilasDatos(int numFilas) {
+            return new Nivel(
+                mDatos, mColumna, mCompletas, mNumCompletas,
+                mTiemposCola, mValoresCola, mFilaDatos, numFilas - mFilaDatos
+            );
+        }
+        
+        /** @return el numero de filas del nivel */
+        @Override
+        public int getNumRows() {
+            return mNumCompletas + mTiemposCola.length + mNumFilasDatos;
+        }
+        
+        /** Los niveles no se pueden modificar
+         * 
+         * @throws UnsupportedOperationException siempre */
+        @Override
+        public void addDatos(double tiempo, double[] datos) {
+            throw new UnsupportedOperationException("No se pueden modificar los niveles de detalle");
+        }
+        
+        /** Los niveles no se pueden modificar
+         * 
+         * @throws UnsupportedOperationException siempre */
+        @Override
+        public void addDatos(double[] tiempos, double[][] datos, int numFilas) {
+            throw new UnsupportedOperationException("No se pueden modificar los niveles de detalle");
+        }
+        
+        /** Los niveles no se pueden modificar
+         * 
+         * @throws UnsupportedOperationException siempre */
+        @Override
+        public void setTiempo(int fila, double tiempo) {
+            throw new UnsupportedOperationException("No se pueden modificar los niveles de detalle");
+        }
+        
+        @Override
+        public double getTiempo(int fila) {
+            
+            assert fila >= 0 && fila < getNumRows() :
+                "No se puede acceder a la fila '" + fila + '\'';
+            
+            int finCola = mNumCompletas + mTiemposCola.length;
+            if (fila < mNumCompletas) {
+                return mCompletas.getTiempo(fila);
+            } else if (fila < finCola) {
+                return mTiemposCola[fila - mNumCompletas];
+            } else {
+                return mDatos.getTiempo(mFilaDatos + fila - finCola);
+            }
+        }
+        
+        @Override
+        public void getTiempos(int fila, int numFilas, double[] destino) {
+            
+            assert fila >= 0 && numFilas >= 0 && fila + numFilas <= getNumRows() :
+                "No se puede acceder a las filas [" + fila + ", " + (fila + numFilas) + ')';
+            
+            int n = Math.max(0, Math.min(numFilas, mNumCompletas - fila));
+            if (n > 0) {
+                mCompletas.getTiempos(fila, n, destino);
+            }
+            
+            int finCola = mNumCompletas + mTiemposCola.length,
+                nCola = Math.max(0, Math.min(numFilas - n, finCola - fila - n));
+            if (nCola > 0) {
+                System.arraycopy(mTiemposCola, fila + n - mNumCompletas, destino, n, nCola);
+            }
+            for (int i = n + nCola; i < numFilas; i++) {
+                destino[i] = mDatos.getTiempo(mFilaDatos + fila + i - finCola);
+            }
+        }
+        
+        @Override
+        public double getDatos(int columna, int fila) {
+            
+            assert columna == mColumna :
+                "No se pueden obtener los datos de la columna '" + columna + '\'';
+            assert fila >= 0 && fila < getNumRows() :
+                "No se pueden obtener los datos de la fila '" + fila + '\'';
+            
+            int finCola = mNumCompletas + mValoresCola.length;
+            if (fila < mNumCompletas) {
+                return mCompletas.getDatos(0, fila);
+            } else if (fila < finCola) {
+                return mValoresCola[fila - mNumCompletas];
+            } else {
+                return mDatos.getDatos(columna, mFilaDatos + fila - finCola);
+            }
+        }
+        
+        @Override
+        public void getDatos(int columna, int fila, int numFilas, double[] destino) {
+            
+            assert columna == mColumna :
+                "No se pueden obtener los datos de la columna '" + columna + '\'';
+            assert fila >= 0 && numFilas >= 0 && fila + numFilas <= getNumRows() :
+                "No se pueden obtener los datos de las filas [" + fila + ", " + (fila + numFilas) + ')';
+            
+            int n = Math.max(0, Math.min(numFilas, mNumCompletas - fila));
+            if (n > 0) {
+                mCompletas.getDatos(0, fila, n, destino);
+            }
+            
+            int finCola = mNumCompletas + mValoresCola.length,
+                nCola = Math.max(0, Math.min(numFilas - n, finCola - fila - n));
+            if (nCola > 0) {
+                System.arraycopy(mValoresCola, fila + n - mNumCompletas, destino, n, nCola);
+            }
+            for (int i = n + nCola; i < numFilas; i++) {
+                destino[i] = mDatos.getDatos(columna, mFilaDatos + fila + i - finCola);
+            }
+        }
+        
+        /** Calcula los extremos recorriendo las filas, ya que el nivel solo
+         * se consulta una vez
+         * 
+         * @param columna el indice de la columna de los datos que queremos
+         * @param fila la posicion de la primera fila
+         * @param numFilas el numero de filas
+         * @param extremos el array donde se guardaran el minimo y el maximo en
+         *      ese orden. Si no hay ningun valor seran +infinito y -infinito */
+        @Override
+        public void getExtremos(int columna, int fila, int numFilas, double[] extremos) {
+            calculaExtremos(columna, fila, numFilas, extremos);
+        }
+        
+        /** Los niveles ya no cambian, por lo que no necesitan niveles propios
+         * 
+         * @param columna el indice de la columna
+         * @return null */
+        @Override
+        public NivelesDetalle getNivelesDetalle(int columna) {
+            return null;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,28 @@
+package visualizacionwearables.modelo.utils;
+
+/**
+ * Interfaz ObservadorLectura, se emplea para recibir el progreso de la lectura
+ * de un archivo y los datos leidos hasta el momento mientras se esta leyendo
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public interface ObservadorLectura {
+    
+    /** Metodo llamado en cuanto se crean los datos donde se guardan las filas
+     * leidas, antes de que se termine de leer el archivo. A partir de este
+     * momento las nuevas filas leidas se iran añadiendo a los datos dados
+     * antes de cada llamada a onProgreso
+     * 
+     * @param datos los datos donde se guardan las filas leidas */
+    void onDatosCreados(DatosSensores datos);
+    
+    /** Metodo llamado cada vez que se traduce una nueva parte del archivo
+     * 
+     * @param bytesLeidos el numero de bytes del archivo traducidos hasta el
+     *      momento
+     * @param bytesTotales el tamaño del archivo en bytes */
+    void onProgreso(long bytesLeidos, long bytesTotales);
+    
+}
@@ -0,0 +1,444 @@
+package visualizacionwearables.modelo.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException;
+
+/**
+ * Clase ParserCSV
+ * Traduce las filas del archivo csv directamente desde sus bytes a columnas de
+ * valores primitivos, sin crear ningun objeto por cada fila ni por cada campo.
+ * <br>Los tiempos de las filas se guardan ya transformados en tiempo absoluto,
+ * es decir, sumando a cada tiempo relativo los tiempos de las filas anteriores
+ * traducidas por el mismo parser. Al traducir un bloque del archivo en
+ * paralelo se guardan en cambio los tiempos relativos, que se acumulan despues
+ * en el orden del archivo para obtener exactamente las mismas sumas que en una
+ * lectura secuencial.
+ * <br>Tambien se pueden traducir unicamente los tiempos de las filas, o
+ * unicamente un campo de cada fila, para leer las columnas por separado.
+ * 
+ * @note los datos de las filas han de estar separadas por ';', ignorandose
+ * los ';' del final de cada fila
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+class ParserCSV {
+    
+    /** Las potencias de 10 que se pueden representar de forma exacta */
+    private static final double[] POTENCIAS_10 = {
+        1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    
+    /** La maxima mantisa que se puede representar de forma exacta */
+    private static final long MAX_MANTISA = 1L << 53;
+    
+    /** Los tiempos absolutos de las filas traducidas, o los relativos si se
+     * guardan sin acumular */
+    private final ColumnaDoubles mTiempos;
+    
+    /** Las columnas de datos de las filas traducidas, null hasta que se
+     * traduzca la primera fila */
+    private ColumnaDoubles[] mDatos;
+    
+    /** Los datos de la fila que se esta traduciendo */
+    private double[] mFila;
+    
+    /** La suma de los tiempos relativos de todas las filas traducidas */
+    private double mTiempoAcumulado;
+    
+    /** El numero de la linea que se va a traducir */
+    private long mLinea;
+    
+    /** La posicion siguiente al ultimo campo traducido */
+    private int mPosicion;
+    
+    /** Si solo se traducen los tiempos de las filas */
+    private final boolean mSoloTiempos;
+    
+    /** Si los tiempos de las filas se guardan sin acumular */
+    private final boolean mTiemposRelativos;
+    
+    
+    /** Construye un nuevo ParserCSV
+     * 
+     * @param primeraLinea el numero de linea que tiene la primera linea que se
+     *      traducira, empleado para los mensajes de error */
+    ParserCSV(long primeraLinea) {
+        this(primeraLinea, false, false);
+    }
+    
+    /** Construye un nuevo ParserCSV
+     * 
+     * @param primeraLinea el numero de linea que tiene la primera linea que se
+     *      traducira, empleado para los mensajes de error
+     * @param soloTiempos si solo se han de traducir los tiempos de las filas.
+     *      En ese caso de los datos solo se comprueba que las filas tengan el
+     *      numero de campos correcto
+     * @param tiemposRelativos si los tiempos de las filas se han de guardar
+     *      sin acumular, para acumularlos despues con acumulaTiempos */
+    ParserCSV(long primeraLinea, boolean soloTiempos, boolean tiemposRelativos) {
+        mTiempos = new ColumnaDoubles(1024);
+        mDatos = null;
+        mTiempoAcumulado = 0;
+        mLinea = primeraLinea;
+        mSoloTiempos = soloTiempos;
+        mTiemposRelativos = tiemposRelativos;
+    }
+    
+    /** Construye un nuevo ParserCSV que continua traduciendo filas de unos
+     * datos ya existentes
+     * 
+     * @param primeraLinea el numero de linea que tiene la primera linea que se
+     *      traducira, empleado para los mensajes de error
+     * @param numDatos el numero de columnas de datos que han de tener las
+     *      filas (sin incluir el tiempo)
+     * @param tiempoInicial el tiempo absoluto de la ultima fila ya existente,
+     *      al que se sumaran los tiempos relativos de las nuevas filas */
+    ParserCSV(long primeraLinea, int numDatos, double tiempoInicial) {
+        this(primeraLinea);
+        
+        mDatos = new ColumnaDoubles[numDatos];
+        for (int j = 0; j < numDatos; j++) {
+            mDatos[j] = new ColumnaDoubles(1024);
+        }
+        mFila = new double[numDatos];
+        mTiempoAcumulado = tiempoInicial;
+    }
+    
+    /** @return el numero de columnas de datos de las filas (sin incluir el
+     *      tiempo) o -1 si todavia no se ha traducido ninguna fila */
+    int getNumDatos() {
+        return (mDatos != null)? mDatos.length : -1;
+    }
+    
+    /** @return el numero de filas traducidas que todavia no se han volcado */
+    int getNumFilas() {
+        return mTiempos.size();
+    }
+    
+    /** @return los tiempos absolutos de las filas traducidas que todavia no
+     *      se han volcado, el array puede ser mas largo que el numero de
+     *      filas */
+    double[] getTiempos() {
+        return mTiempos.getArray();
+    }
+    
+    /** @return el numero de la linea que se va a traducir */
+    long getLinea() {
+        return mLinea;
+    }
+    
+    /** Transforma en absolutos los tiempos relativos de las filas traducidas
+     * que todavia no se han volcado, sumandolos uno a uno en orden a partir
+     * del tiempo dado
+     * 
+     * @param tiempoInicial el tiempo absoluto de la fila anterior a la
+     *      primera fila traducida
+     * @return el tiempo absoluto de la ultima fila traducida, o el tiempo
+     *      inicial si no hay ninguna */
+    double acumulaTiempos(double tiempoInicial) {
+        assert mTiemposRelativos;
+        return mTiempos.acumula(tiempoInicial);
+    }
+    
+    /** Añade las filas traducidas a los datos dados y las elimina del parser
+     * 
+     * @param destino los datos donde queremos guardar las filas */
+    void vuelca(DatosSensores destino) {
+        if (mDatos != null && mTiempos.size() > 0) {
+            double[][] columnas = new double[mDatos.length][];
+            for (int j = 0; j < mDatos.length; j++) {
+                columnas[j] = mDatos[j].getArray();
+                mDatos[j].clear();
+            }
+            
+            destino.addDatos(mTiempos.getArray(), columnas, mTiempos.size());
+            mTiempos.clear();
+        }
+    }
+    
+    /** Traduce todas las lineas completas (terminadas en salto de linea) que
+     * hay en el rango dado del buffer
+     * 
+     * @param buffer el buffer con los bytes que queremos traducir
+     * @param inicio la posicion del primer byte a traducir
+     * @param fin la posicion siguiente al ultimo byte a traducir
+     * @return la posicion siguiente al ultimo salto de linea encontrado, es
+     *      decir, el comienzo de la primera linea que no se ha traducido */
+    int parseaLineas(ByteBuffer buffer, int inicio, int fin)
+            throws DatosFormatException {
+        
+        int inicioLinea = inicio;
+        for (int i = inicio; i < fin; i++) {
+            if (buffer.get(i) == '\n') {
+                parseaLinea(buffer, inicioLinea, i);
+                inicioLinea = i + 1;
+            }
+        }
+        
+        return inicioLinea;
+    }
+    
+    /** Traduce una linea del buffer
+     * 
+     * @param buffer el buffer con los bytes que queremos traducir
+     * @param inicio la posicion del primer byte de la linea
+     * @param fin la posicion siguiente al ultimo byte de la linea (sin
+     *      incluir el salto de linea) */
+    void parseaLinea(ByteBuffer buffer, int inicio, int fin)
+            throws DatosFormatException {
+        
+        if ((fin > inicio) && (buffer.get(fin - 1) == '\r')) { fin--; }
+        while ((fin > inicio) && (buffer.get(fin - 1) == ';')) { fin--; }
+        if (mDatos == null) { iniciaColumnas(buffer, inicio, fin); }
+        
+        // Traducimos los campos de la fila
+        double tiempo = parseaCampo(buffer, inicio, inicio, fin);
+        if (mSoloTiempos) {
+            parseaSoloTiempo(buffer, inicio, fin, tiempo);
+            return;
+        }
+        for (int j = 0; j < mFila.length; j++) {
+            if (mPosicion >= fin) {
+                throw new DatosFormatException(mLinea, mPosicion - inicio + 1);
+            }
+            mFila[j] = parseaCampo(buffer, inicio, mPosicion + 1, fin);
+        }
+        if (mPosicion < fin) {
+            throw new DatosFormatException(mLinea, mPosicion - inicio + 1);
+        }
+        
+        // Añadimos la fila a las columnas
+        anadeTiempo(tiempo);
+        for (int j = 0; j < mFila.length; j++) {
+            mDatos[j].add(mFila[j]);
+        }
+        mLinea++;
+    }
+    
+    /** Traduce unicamente el campo dado de todas las lineas que hay en el
+     * rango dado del buffer, incluida la ultima aunque no termine en salto de
+     * linea
+     * 
+     * @param buffer el buffer con los bytes que queremos traducir
+     * @param inicio la posicion del primer byte de la primera linea
+     * @param fin la posicion siguiente al ultimo byte a traducir
+     * @param campo el indice del campo que queremos traducir, siendo 0 el
+     *      tiempo relativo
+     * @param destino el array donde se guardaran los valores del campo
+     * @param fila la posicion del array donde se guardara el valor de la
+     *      primera linea
+     * @return la posicion del array siguiente al valor de la ultima linea */
+    int parseaColumna(ByteBuffer buffer, int inicio, int fin, int campo,
+            double[] destino, int fila) throws DatosFormatException {
+        
+        int inicioLinea = inicio;
+        for (int i = inicio; i < fin; i++) {
+            if (buffer.get(i) == '\n') {
+                destino[fila++] = parseaCampoLinea(buffer, inicioLinea, i, campo);
+                inicioLinea = i + 1;
+            }
+        }
+        if (inicioLinea < fin) {
+            destino[fila++] = parseaCampoLinea(buffer, inicioLinea, fin, campo);
+        }
+        
+        return fila;
+    }
+
+// Funciones privadas
+    /** Añade el tiempo de una nueva fila a la columna de tiempos
+     * 
+     * @param tiempo el tiempo relativo de la fila */
+    private void anadeTiempo(double tiempo) {
+        if (mTiemposRelativos) {
+            mTiempos.add(tiempo);
+        } else {
+            mTiempoAcumulado += tiempo;
+            mTiempos.add(mTiempoAcumulado);
+        }
+    }
+    
+    /** Termina de traducir una linea de la que solo se guarda el tiempo,
+     * comprobando que tiene el numero de campos correcto
+     * 
+     * @param buffer el buffer con los bytes de la linea
+     * @param inicio la posicion del primer byte de la linea
+     * @param fin la posicion siguiente al ultimo byte de la linea
+     * @param tiempo el tiempo relativo ya traducido de la linea */
+    private void parseaSoloTiempo(ByteBuffer buffer, int inicio, int fin,
+            double tiempo) throws DatosFormatException {
+        
+        int numCampos = 0;
+        for (int i = mPosicion; i < fin; i++) {
+            if (buffer.get(i) == ';') { numCampos++; }
+        }
+        if (numCampos != mFila.length) {
+            throw new DatosFormatException(mLinea, mPosicion - inicio + 1);
+        }
+        
+        anadeTiempo(tiempo);
+        mLinea++;
+    }
+    
+    /** Traduce unicamente el campo dado de una linea
+     * 
+     * @param buffer el buffer con los bytes de la linea
+     * @param inicio la posicion del primer byte de la linea
+     * @param fin la posicion siguiente al ultimo byte de la linea (sin
+     *      incluir el salto de linea)
+     * @param campo el indice del campo que queremos traducir, siendo 0 el
+     *      tiempo relativo
+     * @return el valor del campo */
+    private double parseaCampoLinea(ByteBuffer buffer, int inicio, int fin,
+            int campo) throws DatosFormatException {
+        
+        if ((fin > inicio) && (buffer.get(fin - 1) == '\r')) { fin--; }
+        
+        // Saltamos los campos anteriores
+        int i = inicio;
+        for (int c = 0; c < campo; c++) {
+            while ((i < fin) && (buffer.get(i) != ';')) { i++; }
+            if (i >= fin) {
+                throw new DatosFormatException(mLinea, i - inicio + 1);
+            }
+            i++;
+        }
+        
+        double ret = parseaCampo(buffer, inicio, i, fin);
+        mLinea++;
+        return ret;
+    }
+    
+    /** Crea las columnas de datos a partir del numero de campos de la primera
+     * linea traducida
+     * 
+     * @param buffer el buffer con los bytes de la linea
+     * @param inicio la posicion del primer byte de la linea
+     * @param fin la posicion siguiente al ultimo byte de la linea */
+    private void iniciaColumnas(ByteBuffer buffer, int inicio, int fin)
+            throws DatosFormatException {
+        
+        int numDatos = 0;
+        for (int i = inicio; i < fin; i++) {
+            if (buffer.get(i) == ';') { numDatos++; }
+        }
+        
+        if ((numDatos != 1) && (numDatos != 3)) {
+            throw new DatosFormatException(mLinea, 1);
+        }
+        
+        mDatos = new ColumnaDoubles[numDatos];
+        for (int j = 0; j < numDatos; j++) {
+            mDatos[j] = new ColumnaDoubles(1024);
+        }
+        mFila = new double[numDatos];
+    }
+    
+    /** Traduce el valor numerico del campo que empieza en la posicion dada y
+     * termina en el siguiente ';' o en el final de la linea. Al terminar
+     * mPosicion queda apuntando al final del campo.
+     * 
+     * @param buffer el buffer con los bytes de la linea
+     * @param inicioLinea la posicion del primer byte de la linea
+     * @param inicio la posicion del primer byte del campo
+     * @param fin la posicion siguiente al ultimo byte de la linea
+     * @return el valor traducido */
+    private double parseaCampo(ByteBuffer buffer, int inicioLinea, int inicio,
+            int fin) throws DatosFormatException {
+        
+        int i = inicio;
+        byte b = (i < fin)? buffer.get(i) : 0;
+        
+        // Signo
+        boolean negativo = (b == '-');
+        if (negativo || (b == '+')) { i++; }
+        
+        // Parte entera y decimal
+        long mantisa = 0;
+        int exponente = 0, numDigitos = 0;
+        boolean exacto = true, decimal = false;
+        for (; i < fin; i++) {
+            b = buffer.get(i);
+            if ((b >= '0') && (b <= '9')) {
+                if (mantisa < MAX_MANTISA) {
+                    mantisa = 10 * mantisa + (b - '0');
+                    if (decimal) { exponente--; }
+                } else {
+                    exacto = false;
+                }
+                numDigitos++;
+            } else if ((b == '.') && !decimal) {
+                decimal = true;
+            } else {
+                break;
+            }
+        }
+        
+        // Exponente
+        if ((i < fin) && (numDigitos > 0) && ((b == 'e') || (b == 'E'))) {
+            i++;
+            b = (i < fin)? buffer.get(i) : 0;
+            boolean expNegativo = (b == '-');
+            if (expNegativo || (b == '+')) { i++; }
+            
+            int exp = 0, numDigitosExp = 0;
+            for (; i < fin; i++) {
+                b = buffer.get(i);
+                if ((b < '0') || (b > '9')) { break; }
+                if (exp < 1000) { exp = 10 * exp + (b - '0'); }
+                numDigitosExp++;
+            }
+            if (numDigitosExp == 0) { exacto = false; }
+            exponente += expNegativo? -exp : exp;
+        }
+        
+        if ((i < fin) && (buffer.get(i) != ';')) { exacto = false; }
+        if ((numDigitos == 0) || (mantisa > MAX_MANTISA)
+            || (exponente < -22) || (exponente > 22)) {
+            exacto = false;
+        }
+        
+        // Si el valor no se puede calcular de forma exacta empleamos el
+        // metodo general
+        if (!exacto) {
+            return parseaCampoLento(buffer, inicioLinea, inicio, fin);
+        }
+        
+        mPosicion = i;
+        double valor = (exponente >= 0)?
+            mantisa * POTENCIAS_10[exponente] : mantisa / POTENCIAS_10[-exponente];
+        return negativo? -valor : valor;
+    }
+    
+    /** Traduce el valor numerico del campo que empieza en la posicion dada
+     * mediante Double.parseDouble. Al terminar mPosicion queda apuntando al
+     * final del campo.
+     * 
+     * @param buffer el buffer con los bytes de la linea
+     * @param inicioLinea la posicion del primer byte de la linea
+     * @param inicio la posicion del primer byte del campo
+     * @param fin la posicion siguiente al ultimo byte de la linea
+     * @return el valor traducido */
+    private double parseaCampoLento(ByteBuffer buffer, int inicioLinea,
+            int inicio, int fin) throws DatosFormatException {
+        
+        int finCampo = inicio;
+        while ((finCampo < fin) && (buffer.get(finCampo) != ';')) { finCampo++; }
+        
+        byte[] bytes = new byte[finCampo - inicio];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(inicio + i);
+        }
+        
+        try {
+            mPosicion = finCampo;
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new DatosFormatException(mLinea, inicio - inicioLinea + 1);
+        }
+    }
+    
+}
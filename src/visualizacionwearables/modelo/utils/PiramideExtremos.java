@@ -0,0 +1,269 @@
+package visualizacionwearables.modelo.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Clase PiramideExtremos
+ * Guarda el minimo y el maximo de una columna de unos datos a varias
+ * resoluciones, de forma que los extremos de cualquier rango de filas se
+ * calculan en un tiempo logaritmico respecto al numero de filas.
+ * <br>El nivel 0 de la piramide guarda los extremos de cada grupo de
+ * FILAS_POR_HOJA filas consecutivas, y cada nodo de los siguientes niveles
+ * guarda los extremos de dos nodos consecutivos del nivel anterior. Un rango
+ * de filas se descompone en los nodos mas grandes que contiene, recorriendo
+ * unicamente las filas de sus extremos que no llegan a formar una hoja.
+ * <br>Como las filas solo se añaden al final de los datos, la piramide se
+ * completa con las nuevas filas segun se consultan. Las hojas se calculan en
+ * un hilo en segundo plano, que publica la piramide cada cierto numero de
+ * hojas, de forma que se puede consultar desde varios hilos sin bloquear.
+ * Mientras tanto se recorren las filas que todavia no resume la ultima
+ * piramide publicada.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+final class PiramideExtremos {
+    
+    /** El logaritmo en base 2 del numero de filas de cada hoja */
+    private static final int BITS_HOJA = 8;
+    
+    /** El numero de filas resumidas en cada nodo del nivel 0 */
+    static final int FILAS_POR_HOJA = 1 << BITS_HOJA;
+    
+    /** El numero maximo de niveles de la piramide */
+    private static final int MAX_NIVELES = 32;
+    
+    /** El numero de hojas que se calculan de una vez */
+    private static final int HOJAS_POR_LECTURA = 256;
+    
+    /** El numero de hojas que se calculan antes de volver a publicar la
+     * piramide */
+    private static final int HOJAS_POR_PUBLICACION = 16 * HOJAS_POR_LECTURA;
+    
+    /** El hilo en el que se calculan las piramides de todos los datos */
+    private static final ExecutorService EJECUTOR =
+        Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread ret = new Thread(r, "PiramideExtremos");
+                ret.setDaemon(true);
+                return ret;
+            }
+        });
+    
+    /** Los datos de los que se calculan los extremos */
+    private final DatosSensores mDatos;
+    
+    /** La columna de los datos de la que se calculan los extremos */
+    private final int mColumna;
+    
+    /** Los minimos y maximos de cada nivel, indexados como [nivel][nodo].
+     * Solo se modifican desde el hilo de EJECUTOR */
+    private final double[][] mMinimos, mMaximos;
+    
+    /** El numero de nodos calculados de cada nivel */
+    private final int[] mNumNodos;
+    
+    /** La ultima piramide publicada, null si todavia no se ha publicado
+     * ninguna */
+    private volatile Estado mEstado;
+    
+    /** Si ya se ha programado un calculo de la piramide que todavia no ha
+     * empezado */
+    private final AtomicBoolean mPendiente;
+    
+    
+    /** Construye una nueva PiramideExtremos vacia
+     * 
+     * @param datos los datos de los que se calculan los extremos
+     * @param columna la columna de los datos */
+    PiramideExtremos(DatosSensores datos, int columna) {
+        mDatos = datos;
+        mColumna = columna;
+        mMinimos = new double[MAX_NIVELES][];
+        mMaximos = new double[MAX_NIVELES][];
+        mNumNodos = new int[MAX_NIVELES];
+        mEstado = null;
+        mPendiente = new AtomicBoolean(false);
+    }
+    
+    /** Calcula el valor minimo y maximo de las filas dadas, ignorando los
+     * valores NaN. Si la ultima piramide publicada no resume todas las filas
+     * se programa su calculo en segundo plano
+     * 
+     * @param fila la posicion de la primera fila
+     * @param numFilas el numero de filas
+     * @param extremos el array donde se guardaran el minimo y el maximo en
+     *      ese orden. Si no hay ningun valor seran +infinito y -infinito */
+    void getExtremos(int fila, int numFilas, double[] extremos) {
+        
+        int fin = fila + numFilas,
+            hojaInicial = (fila + FILAS_POR_HOJA - 1) >>> BITS_HOJA,
+            hojaFinal = fin >>> BITS_HOJA;
+        
+        // Solo empleamos las hojas de la ultima piramide publicada
+        Estado estado = mEstado;
+        int numHojas = (estado != null)? estado.mNumHojas : 0;
+        if (hojaFinal > numHojas) {
+            programaCalculo();
+            hojaFinal = numHojas;
+        }
+        
+        if (hojaInicial >= hojaFinal) {
+            mDatos.calculaExtremos(mColumna, fila, numFilas, extremos);
+            return;
+        }
+        
+        // Los nodos publicados no cambian, y los nuevos se añaden en
+        // posiciones posteriores, por lo que no hace falta bloquear
+        double[][] minimos = estado.mMinimos, maximos = estado.mMaximos;
+        
+        // Recorremos las filas que no llegan a formar una hoja o que todavia
+        // no resume la piramide
+        double minimo, maximo;
+        mDatos.calculaExtremos(mColumna, fila, (hojaInicial << BITS_HOJA) - fila, extremos);
+        minimo = extremos[0];
+        maximo = extremos[1];
+        mDatos.calculaExtremos(mColumna, hojaFinal << BITS_HOJA, fin - (hojaFinal << BITS_HOJA), extremos);
+        minimo = Math.min(minimo, extremos[0]);
+        maximo = Math.max(maximo, extremos[1]);
+        
+        // Subimos por la piramide tomando los nodos de los bordes del rango
+        // que no se pueden unir con su pareja
+        int inicio = hojaInicial, limite = hojaFinal;
+        for (int nivel = 0; inicio < limite; nivel++) {
+            if ((inicio & 1) != 0) {
+                minimo = Math.min(minimo, minimos[nivel][inicio]);
+                maximo = Math.max(maximo, maximos[nivel][inicio]);
+                inicio++;
+            }
+            if ((limite & 1) != 0) {
+                limite--;
+                minimo = Math.min(minimo, minimos[nivel][limite]);
+                maximo = Math.max(maximo, maximos[nivel][limite]);
+            }
+            inicio >>>= 1;
+            limite >>>= 1;
+        }
+        
+        extremos[0] = minimo;
+        extremos[1] = maximo;
+    }
+
+// Funciones privadas
+    /** Programa el calculo de la piramide en segundo plano si todavia no
+     * hay ninguno programado */
+    private void programaCalculo() {
+        if (mPendiente.compareAndSet(false, true)) {
+            EJECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mPendiente.set(false);
+                    actualiza();
+                }
+            });
+        }
+    }
+    
+    /** Calcula las hojas de las filas añadidas desde el ultimo calculo y los
+     * nodos de los niveles superiores que se pueden formar con ellas,
+     * publicando la piramide cada HOJAS_POR_PUBLICACION hojas */
+    private void actualiza() {
+        
+        int numHojas = mDatos.getNumRows() >>> BITS_HOJA;
+        if (mNumNodos[0] >= numHojas) { return; }
+        
+        double[] valores = new double[HOJAS_POR_LECTURA * FILAS_POR_HOJA];
+        int hojasPublicadas = mNumNodos[0];
+        while (mNumNodos[0] < numHojas) {
+            int hoja = mNumNodos[0],
+                n = Math.min(HOJAS_POR_LECTURA, numHojas - hoja);
+            mDatos.getDatos(mColumna, hoja << BITS_HOJA, n << BITS_HOJA, valores);
+            
+            for (int h = 0; h < n; h++) {
+                double minimo = Double.POSITIVE_INFINITY, maximo = Double.NEGATIVE_INFINITY;
+                for (int k = h << BITS_HOJA; k < (h + 1) << BITS_HOJA; k++) {
+                    if (valores[k] < minimo) { minimo = valores[k]; }
+                    if (valores[k] > maximo) { maximo = valores[k]; }
+                }
+                agregaNodo(0, minimo, maximo);
+            }
+            
+            if ((mNumNodos[0] - hojasPublicadas >= HOJAS_POR_PUBLICACION)
+                || (mNumNodos[0] == numHojas)) {
+                publica();
+                hojasPublicadas = mNumNodos[0];
+            }
+        }
+    }
+    
+    /** Calcula los nodos de los niveles superiores que se pueden formar con
+     * las hojas calculadas y publica la piramide para el resto de hilos */
+    private void publica() {
+        
+        // Cada nodo de un nivel superior se forma con dos nodos del anterior
+        for (int nivel = 0; (nivel + 1 < MAX_NIVELES) && (mNumNodos[nivel] >= 2); nivel++) {
+            while (mNumNodos[nivel + 1] < mNumNodos[nivel] / 2) {
+                int nodo = 2 * mNumNodos[nivel + 1];
+                agregaNodo(
+                    nivel + 1,
+                    Math.min(mMinimos[nivel][nodo], mMinimos[nivel][nodo + 1]),
+                    Math.max(mMaximos[nivel][nodo], mMaximos[nivel][nodo + 1])
+                );
+            }
+        }
+        
+        mEstado = new Estado(mNumNodos[0], mMinimos.clone(), mMaximos.clone());
+    }
+    
+    /** Añade un nuevo nodo al final del nivel dado
+     * 
+     * @param nivel el nivel del nodo
+     * @param minimo el minimo de las filas del nodo
+     * @param maximo el maximo de las filas del nodo */
+    private void agregaNodo(int nivel, double minimo, double maximo) {
+        
+        int nodo = mNumNodos[nivel];
+        if (mMinimos[nivel] == null) {
+            mMinimos[nivel] = new double[16];
+            mMaximos[nivel] = new double[16];
+        } else if (nodo >= mMinimos[nivel].length) {
+            mMinimos[nivel] = Arrays.copyOf(mMinimos[nivel], 2 * nodo);
+            mMaximos[nivel] = Arrays.copyOf(mMaximos[nivel], 2 * nodo);
+        }
+        
+        mMinimos[nivel][nodo] = minimo;
+        mMaximos[nivel][nodo] = maximo;
+        mNumNodos[nivel] = nodo + 1;
+    }
+    
+    
+    /** Los niveles de una piramide publicada junto con el numero de hojas
+     * que resumen */
+    private static class Estado {
+        
+        /** El numero de hojas del nivel 0 */
+        private final int mNumHojas;
+        
+        /** Los minimos y maximos de cada nivel, indexados como [nivel][nodo] */
+        private final double[][] mMinimos, mMaximos;
+        
+        /** Construye un nuevo Estado
+         * 
+         * @param numHojas el numero de hojas del nivel 0
+         * @param minimos los minimos de cada nivel
+         * @param maximos los maximos de cada nivel */
+        Estado(int numHojas, double[][] minimos, double[][] maximos) {
+            mNumHojas = numHojas;
+            mMinimos = minimos;
+            mMaximos = maximos;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,213 @@
+package visualizacionwearables.modelo.utils;
+
+/**
+ * Clase PuntosEscalados, representa los puntos de las filas visibles de una
+ * columna de unos datos en las coordenadas del grafico, sin crear un Punto por
+ * cada fila.
+ * <br>Las coordenadas de cada punto se calculan al consultarlas mediante las
+ * mismas operaciones que Punto.scaleX y Punto.scaleY. El primer y el ultimo
+ * punto se sustituyen por los puntos interpolados en los limites de la zona
+ * visible, de forma que el eje X de los puntos va exactamente de minX a maxX.
+ * <br>Como los tiempos de las filas son crecientes, las coordenadas X de los
+ * puntos tambien lo son, por lo que se pueden buscar mediante busquedas
+ * binarias.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class PuntosEscalados {
+    
+    /** Las filas visibles de los datos */
+    private final RangoFilas mFilas;
+    
+    /** La columna de los datos que se muestra en el eje Y */
+    private final int mColumna;
+    
+    /** Los rangos actuales y los del grafico de cada eje */
+    private final double mCurMinX, mCurMaxX, mMinX, mMaxX,
+                         mCurMinY, mCurMaxY, mMinY, mMaxY;
+    
+    /** Las coordenadas del grafico de los puntos interpolados en los limites
+     * de la zona visible */
+    private double mXInicial, mYInicial, mXFinal, mYFinal;
+    
+    
+    /** Construye unos nuevos PuntosEscalados
+     * 
+     * @param filas las filas visibles, incluyendo la anterior y la posterior
+     *      a los limites de la zona visible si existen
+     * @param columna la columna de los datos que se muestra en el eje Y
+     * @param limiteInferior el tiempo del limite inferior de la zona visible
+     * @param limiteSuperior el tiempo del limite superior de la zona visible
+     * @param curMinY el minimo valor de la columna que se ajusta a minY
+     * @param curMaxY el maximo valor de la columna que se ajusta a maxY
+     * @param minX el minimo valor en el eje X en las coordenadas del grafico
+     * @param maxX el maximo valor en el eje X en las coordenadas del grafico
+     * @param minY el minimo valor en el eje Y en las coordenadas del grafico
+     * @param maxY el maximo valor en el eje Y en las coordenadas del grafico */
+    public PuntosEscalados(RangoFilas filas, int columna,
+            double limiteInferior, double limiteSuperior,
+            double curMinY, double curMaxY,
+            double minX, double maxX, double minY, double maxY) {
+        
+        assert filas.getNumFilas() > 0 : "No hay filas visibles";
+        
+        mFilas = filas;
+        mColumna = columna;
+        mMinX = minX;
+        mMaxX = maxX;
+        mCurMinY = curMinY;
+        mCurMaxY = curMaxY;
+        mMinY = minY;
+        mMaxY = maxY;
+        
+        int n = filas.getNumFilas();
+        if (n > 1) {
+            mCurMinX = limiteInferior;
+            mCurMaxX = limiteSuperior;
+            
+            // Interpolamos los extremos con los valores ya escalados en el
+            // eje Y, el final a partir del inicial si solo hay dos filas
+            mYInicial = interpola(
+                limiteInferior,
+                filas.getTiempo(0), escalaY(filas.getDatos(columna, 0)),
+                filas.getTiempo(1), escalaY(filas.getDatos(columna, 1))
+            );
+            double xAnterior = (n == 2)? limiteInferior : filas.getTiempo(n - 2),
+                   yAnterior = (n == 2)? mYInicial : escalaY(filas.getDatos(columna, n - 2));
+            mYFinal = interpola(
+                limiteSuperior,
+                xAnterior, yAnterior,
+                filas.getTiempo(n - 1), escalaY(filas.getDatos(columna, n - 1))
+            );
+            
+            mXInicial = escalaX(limiteInferior);
+            mXFinal = escalaX(limiteSuperior);
+        } else {
+            mCurMinX = filas.getTiempo(0);
+            mCurMaxX = mCurMinX;
+        }
+    }
+    
+    /** @return las filas de los datos de las que se obtienen los puntos */
+    public RangoFilas getFilas() {
+        return mFilas;
+    }
+    
+    /** @return la columna de los datos que se muestra en el eje Y */
+    public int getColumna() {
+        return mColumna;
+    }
+    
+    /** @return el numero de puntos */
+    public int getNumPuntos() {
+        return mFilas.getNumFilas();
+    }
+    
+    /** @param punto el indice del punto
+     * @return la coordenada X del punto en el grafico */
+    public double getX(int punto) {
+        int n = mFilas.getNumFilas();
+        if ((n > 1) && (punto == 0)) { return mXInicial; }
+        if ((n > 1) && (punto == n - 1)) { return mXFinal; }
+        return escalaX(mFilas.getTiempo(punto));
+    }
+    
+    /** @param punto el indice del punto
+     * @return la coordenada Y del punto en el grafico, con el origen abajo */
+    public double getY(int punto) {
+        int n = mFilas.getNumFilas();
+        if ((n > 1) && (punto == 0)) { return mYInicial; }
+        if ((n > 1) && (punto == n - 1)) { return mYFinal; }
+        return escalaY(mFilas.getDatos(mColumna, punto));
+    }
+    
+    /** Copia las coordenadas de los puntos dados a los arrays dados,
+     * obteniendo los valores de todas sus filas de una vez
+     * 
+     * @param punto el indice del primer punto a copiar
+     * @param numPuntos el numero de puntos a copiar
+     * @param x el array donde se copiaran las coordenadas X de los puntos,
+     *      empezando por su primera posicion
+     * @param y el array donde se copiaran las coordenadas Y de los puntos,
+     *      con el origen abajo, empezando por su primera posicion */
+    public void getPuntos(int punto, int numPuntos, double[] x, double[] y) {
+        
+        mFilas.getTiempos(punto, numPuntos, x);
+        mFilas.getDatos(mColumna, punto, numPuntos, y);
+        for (int i = 0; i < numPuntos; i++) {
+            x[i] = escalaX(x[i]);
+            y[i] = escalaY(y[i]);
+        }
+        
+        int n = mFilas.getNumFilas();
+        if ((n > 1) && (numPuntos > 0)) {
+            if (punto == 0) {
+                x[0] = mXInicial;
+                y[0] = mYInicial;
+            }
+            if (punto + numPuntos == n) {
+                x[numPuntos - 1] = mXFinal;
+                y[numPuntos - 1] = mYFinal;
+            }
+        }
+    }
+    
+    /** Busca mediante una busqueda binaria el primer punto del rango dado
+     * cuya coordenada X es mayor o igual que la dada
+     * 
+     * @param x la coordenada X a buscar
+     * @param inicio el indice del primer punto del rango
+     * @param fin el indice siguiente al ultimo punto del rango
+     * @return el indice del punto, fin si todos los puntos del rango tienen
+     *      una coordenada X menor */
+    public int buscaPunto(double x, int inicio, int fin) {
+        while (inicio < fin) {
+            int medio = (inicio + fin) >>> 1;
+            if (getX(medio) < x) {
+                inicio = medio + 1;
+            } else {
+                fin = medio;
+            }
+        }
+        
+        return inicio;
+    }
+    
+    /** @param valor un valor de la columna de los datos
+     * @return la coordenada Y del valor en el grafico, con el origen abajo */
+    public double escalaY(double valor) {
+        double y = (valor - mCurMinY) / (mCurMaxY - mCurMinY);
+        return (mMaxY - mMinY) * y + mMinY;
+    }
+
+// Funciones privadas
+    /** @param tiempo el tiempo de una fila
+     * @return la coordenada X del tiempo en el grafico */
+    private double escalaX(double tiempo) {
+        double x = (tiempo - mCurMinX) / (mCurMaxX - mCurMinX);
+        return (mMaxX - mMinX) * x + mMinX;
+    }
+    
+    /** Interpola la coordenada Y del valor X dado en la recta formada por
+     * los dos puntos dados. Si la X no esta entre las de los dos puntos, lo
+     * que ocurre con las filas de un nivel de detalle, se devuelve la Y del
+     * punto mas cercano, y si los dos puntos tienen la misma X la del
+     * anterior
+     * 
+     * @param x la coordenada X del punto a interpolar
+     * @param x1 la coordenada X del punto anterior
+     * @param y1 la coordenada Y del punto anterior
+     * @param x2 la coordenada X del punto siguiente
+     * @param y2 la coordenada Y del punto siguiente
+     * @return la coordenada Y interpolada */
+    private static double interpola(double x, double x1, double y1, double x2, double y2) {
+        if (x <= x1) { return y1; }
+        if (x >= x2) { return y2; }
+        
+        double m = (y2 - y1) / (x2 - x1);
+        return m * (x - x1) + y1;
+    }
+    
+}
@@ -0,0 +1,123 @@
+package visualizacionwearables.modelo.utils;
+
+/**
+ * Clase RangoFilas, permite consultar un rango de filas consecutivas de unos
+ * datos como si fuesen una tabla independiente, sin copiar sus valores.
+ * <br>Las filas del rango se indexan desde 0, de forma que la fila i del rango
+ * es la fila getPrimeraFila() + i de los datos.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class RangoFilas {
+    
+    /** Los datos de los que forman parte las filas */
+    private final DatosSensores mDatos;
+    
+    /** La posicion en los datos de la primera fila del rango */
+    private final int mPrimeraFila;
+    
+    /** El numero de filas del rango */
+    private final int mNumFilas;
+    
+    
+    /** Construye un nuevo RangoFilas
+     * 
+     * @param datos los datos de los que forman parte las filas. No han de
+     *      cambiar las filas del rango mientras se consulta, por lo que se
+     *      recomienda emplear una instantanea de los datos
+     * @param primeraFila la posicion en los datos de la primera fila
+     * @param numFilas el numero de filas del rango */
+    public RangoFilas(DatosSensores datos, int primeraFila, int numFilas) {
+        
+        assert primeraFila >= 0 && numFilas >= 0
+            && primeraFila + numFilas <= datos.getNumRows() :
+            "No se puede acceder a las filas [" + primeraFila + ", " + (primeraFila + numFilas) + ')';
+        
+        mDatos = datos;
+        mPrimeraFila = primeraFila;
+        mNumFilas = numFilas;
+    }
+    
+    /** @return los datos de los que forman parte las filas */
+    public DatosSensores getDatosSensores() {
+        return mDatos;
+    }
+    
+    /** @return la posicion en los datos de la primera fila del rango */
+    public int getPrimeraFila() {
+        return mPrimeraFila;
+    }
+    
+    /** @return el numero de filas del rango */
+    public int getNumFilas() {
+        return mNumFilas;
+    }
+    
+    /** Devuelve el tiempo de la fila dada del rango
+     * 
+     * @param fila la posicion de la fila en el rango
+     * @return el tiempo de la fila */
+    public double getTiempo(int fila) {
+        
+        assert fila >= 0 && fila < mNumFilas :
+            "No se puede acceder a la fila '" + fila + "' del rango";
+        
+        return mDatos.getTiempo(mPrimeraFila + fila);
+    }
+    
+    /** Devuelve el valor de la columna dada de la fila dada del rango
+     * 
+     * @param columna el indice de la columna del dato
+     * @param fila la posicion de la fila en el rango
+     * @return el valor del dato */
+    public double getDatos(int columna, int fila) {
+        
+        assert fila >= 0 && fila < mNumFilas :
+            "No se puede acceder a la fila '" + fila + "' del rango";
+        
+        return mDatos.getDatos(columna, mPrimeraFila + fila);
+    }
+    
+    /** Copia los tiempos de las filas dadas del rango al array dado
+     * 
+     * @param fila la posicion en el rango de la primera fila a copiar
+     * @param numFilas el numero de filas a copiar
+     * @param destino el array donde se copiaran los tiempos, empezando por su
+     *      primera posicion */
+    public void getTiempos(int fila, int numFilas, double[] destino) {
+        
+        assert fila >= 0 && numFilas >= 0 && fila + numFilas <= mNumFilas :
+            "No se puede acceder a las filas [" + fila + ", " + (fila + numFilas) + ") del rango";
+        
+        mDatos.getTiempos(mPrimeraFila + fila, numFilas, destino);
+    }
+    
+    /** Copia los valores de la columna dada de las filas dadas del rango al
+     * array dado
+     * 
+     * @param columna el indice de la columna de los datos
+     * @param fila la posicion en el rango de la primera fila a copiar
+     * @param numFilas el numero de filas a copiar
+     * @param destino el array donde se copiaran los valores, empezando por su
+     *      primera posicion */
+    public void getDatos(int columna, int fila, int numFilas, double[] destino) {
+        
+        assert fila >= 0 && numFilas >= 0 && fila + numFilas <= mNumFilas :
+            "No se puede acceder a las filas [" + fila + ", " + (fila + numFilas) + ") del rango";
+        
+        mDatos.getDatos(columna, mPrimeraFila + fila, numFilas, destino);
+    }
+    
+    /** Calcula el valor minimo y maximo de la columna dada en las filas del
+     * rango, ignorando los valores NaN
+     * 
+     * @param columna el indice de la columna de los datos
+     * @param extremos el array donde se guardaran el minimo y el maximo en
+     *      ese orden */
+    public void getExtremos(int columna, double[] extremos) {
+        mDatos.getExtremos(columna, mPrimeraFila, mNumFilas, extremos);
+    }
+    
+}
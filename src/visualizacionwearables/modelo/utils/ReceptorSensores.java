@@ -0,0 +1,194 @@
+package visualizacionwearables.modelo.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException;
+
+/**
+ * Clase ReceptorSensores
+ * Se emplea para recibir en directo los datos de unos sensores a traves de un
+ * socket TCP local. Cada medicion se envia como una linea con el mismo formato
+ * que las filas de los archivos csv ("tiempo;x;y;z"), y se añade a un buffer
+ * circular de capacidad fija.
+ * <br>Los datos se reciben desde un hilo propio, por lo que la recepcion nunca
+ * bloquea al hilo de eventos de Swing. Se acepta una unica conexion a la vez,
+ * y al cerrarse se espera a la siguiente continuando con los tiempos de las
+ * mediciones anteriores.
+ * 
+ * @note las lineas con un formato incorrecto o mas largas que el buffer de
+ * lectura se descartan
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class ReceptorSensores {
+    
+    /** El puerto en el que se reciben los datos si no se indica otro */
+    public static final int PUERTO_POR_DEFECTO = 5555;
+    
+    /** El numero de columnas de datos de las mediciones (x, y, z) */
+    public static final int NUM_DATOS = 3;
+    
+    /** El tamaño en bytes del buffer de lectura, que limita la longitud de
+     * las lineas recibidas */
+    private static final int TAM_BUFFER = 64 * 1024;
+    
+    /** El puerto en el que se reciben los datos */
+    private final int mPuerto;
+    
+    /** Los datos donde se guardan las mediciones recibidas */
+    private final DatosSensoresCirculares mDatos;
+    
+    /** El socket en el que se esperan las conexiones, null si no se estan
+     * recibiendo datos */
+    private ServerSocket mServidor;
+    
+    /** La conexion de la que se estan recibiendo datos, null si no hay
+     * ninguna */
+    private Socket mCliente;
+    
+    
+    /** Construye un nuevo ReceptorSensores
+     * 
+     * @param puerto el puerto local en el que se recibiran los datos
+     * @param capacidad el numero maximo de mediciones que se guardaran */
+    public ReceptorSensores(int puerto, int capacidad) {
+        mPuerto = puerto;
+        mDatos = new DatosSensoresCirculares(
+            "localhost:" + puerto, NUM_DATOS, capacidad
+        );
+    }
+    
+    /** @return los datos donde se guardan las mediciones recibidas */
+    public DatosSensoresCirculares getDatos() {
+        return mDatos;
+    }
+    
+    /** Comienza a esperar conexiones en el puerto del receptor
+     * 
+     * @throws IOException si no se puede abrir el puerto */
+    public synchronized void inicia() throws IOException {
+        
+        if (mServidor != null) { return; }
+        
+        final ServerSocket servidor = new ServerSocket(
+            mPuerto, 1, InetAddress.getByName(null)
+        );
+        mServidor = servidor;
+        
+        Thread hilo = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                recibe(servidor);
+            }
+        }, "ReceptorSensores:" + mPuerto);
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+    
+    /** Deja de recibir datos, cerrando el puerto y la conexion actual */
+    public synchronized void detiene() {
+        
+        cierra(mCliente);
+        cierra(mServidor);
+        mCliente = null;
+        mServidor = null;
+    }
+
+// Funciones privadas
+    /** Acepta las conexiones del socket dado y recibe sus datos hasta que se
+     * cierra el socket
+     * 
+     * @param servidor el socket en el que se esperan las conexiones */
+    private void recibe(ServerSocket servidor) {
+        
+        while (!servidor.isClosed()) {
+            try (Socket cliente = servidor.accept()) {
+                synchronized (this) {
+                    if (servidor != mServidor) { return; }
+                    mCliente = cliente;
+                }
+                
+                // Los tiempos de la nueva conexion continuan desde la ultima
+                // medicion recibida
+                int numFilas = mDatos.getNumRows();
+                double tiempoInicial = (numFilas > 0)? mDatos.getTiempo(numFilas - 1) : 0;
+                ParserCSV parser = new ParserCSV(1, NUM_DATOS, tiempoInicial);
+                
+                recibeMediciones(cliente.getInputStream(), parser);
+            } catch (IOException e) {
+                // La conexion se ha cerrado, esperamos a la siguiente
+            } finally {
+                synchronized (this) {
+                    mCliente = null;
+                }
+            }
+        }
+    }
+    
+    /** Lee las mediciones de la entrada dada y las añade a los datos hasta
+     * que se cierra la entrada
+     * 
+     * @param entrada la entrada de la que recibimos las mediciones
+     * @param parser el parser con el que traducimos las mediciones */
+    private void recibeMediciones(InputStream entrada, ParserCSV parser)
+            throws IOException {
+        
+        byte[] bytes = new byte[TAM_BUFFER];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        
+        // Los bytes validos del buffer son los del rango [0, fin). Si una
+        // linea no cabe en el buffer se descartan sus bytes hasta el siguiente
+        // salto de linea
+        int fin = 0, leidos;
+        boolean descarta = false;
+        while ((leidos = entrada.read(bytes, fin, bytes.length - fin)) >= 0) {
+            fin += leidos;
+            
+            // Traducimos las lineas completas, descartando las incorrectas
+            int inicio = 0;
+            for (int i = 0; i < fin; i++) {
+                if (bytes[i] == '\n') {
+                    if (!descarta) {
+                        try {
+                            parser.parseaLinea(buffer, inicio, i);
+                        } catch (DatosFormatException e) {
+                            // Descartamos la linea
+                        }
+                    }
+                    descarta = false;
+                    inicio = i + 1;
+                }
+            }
+            parser.vuelca(mDatos);
+            
+            // Movemos la linea incompleta al comienzo del buffer, o la
+            // descartamos si ya lo ocupa entero
+            System.arraycopy(bytes, inicio, bytes, 0, fin - inicio);
+            fin -= inicio;
+            if (fin == bytes.length) {
+                descarta = true;
+                fin = 0;
+            }
+        }
+    }
+    
+    /** Cierra el socket dado ignorando los errores
+     * 
+     * @param socket el socket que queremos cerrar, puede ser null */
+    private void cierra(Closeable socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // El socket ya no se va a volver a emplear
+            }
+        }
+    }
+    
+}
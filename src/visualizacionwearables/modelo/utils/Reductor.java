@@ -0,0 +1,46 @@
+package visualizacionwearables.modelo.utils;
+
+/**
+ * Interfaz Reductor, representa un algoritmo que reduce los puntos visibles
+ * de una columna de unos datos a los necesarios para dibujarlos en un grafico
+ * con el ancho dado.
+ * <br>Los puntos a reducir ya estan escalados a las coordenadas del grafico,
+ * por lo que contienen la columna y el rango de tiempos a mostrar. Los puntos
+ * reducidos se escriben en arrays de coordenadas en vez de crear un objeto
+ * por cada punto.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public interface Reductor {
+    
+    /** @return el nombre del algoritmo, para mostrarlo al usuario */
+    String getNombre();
+    
+    /** @return true si el algoritmo puede reducir las filas de un nivel de
+     *      detalle en vez de las de los datos cuando hay varias filas por
+     *      pixel, false si necesita recorrer todas las filas de los datos */
+    boolean admiteNivelesDetalle();
+    
+    /** Calcula el numero maximo de puntos que puede escribir reduce
+     * 
+     * @param numPuntos el numero de puntos a reducir
+     * @param maxX el maximo valor en el eje X en las coordenadas del grafico,
+     *      de forma que los pixeles del grafico van de 0 a maxX
+     * @return el tamaño que han de tener los arrays de coordenadas */
+    int getMaxPuntos(int numPuntos, int maxX);
+    
+    /** Reduce los puntos dados a los necesarios para dibujarlos
+     * 
+     * @param puntos los puntos a reducir
+     * @param maxX el maximo valor en el eje X en las coordenadas del grafico,
+     *      de forma que los pixeles del grafico van de 0 a maxX
+     * @param x el array donde se escribiran las coordenadas X de los puntos
+     *      reducidos, de al menos getMaxPuntos posiciones
+     * @param y el array donde se escribiran las coordenadas Y de los puntos
+     *      reducidos con el origen abajo, de al menos getMaxPuntos posiciones
+     * @return el numero de puntos reducidos escritos en los arrays */
+    int reduce(PuntosEscalados puntos, int maxX, double[] x, double[] y);
+    
+}
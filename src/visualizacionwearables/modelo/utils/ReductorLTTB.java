@@ -0,0 +1,120 @@
+package visualizacionwearables.modelo.utils;
+
+/**
+ * Clase ReductorLTTB, reduce los puntos a un numero fijo de ellos mediante el
+ * algoritmo Largest-Triangle-Three-Buckets, independientemente del tamaño del
+ * grafico.
+ * <br>Los puntos intermedios se reparten en grupos con el mismo numero de
+ * puntos, y de cada grupo se elige el que forma el triangulo de mayor area con
+ * el punto elegido del grupo anterior y la media del siguiente, de forma que
+ * se conserva la forma de los datos recorriendolos una sola vez.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class ReductorLTTB implements Reductor {
+    
+    /** El numero de puntos a los que se reducen los puntos */
+    private final int mNumPuntos;
+    
+    
+    /** Construye un nuevo ReductorLTTB
+     * 
+     * @param numPuntos el numero de puntos a los que se reducen los puntos,
+     *      al menos 3 */
+    public ReductorLTTB(int numPuntos) {
+        assert numPuntos >= 3 :
+            "No se pueden reducir los datos a " + numPuntos + " puntos";
+        
+        mNumPuntos = numPuntos;
+    }
+    
+    @Override
+    public String getNombre() {
+        return "LTTB (" + mNumPuntos + " puntos)";
+    }
+    
+    @Override
+    public boolean admiteNivelesDetalle() {
+        return true;
+    }
+    
+    @Override
+    public int getMaxPuntos(int numPuntos, int maxX) {
+        return Math.min(numPuntos, mNumPuntos);
+    }
+    
+    @Override
+    public int reduce(PuntosEscalados puntos, int maxX, double[] x, double[] y) {
+        
+        int numPuntos = puntos.getNumPuntos();
+        
+        // Si hay menos puntos que los pedidos los devolvemos todos
+        if (numPuntos <= mNumPuntos) {
+            puntos.getPuntos(0, numPuntos, x, y);
+            return numPuntos;
+        }
+        
+        // El primer y el ultimo punto se conservan siempre
+        x[0] = puntos.getX(0);
+        y[0] = puntos.getY(0);
+        
+        // Cada grupo se lee una sola vez, primero para calcular su media y
+        // despues para elegir uno de sus puntos
+        double tamGrupo = (numPuntos - 2) / (double)(mNumPuntos - 2);
+        int maxTamGrupo = (int)Math.ceil(tamGrupo) + 1;
+        double[] xGrupo = new double[maxTamGrupo], yGrupo = new double[maxTamGrupo],
+                 xSiguiente = new double[maxTamGrupo], ySiguiente = new double[maxTamGrupo];
+        
+        int inicio = 1, fin = (int)tamGrupo + 1;
+        puntos.getPuntos(inicio, fin - inicio, xGrupo, yGrupo);
+        for (int grupo = 0; grupo < mNumPuntos - 2; grupo++) {
+            int finSiguiente = Math.min((int)((grupo + 2) * tamGrupo) + 1, numPuntos);
+            
+            // Calculamos la media del grupo siguiente, que en el caso del
+            // ultimo grupo es el ultimo punto
+            puntos.getPuntos(fin, finSiguiente - fin, xSiguiente, ySiguiente);
+            double xMedia = 0, yMedia = 0;
+            for (int i = 0; i < finSiguiente - fin; i++) {
+                xMedia += xSiguiente[i];
+                yMedia += ySiguiente[i];
+            }
+            xMedia /= finSiguiente - fin;
+            yMedia /= finSiguiente - fin;
+            
+            // Elegimos el punto del grupo con el triangulo de mayor area
+            double xAnterior = x[grupo], yAnterior = y[grupo], maxArea = -1;
+            int elegido = 0;
+            for (int i = 0; i < fin - inicio; i++) {
+                double area = Math.abs(
+                    (xAnterior - xMedia) * (yGrupo[i] - yAnterior)
+                    - (xAnterior - xGrupo[i]) * (yMedia - yAnterior)
+                );
+                if (area > maxArea) {
+                    maxArea = area;
+                    elegido = i;
+                }
+            }
+            
+            x[grupo + 1] = xGrupo[elegido];
+            y[grupo + 1] = yGrupo[elegido];
+            
+            // El grupo siguiente pasa a ser el actual
+            double[] aux = xGrupo;
+            xGrupo = xSiguiente;
+            xSiguiente = aux;
+            aux = yGrupo;
+            yGrupo = ySiguiente;
+            ySiguiente = aux;
+            inicio = fin;
+            fin = finSiguiente;
+        }
+        
+        x[mNumPuntos - 1] = puntos.getX(numPuntos - 1);
+        y[mNumPuntos - 1] = puntos.getY(numPuntos - 1);
+        
+        return mNumPuntos;
+    }
+    
+}
@@ -0,0 +1,94 @@
+package visualizacionwearables.modelo.utils;
+
+/**
+ * Clase ReductorM4, reduce los puntos mediante el algoritmo M4, que conserva
+ * el primer y el ultimo punto y los valores minimo y maximo de cada columna
+ * de pixeles.
+ * <br>A diferencia del Vecino mas Cercano no se pierden los picos de los
+ * datos, ya que una linea que una los puntos reducidos ocupa los mismos
+ * pixeles que una linea que una todos los puntos. Los extremos de cada
+ * columna se consultan a los datos sin recorrer sus filas una a una, y los
+ * pixeles se pueden reducir en paralelo.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class ReductorM4 extends ReductorPorPixeles {
+    
+    @Override
+    public String getNombre() {
+        return "M4";
+    }
+    
+    @Override
+    public boolean admiteNivelesDetalle() {
+        return false;
+    }
+    
+    @Override
+    public int getMaxPuntos(int numPuntos, int maxX) {
+        return 4 * (maxX + 1);
+    }
+    
+    @Override
+    protected int getMaxPuntosPixel() {
+        return 4;
+    }
+    
+    @Override
+    protected int reducePixeles(PuntosEscalados puntos,
+            int primerPixel, int finPixel, double[] x, double[] y) {
+        
+        RangoFilas filas = puntos.getFilas();
+        int numPuntos = puntos.getNumPuntos(), ret = 0;
+        double[] extremos = new double[2];
+        
+        // Los puntos de cada columna de pixeles, en el rango [i - 0.5, i + 0.5)
+        // al redondearse al dibujarlos, son consecutivos
+        int inicio = 0;
+        for (int i = primerPixel; (i < finPixel) && (inicio < numPuntos); i++) {
+            inicio = puntos.buscaPunto(i - 0.5, inicio, numPuntos);
+            int fin = puntos.buscaPunto(i + 0.5, inicio, numPuntos);
+            if (inicio >= fin) { continue; }
+            
+            double xPrimero = puntos.getX(inicio), xUltimo = puntos.getX(fin - 1);
+            x[ret] = xPrimero;
+            y[ret] = puntos.getY(inicio);
+            ret++;
+            
+            if (fin - inicio > 2) {
+                // El primer y el ultimo punto estan interpolados, por lo que
+                // no se tienen en cuenta sus filas
+                int filaInicio = Math.max(inicio + 1, 1),
+                    filaFin = Math.min(fin - 1, numPuntos - 1);
+                filas.getDatosSensores().getExtremos(
+                    puntos.getColumna(), filas.getPrimeraFila() + filaInicio,
+                    filaFin - filaInicio, extremos
+                );
+                
+                // Como todos los puntos estan en la misma columna de pixeles,
+                // basta con situar el minimo y el maximo en sus extremos en
+                // el eje X para cubrir los mismos pixeles
+                if (extremos[0] <= extremos[1]) {
+                    x[ret] = xPrimero;
+                    y[ret] = puntos.escalaY(extremos[0]);
+                    x[ret + 1] = xUltimo;
+                    y[ret + 1] = puntos.escalaY(extremos[1]);
+                    ret += 2;
+                }
+            }
+            
+            if (fin - inicio > 1) {
+                x[ret] = xUltimo;
+                y[ret] = puntos.getY(fin - 1);
+                ret++;
+            }
+            
+            inicio = fin;
+        }
+        
+        return ret;
+    }
+    
+}
@@ -0,0 +1,235 @@
+package visualizacionwearables.modelo.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Clase ReductorPorPixeles, sirve de base a los algoritmos que reducen los
+ * puntos de cada pixel del eje X independientemente de los del resto.
+ * <br>Cuando hay muchos puntos visibles, los pixeles se reparten en tramos
+ * consecutivos que se reducen en paralelo, cada uno en sus propios arrays, y
+ * los puntos de todos los tramos se juntan en orden al terminar. El numero de
+ * tramos depende del numero de puntos, de forma que los rangos pequeños se
+ * siguen reduciendo en un solo hilo.
+ * <br>Como los puntos de cada pixel no dependen de los del resto, al
+ * desplazar la zona visible sin cambiar la escala se pueden reutilizar los
+ * pixeles ya reducidos guardados en un AnilloPixeles.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public abstract class ReductorPorPixeles implements Reductor {
+    
+    /** El pool de hilos compartido con el que se reducen los tramos */
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+    
+    /** El numero minimo de puntos de cada tramo, por debajo del cual no
+     * compensa repartir el trabajo entre varios hilos */
+    private static final int MIN_PUNTOS_TRAMO = 1 << 16;
+    
+    /** El numero de tramos por cada hilo del pool, para repartir mejor el
+     * trabajo si los puntos no estan distribuidos uniformemente */
+    private static final int TRAMOS_POR_HILO = 4;
+    
+    /** Tarea que reduce los puntos de un tramo de pixeles consecutivos */
+    private class Tramo extends RecursiveAction {
+        
+        final PuntosEscalados mPuntos;
+        final int mPrimerPixel, mFinPixel;
+        final double[] mX, mY;
+        int mNumPuntos;
+        
+        Tramo(PuntosEscalados puntos, int primerPixel, int finPixel) {
+            mPuntos = puntos;
+            mPrimerPixel = primerPixel;
+            mFinPixel = finPixel;
+            mX = new double[getMaxPuntosPixel() * (finPixel - primerPixel)];
+            mY = new double[mX.length];
+        }
+        
+        @Override
+        protected void compute() {
+            mNumPuntos = reducePixeles(mPuntos, mPrimerPixel, mFinPixel, mX, mY);
+        }
+    }
+    
+    
+    @Override
+    public int reduce(PuntosEscalados puntos, int maxX, double[] x, double[] y) {
+        int ret = reduceEnParalelo(puntos, 0, getNumPixeles(maxX), x, y);
+        return agregaPuntosFinales(puntos, x, y, ret);
+    }
+    
+    /** Reduce los puntos dados como reduce, pero reduciendo unicamente los
+     * pixeles del anillo dado que todavia no se han reducido y guardando en
+     * el sus puntos.
+     * <br>Los pixeles hasta el del primer punto y desde el del ultimo, que
+     * estan interpolados en los limites de la zona visible, se vuelven a
+     * reducir siempre, ya que cambian al desplazarla
+     * 
+     * @param puntos los puntos a reducir
+     * @param maxX el maximo valor en el eje X en las coordenadas del grafico,
+     *      de forma que los pixeles del grafico van de 0 a maxX
+     * @param anillo los pixeles ya reducidos, ya situados en el primer pixel
+     *      de los puntos a reducir mediante desplaza
+     * @param x el array donde se escribiran las coordenadas X de los puntos
+     *      reducidos, de al menos getMaxPuntos posiciones
+     * @param y el array donde se escribiran las coordenadas Y de los puntos
+     *      reducidos con el origen abajo, de al menos getMaxPuntos posiciones
+     * @return el numero de puntos reducidos escritos en los arrays */
+    public int reduce(PuntosEscalados puntos, int maxX, AnilloPixeles anillo,
+            double[] x, double[] y) {
+        
+        int numPixeles = getNumPixeles(maxX), numPuntos = puntos.getNumPuntos();
+        anillo.reserva(numPixeles, getMaxPuntosPixel());
+        
+        int pixelPrimero = (numPuntos > 1)? (int) Math.round(puntos.getX(0)) : numPixeles,
+            pixelUltimo = (numPuntos > 1)? (int) Math.round(puntos.getX(numPuntos - 1)) : 0;
+        invalidaBordes(anillo, pixelPrimero, pixelUltimo);
+        
+        // Reducimos cada tramo de pixeles sin reducir de una vez
+        int pixel = 0;
+        while (pixel < numPixeles) {
+            if (anillo.estaReducido(pixel)) {
+                pixel++;
+                continue;
+            }
+            
+            int fin = pixel + 1;
+            while ((fin < numPixeles) && !anillo.estaReducido(fin)) { fin++; }
+            
+            double[] xTramo = new double[getMaxPuntosPixel() * (fin - pixel)],
+                     yTramo = new double[xTramo.length];
+            int n = reduceEnParalelo(puntos, pixel, fin, xTramo, yTramo);
+            
+            // Repartimos los puntos entre los pixeles segun su coordenada X,
+            // que se redondea al pixel al que pertenecen
+            int k = 0;
+            for (int i = pixel; i < fin; i++) {
+                int inicio = k;
+                while ((k < n) && ((i == fin - 1) || (Math.round(xTramo[k]) <= i))) { k++; }
+                anillo.setPuntos(i, xTramo, yTramo, inicio, k - inicio);
+            }
+            
+            pixel = fin;
+        }
+        
+        int ret = anillo.getPuntos(x, y);
+        invalidaBordes(anillo, pixelPrimero, pixelUltimo);
+        
+        return agregaPuntosFinales(puntos, x, y, ret);
+    }
+    
+    /** @return el numero maximo de puntos que puede escribir reducePixeles
+     *      por cada pixel */
+    protected abstract int getMaxPuntosPixel();
+    
+    /** @param maxX el maximo valor en el eje X en las coordenadas del grafico
+     * @return el numero de pixeles a reducir empezando por el pixel 0. Por
+     *      defecto se reducen todos los pixeles hasta maxX */
+    protected int getNumPixeles(int maxX) {
+        return maxX + 1;
+    }
+    
+    /** Añade los puntos que no pertenecen a ningun pixel despues de los de
+     * todos los pixeles. Por defecto no se añade ninguno
+     * 
+     * @param puntos los puntos a reducir
+     * @param x el array con las coordenadas X de los puntos reducidos
+     * @param y el array con las coordenadas Y de los puntos reducidos
+     * @param numPuntos el numero de puntos reducidos de los pixeles
+     * @return el numero total de puntos reducidos escritos en los arrays */
+    protected int agregaPuntosFinales(PuntosEscalados puntos,
+            double[] x, double[] y, int numPuntos) {
+        return numPuntos;
+    }
+    
+    /** Reduce los puntos de los pixeles dados. Los puntos de cada pixel i
+     * solo pueden depender de los puntos con X en el rango [i - 0.5, i + 0.5),
+     * que es en el que se redondean al pixel i, y han de estar en ese mismo
+     * rango. Las implementaciones pueden emplear solo una parte del rango
+     * 
+     * @param puntos los puntos a reducir
+     * @param primerPixel el primer pixel a reducir
+     * @param finPixel el pixel siguiente al ultimo a reducir
+     * @param x el array donde se escribiran las coordenadas X de los puntos
+     *      reducidos
+     * @param y el array donde se escribiran las coordenadas Y de los puntos
+     *      reducidos
+     * @return el numero de puntos reducidos escritos en los arrays */
+    protected abstract int reducePixeles(PuntosEscalados puntos,
+            int primerPixel, int finPixel, double[] x, double[] y);
+    
+    /** Reduce los puntos de los pixeles dados, repartiendolos en tramos que
+     * se reducen en paralelo si hay suficientes puntos
+     * 
+     * @param puntos los puntos a reducir
+     * @param primerPixel el primer pixel a reducir
+     * @param finPixel el pixel siguiente al ultimo a reducir
+     * @param x el array donde se escribiran las coordenadas X de los puntos
+     *      reducidos
+     * @param y el array donde se escribiran las coordenadas Y de los puntos
+     *      reducidos
+     * @return el numero de puntos reducidos escritos en los arrays */
+    protected int reduceEnParalelo(final PuntosEscalados puntos,
+            int primerPixel, int finPixel, double[] x, double[] y) {
+        
+        int numPixeles = finPixel - primerPixel,
+            numTramos = Math.min(
+                Math.min(POOL.getParallelism() * TRAMOS_POR_HILO, numPixeles),
+                puntos.getNumPuntos() / MIN_PUNTOS_TRAMO
+            );
+        
+        if ((POOL.getParallelism() < 2) || (numTramos < 2)) {
+            return reducePixeles(puntos, primerPixel, finPixel, x, y);
+        }
+        
+        // Cada tramo escribe sus puntos en sus propios arrays
+        final List<Tramo> tramos = new ArrayList<>();
+        for (int i = 0; i < numTramos; i++) {
+            tramos.add(new Tramo(
+                puntos,
+                primerPixel + (int)((long)numPixeles * i / numTramos),
+                primerPixel + (int)((long)numPixeles * (i + 1) / numTramos)
+            ));
+        }
+        POOL.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tramos);
+            }
+        });
+        
+        // Juntamos los puntos de todos los tramos en orden
+        int ret = 0;
+        for (Tramo tramo : tramos) {
+            System.arraycopy(tramo.mX, 0, x, ret, tramo.mNumPuntos);
+            System.arraycopy(tramo.mY, 0, y, ret, tramo.mNumPuntos);
+            ret += tramo.mNumPuntos;
+        }
+        
+        return ret;
+    }
+
+// Funciones privadas
+    /** Descarta los pixeles hasta el del primer punto y desde el del ultimo,
+     * que dependen de los limites de la zona visible
+     * 
+     * @param anillo los pixeles ya reducidos
+     * @param pixelPrimero el pixel del primer punto
+     * @param pixelUltimo el pixel del ultimo punto */
+    private static void invalidaBordes(AnilloPixeles anillo, int pixelPrimero, int pixelUltimo) {
+        
+        int numPixeles = anillo.getNumPixeles();
+        for (int i = 0; (i <= pixelPrimero) && (i < numPixeles); i++) {
+            anillo.invalida(i);
+        }
+        for (int i = Math.max(pixelUltimo, 0); i < numPixeles; i++) {
+            anillo.invalida(i);
+        }
+    }
+    
+}
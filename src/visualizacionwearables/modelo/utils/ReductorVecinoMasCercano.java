@@ -0,0 +1,122 @@
+package visualizacionwearables.modelo.utils;
+
+/**
+ * Clase ReductorVecinoMasCercano, reduce los puntos mediante el algoritmo del
+ * Vecino mas Cercano, quedandose en cada pixel del eje X con el punto mas
+ * cercano a el.
+ * <br>Como las coordenadas X de los puntos son crecientes, los puntos dentro
+ * del rango abierto (i - 0.5, i + 0.5) de cada pixel son consecutivos y sus
+ * limites se buscan directamente, de forma que el coste depende del numero de
+ * pixeles y no del de puntos, y los pixeles se pueden reducir en paralelo. Un
+ * punto con X justo en i - 0.5 esta a la misma distancia de dos pixeles y no
+ * se elige en ninguno de ellos.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class ReductorVecinoMasCercano extends ReductorPorPixeles {
+    
+    @Override
+    public String getNombre() {
+        return "Vecino mas Cercano";
+    }
+    
+    /** Los niveles de detalle cambian las filas entre las que se busca el
+     * punto mas cercano, y el coste ya depende solo del numero de pixeles
+     * 
+     * @return false */
+    @Override
+    public boolean admiteNivelesDetalle() {
+        return false;
+    }
+    
+    @Override
+    public int getMaxPuntos(int numPuntos, int maxX) {
+        return Math.min(numPuntos, maxX + 1);
+    }
+    
+    @Override
+    protected int getMaxPuntosPixel() {
+        return 1;
+    }
+    
+    /** El ultimo punto, en el pixel maxX, se añade siempre al final
+     * 
+     * @param maxX el maximo valor en el eje X en las coordenadas del grafico
+     * @return maxX */
+    @Override
+    protected int getNumPixeles(int maxX) {
+        return maxX;
+    }
+    
+    @Override
+    protected int agregaPuntosFinales(PuntosEscalados puntos,
+            double[] x, double[] y, int numPuntos) {
+        
+        int n = puntos.getNumPuntos(), ret = numPuntos;
+        if (n > 1) {
+            x[ret] = puntos.getX(n - 1);
+            y[ret] = puntos.getY(n - 1);
+            ret++;
+        }
+        
+        return ret;
+    }
+    
+    @Override
+    protected int reducePixeles(PuntosEscalados puntos,
+            int primerPixel, int finPixel, double[] x, double[] y) {
+        
+        int numPuntos = puntos.getNumPuntos(), ret = 0, inicio = 0;
+        for (int i = primerPixel; i < finPixel; i++) {
+            inicio = puntos.buscaPunto(Math.nextUp(i - 0.5), inicio, numPuntos);
+            int fin = puntos.buscaPunto(i + 0.5, inicio, numPuntos);
+            
+            // Si existe, añadimos el punto más cercano en el eje X al pixel
+            // actual
+            int puntoMasCercano = getPuntoMasCercano(puntos, inicio, fin, i);
+            if (puntoMasCercano >= 0) {
+                x[ret] = puntos.getX(puntoMasCercano);
+                y[ret] = puntos.getY(puntoMasCercano);
+                ret++;
+            }
+            
+            inicio = fin;
+        }
+        
+        return ret;
+    }
+
+// Funciones privadas
+    /** De los puntos dados, calcula aquel que se encuentra más cerca en el eje
+     * X al valor dado. Si hay varios a la misma distancia se devuelve el
+     * primero
+     * 
+     * @param puntos los puntos que queremos evaluar
+     * @param inicio el indice del primer punto a evaluar
+     * @param fin el indice siguiente al ultimo punto a evaluar
+     * @param x el valor en el eje X que queremos aproximar
+     * @return el indice del punto más cercano, -1 si no hay puntos que
+     *      evaluar */
+    private int getPuntoMasCercano(PuntosEscalados puntos, int inicio, int fin, double x) {
+        
+        if (inicio >= fin) { return -1; }
+        
+        // Como los puntos estan ordenados, el mas cercano es el primero con
+        // la mayor X menor que el valor o el primero con X mayor o igual
+        int siguiente = puntos.buscaPunto(x, inicio, fin),
+            anterior = siguiente - 1;
+        if (anterior >= inicio) {
+            anterior = puntos.buscaPunto(puntos.getX(anterior), inicio, siguiente);
+        }
+        
+        if (anterior < inicio) { return siguiente; }
+        if (siguiente >= fin) { return anterior; }
+        
+        double difAnterior  = Math.abs(x - puntos.getX(anterior)),
+               difSiguiente = Math.abs(x - puntos.getX(siguiente));
+        return (difSiguiente < difAnterior)? siguiente : anterior;
+    }
+    
+}
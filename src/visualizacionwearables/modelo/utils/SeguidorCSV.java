@@ -0,0 +1,269 @@
+package visualizacionwearables.modelo.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException;
+
+/**
+ * Clase SeguidorCSV
+ * Se emplea para seguir un archivo csv que todavia se esta escribiendo,
+ * añadiendo a sus datos las filas nuevas segun aparecen en el archivo.
+ * <br>El archivo se consulta periodicamente y solo se leen los bytes añadidos
+ * desde la ultima consulta, guardando la ultima linea si todavia esta
+ * incompleta hasta que se termine de escribir, por lo que el coste de cada
+ * consulta depende unicamente del numero de filas nuevas y no del tamaño del
+ * archivo.
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class SeguidorCSV {
+    
+    /** Interfaz que han de implementar los objetos que quieran ser notificados
+     * de las filas añadidas a los datos.
+     * <br>Los metodos se llaman desde el hilo del seguidor, no desde el hilo
+     * de eventos de Swing */
+    public interface ObservadorSeguimiento {
+        
+        /** Se llama cada vez que se añaden nuevas filas a los datos
+         * 
+         * @param datos los datos a los que se han añadido las filas */
+        void onFilasNuevas(DatosSensores datos);
+        
+        /** Se llama si se produce un error al seguir el archivo, tras lo cual
+         * el seguimiento se detiene
+         * 
+         * @param error el error producido */
+        void onErrorSeguimiento(Exception error);
+    }
+    
+    /** El hilo compartido por todos los seguidores para consultar los
+     * archivos */
+    private static final ScheduledExecutorService EJECUTOR =
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread ret = new Thread(r, "SeguidorCSV");
+                ret.setDaemon(true);
+                return ret;
+            }
+        });
+    
+    /** El tiempo en milisegundos entre cada consulta del archivo */
+    private static final long PERIODO = 100;
+    
+    /** El tamaño inicial en bytes del buffer de lectura */
+    private static final int TAM_BUFFER = 64 * 1024;
+    
+    /** El archivo que estamos siguiendo */
+    private final File mArchivo;
+    
+    /** Los datos a los que se añaden las nuevas filas */
+    private final DatosSensores mDatos;
+    
+    /** El observador al que se notifican las nuevas filas */
+    private final ObservadorSeguimiento mObservador;
+    
+    /** El parser con el que se traducen las nuevas filas */
+    private final ParserCSV mParser;
+    
+    /** La posicion del archivo desde la que se leera en la siguiente
+     * consulta */
+    private long mPosicion;
+    
+    /** Los bytes leidos de la ultima linea incompleta, en el rango
+     * [0, position) del buffer */
+    private ByteBuffer mBuffer;
+    
+    /** El canal con el que se lee el archivo, null si no se esta siguiendo */
+    private FileChannel mCanal;
+    
+    /** La tarea que consulta periodicamente el archivo, null si no se esta
+     * siguiendo */
+    private ScheduledFuture<?> mTarea;
+    
+    
+    /** Construye un nuevo SeguidorCSV
+     * 
+     * @param archivo el archivo csv que queremos seguir
+     * @param datos los datos ya leidos del archivo
+     * @param posicion el numero de bytes del archivo que ya se han leido,
+     *      que ha de ser el comienzo de una linea ya que la lectura
+     *      continuara desde ahi
+     * @param observador el observador al que se notificaran las nuevas
+     *      filas */
+    public SeguidorCSV(File archivo, DatosSensores datos, long posicion,
+            ObservadorSeguimiento observador) {
+        
+        int numFilas = datos.getNumRows();
+        double tiempoInicial = (numFilas > 0)? datos.getTiempo(numFilas - 1) : 0;
+        
+        mArchivo = archivo;
+        mDatos = datos;
+        mObservador = observador;
+        mParser = new ParserCSV(numFilas + 2, datos.getNumDatos(), tiempoInicial);
+        mPosicion = posicion;
+        mBuffer = ByteBuffer.allocate(TAM_BUFFER);
+    }
+    
+    /** @return los datos a los que se añaden las nuevas filas */
+    public DatosSensores getDatos() {
+        return mDatos;
+    }
+    
+    /** @return true si se esta siguiendo el archivo, false en caso
+     *      contrario */
+    public synchronized boolean isSiguiendo() {
+        return mTarea != null;
+    }
+    
+    /** Comienza a seguir el archivo, o continua desde donde se dejo si ya se
+     * habia seguido antes */
+    public synchronized void inicia() throws IOException {
+        
+        if (mTarea != null) { return; }
+        
+        mCanal = new RandomAccessFile(mArchivo, "r").getChannel();
+        mTarea = EJECUTOR.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                consulta();
+            }
+        }, 0, PERIODO, TimeUnit.MILLISECONDS);
+    }
+    
+    /** Deja de seguir el archivo */
+    public synchronized void detiene() {
+        
+        if (mTarea == null) { return; }
+        
+        mTarea.cancel(false);
+        mTarea = null;
+        
+        // Cerramos el archivo desde el hilo del seguidor para no hacerlo en
+        // mitad de una consulta
+        final FileChannel canal = mCanal;
+        mCanal = null;
+        EJECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    canal.close();
+                } catch (IOException e) {
+                    // El archivo ya no se va a volver a leer
+                }
+            }
+        });
+    }
+    
+    /** Busca el comienzo de la linea en la que se encuentra la posicion dada
+     * del archivo, de forma que si una lectura termino en mitad de una linea
+     * todavia incompleta, el seguimiento pueda volver a traducirla entera
+     * 
+     * @param archivo el archivo csv que queremos seguir
+     * @param posicion el numero de bytes del archivo que ya se han leido
+     * @return la posicion siguiente al ultimo salto de linea anterior a la
+     *      posicion dada, o la propia posicion si va justo detras de un salto
+     *      de linea
+     * @throws java.io.IOException */
+    public static long getInicioLinea(File archivo, long posicion)
+            throws IOException {
+        
+        try (RandomAccessFile raf = new RandomAccessFile(archivo, "r");
+             FileChannel canal = raf.getChannel()) {
+            
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long ret = Math.min(posicion, canal.size());
+            while (ret > 0) {
+                long inicio = Math.max(0, ret - buffer.capacity());
+                buffer.clear();
+                buffer.limit((int) (ret - inicio));
+                int leidos = canal.read(buffer, inicio);
+                if (leidos <= 0) { break; }
+                
+                for (int i = leidos - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        return inicio + i + 1;
+                    }
+                }
+                ret = inicio;
+            }
+            
+            return 0;
+        }
+    }
+
+// Funciones privadas
+    /** Lee las filas añadidas al archivo desde la ultima consulta y las añade
+     * a los datos */
+    private void consulta() {
+        
+        FileChannel canal;
+        synchronized (this) {
+            canal = mCanal;
+        }
+        if (canal == null) { return; }
+        
+        try {
+            if (leeFilasNuevas(canal)) {
+                mObservador.onFilasNuevas(mDatos);
+            }
+        } catch (IOException | DatosFormatException e) {
+            detiene();
+            mObservador.onErrorSeguimiento(e);
+        }
+    }
+    
+    /** Lee y traduce los bytes añadidos al archivo desde la ultima consulta
+     * 
+     * @param canal el canal con el que se lee el archivo
+     * @return true si se han añadido filas a los datos, false en caso
+     *      contrario */
+    private boolean leeFilasNuevas(FileChannel canal)
+            throws IOException, DatosFormatException {
+        
+        long tam = canal.size();
+        if (tam < mPosicion) {
+            throw new IOException("El archivo se ha truncado");
+        }
+        
+        while (mPosicion < tam) {
+            // Hacemos crecer el buffer si no cabe una linea entera
+            if (!mBuffer.hasRemaining()) {
+                ByteBuffer nuevo = ByteBuffer.allocate(2 * mBuffer.capacity());
+                mBuffer.flip();
+                nuevo.put(mBuffer);
+                mBuffer = nuevo;
+            }
+            
+            int leidos = canal.read(mBuffer, mPosicion);
+            if (leidos <= 0) { break; }
+            mPosicion += leidos;
+            
+            // Traducimos las lineas completas y movemos la linea incompleta
+            // al comienzo del buffer
+            int fin = mBuffer.position(),
+                inicio = mParser.parseaLineas(mBuffer, 0, fin);
+            mBuffer.limit(fin);
+            mBuffer.position(inicio);
+            mBuffer.compact();
+        }
+        
+        if (mParser.getNumFilas() > 0) {
+            mParser.vuelca(mDatos);
+            return true;
+        }
+        
+        return false;
+    }
+    
+}
@@ -0,0 +1,141 @@
+package visualizacionwearables.vista;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import javax.swing.SwingWorker;
+import visualizacionwearables.modelo.VentanaGraficoModelo;
+import visualizacionwearables.modelo.utils.DatosSensores;
+import visualizacionwearables.modelo.utils.ObservadorLectura;
+
+/**
+ * Clase CargaArchivoControlador, siguiendo el patron MVC, esta clase
+ * representa el controlador de la Ventana de Carga.
+ * 
+ * Esta clase se encarga de leer el archivo de un VentanaGraficoModelo fuera del
+ * hilo de eventos de Swing. En cuanto se empiezan a leer las filas del archivo
+ * se sustituye la Ventana de Carga por la Ventana de Grafico, que se actualiza
+ * segun se van leyendo nuevas filas
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class CargaArchivoControlador
+        extends SwingWorker<DatosSensores, DatosSensores> {
+    
+    private final VentanaCargaVista             miVista;
+    private final VentanaGraficoModelo          miModelo;
+    private final VentanaPrincipalControlador   miPrincipal;
+    
+    /** El controlador de la Ventana de Grafico, null mientras todavia no se
+     * haya mostrado */
+    private VentanaGraficoControlador           mGrafico;
+    
+    /** Crea un nuevo CargaArchivoControlador
+     * 
+     * @param principal el controlador de la ventana principal al que se
+     *      avisara cuando haya datos que mostrar
+     * @param modelo el modelo cuyo archivo queremos leer */
+    public CargaArchivoControlador(VentanaPrincipalControlador principal,
+            VentanaGraficoModelo modelo) {
+        
+        miPrincipal = principal;
+        miModelo = modelo;
+        miVista = new VentanaCargaVista(this, miModelo.getTitulo());
+        
+        // Actualizamos las vistas cada vez que cambia el progreso
+        addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if ("progress".equals(evt.getPropertyName())) {
+                    onProgreso((Integer) evt.getNewValue());
+                }
+            }
+        });
+    }
+    
+    /** @return la vista del controlador */
+    public VentanaCargaVista getVista() {
+        return miVista;
+    }
+    
+    /** Metodo que implementa la funcionalidad del boton Cancelar de la vista */
+    public void onCancelar() {
+        cancel(true);
+    }
+    
+    @Override
+    protected DatosSensores doInBackground() throws Exception {
+        return miModelo.lee(new ObservadorLectura() {
+            @Override
+            public void onDatosCreados(DatosSensores datos) {
+                publish(datos);
+            }
+            
+            @Override
+            public void onProgreso(long bytesLeidos, long bytesTotales) {
+                setProgress((int) Math.min(
+                    100, 100 * bytesLeidos / Math.max(bytesTotales, 1)
+                ));
+            }
+        });
+    }
+    
+    @Override
+    protected void process(List<DatosSensores> datos) {
+        if (!isCancelled()) {
+            muestraGrafico(datos.get(0));
+        }
+    }
+    
+    @Override
+    protected void done() {
+        try {
+            muestraGrafico(get());
+            mGrafico.onCargaTerminada();
+        } catch (CancellationException | InterruptedException e) {
+            // La lectura ha sido cancelada por el usuario
+            cierraVistas();
+        } catch (ExecutionException e) {
+            cierraVistas();
+            miPrincipal.onErrorCarga(miModelo, e.getCause());
+        }
+    }
+    
+// Funciones privadas
+    /** Actualiza las vistas con el progreso de la lectura
+     * 
+     * @param progreso el porcentaje del archivo leido en el rango [0, 100] */
+    private void onProgreso(int progreso) {
+        if (mGrafico != null) {
+            mGrafico.onProgresoCarga(progreso);
+        } else {
+            miVista.setProgreso(progreso);
+        }
+    }
+    
+    /** Sustituye la Ventana de Carga por la Ventana de Grafico si todavia no
+     * se ha hecho
+     * 
+     * @param datos los datos que mostrara la Ventana de Grafico */
+    private void muestraGrafico(DatosSensores datos) {
+        if (mGrafico == null) {
+            mGrafico = miPrincipal.onDatosDisponibles(
+                miModelo, datos, this, miVista.getLocation()
+            );
+            miVista.dispose();
+        }
+    }
+    
+    /** Cierra la Ventana de Carga y la de Grafico si ya se habia mostrado */
+    private void cierraVistas() {
+        miVista.dispose();
+        if (mGrafico != null) {
+            mGrafico.getVista().dispose();
+        }
+    }
+    
+}
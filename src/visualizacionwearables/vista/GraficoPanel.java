@@ -6,16 +6,24 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.Stroke;
+import java.awt.Transparency;
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 import javax.swing.JPanel;
-import visualizacionwearables.modelo.utils.Punto;
+import visualizacionwearables.modelo.utils.BufferCoordenadas;
 import java.util.Map.Entry;
 
 /**
  * JPanel Modificado para dibujar el grafico de lineas que queremos además de
  * rectangulos en caso de que queramos destacar cierta parte del grafico
+ * <br>La rejilla, las unidades y las lineas del grafico se dibujan en una
+ * imagen que solo se vuelve a dibujar cuando cambian o cambia el tamaño del
+ * panel, de forma que al mover los rectangulos solo se dibujan estos sobre
+ * la imagen.
  * 
  * @author  Daniel González Alonso
  * @since   27/07/2016
@@ -23,10 +31,17 @@ import java.util.Map.Entry;
  */
 public class GraficoPanel extends JPanel {
     
+    /** Genera el texto de ayuda del panel cuando se va a mostrar */
+    public interface GeneradorAyuda {
+        
+        /** @return el texto de ayuda a mostrar */
+        String generaAyuda();
+    }
+    
     private Graphics2D g2d;
     
     /** los puntos a dibujar en el grafico */
-    private List<Punto> mPuntos;
+    private BufferCoordenadas mPuntos;
     
     /** Si debemos dibujar los puntos del grafico o no */
     private boolean mCirculos;
@@ -55,11 +70,18 @@ public class GraficoPanel extends JPanel {
      * mostrar */
     private List< Entry<Integer, String> > mLineasHorizontales;
     
+    /** La imagen con la rejilla, las unidades y las lineas del grafico, null
+     * si hay que volver a dibujarla */
+    private BufferedImage mCapaGrafico;
+    
+    /** El generador del texto de ayuda del panel, null si no tiene */
+    private GeneradorAyuda mGeneradorAyuda;
+    
     
     /** Construye un nuevo grafico por defecto */
     public GraficoPanel() {
         initComponents();
-        mPuntos = new ArrayList<>();
+        mPuntos = new BufferCoordenadas();
         mCirculos = false;
         mRectangulos = new ArrayList<>();
         mRejilla = false;
@@ -75,7 +97,7 @@ public class GraficoPanel extends JPanel {
      * @param unidades si queremos que se muestren las unidades o no */
     public GraficoPanel(boolean circulos, boolean rejilla, boolean unidades) {
         initComponents();
-        mPuntos = new ArrayList<>();
+        mPuntos = new BufferCoordenadas();
         mCirculos = circulos;
         mRectangulos = new ArrayList<>();
         mRejilla = rejilla;
@@ -106,11 +128,19 @@ public class GraficoPanel extends JPanel {
         return mMargenX;
     }
     
+    /** @return el buffer con los puntos del grafico a dibujar, que se puede
+     *      rellenar con los nuevos puntos para no tener que crear otro,
+     *      pasandolo despues a setPuntos para que se vuelva a dibujar */
+    public BufferCoordenadas getPuntos() {
+        return mPuntos;
+    }
+    
     /** Cambia los puntos del grafico a dibujar por @param puntos
      * 
      * @param puntos los nuevos puntos del grafico a dibujar */
-    public void setPuntos(List<Punto> puntos) {
+    public void setPuntos(BufferCoordenadas puntos) {
         mPuntos = puntos;
+        mCapaGrafico = null;
     }
     
     /** Añade un rectangulo con el color dado a la lista de rectangulos a 
@@ -136,24 +166,42 @@ public class GraficoPanel extends JPanel {
     
     /** Muestra los circulos del grafico la proxima vez que se dibuje
      * el panel */
-    public void showCirculos() { this.mCirculos = true; }
+    public void showCirculos() { this.mCirculos = true; mCapaGrafico = null; }
     
     /** Oculta los circulos del grafico la proxima vez que se dibuje el panel */
-    public void hideCirculos() { this.mCirculos = false; }
+    public void hideCirculos() { this.mCirculos = false; mCapaGrafico = null; }
     
     /** Muestra los circulos del grafico la proxima vez que se dibuje
      * el panel */
-    public void showRejilla() { this.mRejilla = true; }
+    public void showRejilla() { this.mRejilla = true; mCapaGrafico = null; }
     
     /** Oculta los circulos del grafico la proxima vez que se dibuje el panel */
-    public void hideRejilla() { this.mRejilla = false; }
+    public void hideRejilla() { this.mRejilla = false; mCapaGrafico = null; }
     
     /** Muestra los circulos del grafico la proxima vez que se dibuje
      * el panel */
-    public void showUnidades() { this.mUnidades = true; }
+    public void showUnidades() { this.mUnidades = true; mCapaGrafico = null; }
     
     /** Oculta los circulos del grafico la proxima vez que se dibuje el panel */
-    public void hideUnidades() { this.mUnidades = false; }
+    public void hideUnidades() { this.mUnidades = false; mCapaGrafico = null; }
+    
+    /** Cambia el generador del texto de ayuda del panel, de forma que el
+     * texto solo se genera cuando se va a mostrar
+     * 
+     * @param generador el generador del texto de ayuda, null si el panel no
+     *      ha de mostrar ayuda */
+    public void setGeneradorAyuda(GeneradorAyuda generador) {
+        mGeneradorAyuda = generador;
+        
+        // Un texto no nulo registra el panel para que se consulte su ayuda
+        setToolTipText((generador != null)? "" : null);
+    }
+    
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return (mGeneradorAyuda != null)?
+            mGeneradorAyuda.generaAyuda() : super.getToolTipText(event);
+    }
     
     /** Cambia los valores de la rejilla por los dados
      * 
@@ -161,6 +209,7 @@ public class GraficoPanel extends JPanel {
      *      al valor a mostrar */
     public void setLineasVerticales(List< Entry<Integer, String> > marcas) {
         mLineasVerticales = marcas;
+        mCapaGrafico = null;
     }
     
     /** Cambia los valores de la rejilla por los dados
@@ -169,22 +218,52 @@ public class GraficoPanel extends JPanel {
      *      al valor a mostrar */
     public void setLineasHorizontales(List< Entry<Integer, String> > marcas) {
         mLineasHorizontales = marcas;
+        mCapaGrafico = null;
     }
     
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
         g2d = (Graphics2D)g;
+        
+        // Solo volvemos a dibujar el grafico si ha cambiado, teniendo en
+        // cuenta la escala de la pantalla para que la imagen no se vea
+        // borrosa
+        AffineTransform transformacion = g2d.getTransform();
+        int ancho = (int) Math.ceil(getWidth() * transformacion.getScaleX()),
+            alto = (int) Math.ceil(getHeight() * transformacion.getScaleY());
+        if ((ancho <= 0) || (alto <= 0)) { return; }
+        
+        if ((mCapaGrafico == null)
+                || (mCapaGrafico.getWidth() != ancho)
+                || (mCapaGrafico.getHeight() != alto)) {
+            mCapaGrafico = g2d.getDeviceConfiguration()
+                .createCompatibleImage(ancho, alto, Transparency.TRANSLUCENT);
+            
+            g2d = mCapaGrafico.createGraphics();
+            g2d.scale(transformacion.getScaleX(), transformacion.getScaleY());
+            g2d.setFont(getFont());
+            g2d.setColor(getForeground());
+            drawCapaGrafico();
+            g2d.dispose();
+            g2d = (Graphics2D)g;
+        }
+        g2d.drawImage(mCapaGrafico, 0, 0, getWidth(), getHeight(), null);
+        
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (Rectangulo r : mRectangulos) {
+            drawRectangulo(r.getIniPosition(), r.getLongitud(), r.getColor());
+        }
+    }
+    
+    /** Dibuja la rejilla, las unidades y las lineas del grafico */
+    private void drawCapaGrafico() {
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         
         if (mRejilla) { drawRejilla(); }
         if (mUnidades) { drawUnidades(); }
         if (mCirculos) { drawGraphWithDots(mPuntos); }
         else { drawGraph(mPuntos); }
-        
-        for (Rectangulo r : mRectangulos) {
-            drawRectangulo(r.getIniPosition(), r.getLongitud(), r.getColor());
-        }
     }
     
     /** Dada un array de puntos, dibuja un grafico de lineas en dos dimensiones
@@ -193,22 +272,15 @@ public class GraficoPanel extends JPanel {
      * @param puntos los puntos que queremos dibujar en el grafico
      *      (con coordenadas en el rango del eje X [0, mWidth] y del eje Y
      *      [0, mHeight]) */
-    private void drawGraph(List<Punto> puntos){
-        if (puntos.size() > 1) {
+    private void drawGraph(BufferCoordenadas puntos){
+        if (puntos.getNumPuntos() > 1) {
             
-            Punto p1 = puntos.get(0), p2 = null;
-            for (int i = 1; i < puntos.size(); i++) {
-                p2 = puntos.get(i);
-                
-                if (p2 != null) {
-                    g2d.drawLine(
-                        (int)Math.round(p1.getX()),
-                        (int)Math.round(p1.getY()),
-                        (int)Math.round(p2.getX()),
-                        (int)Math.round(p2.getY())
-                    );
-                    p1 = p2;
-                }
+            int x1 = Math.round(puntos.getX(0)), y1 = Math.round(puntos.getY(0));
+            for (int i = 1; i < puntos.getNumPuntos(); i++) {
+                int x2 = Math.round(puntos.getX(i)), y2 = Math.round(puntos.getY(i));
+                g2d.drawLine(x1, y1, x2, y2);
+                x1 = x2;
+                y1 = y2;
             }
         }
     }
@@ -219,18 +291,16 @@ public class GraficoPanel extends JPanel {
      * @param puntos los puntos que queremos dibujar en el grafico
      *      (con coordenadas en el rango del eje X [0, mWidth] y del eje Y
      *      [0, mHeight]) */
-    private void drawGraphWithDots(List<Punto> puntos){
-        if (puntos.size() > 1) {
+    private void drawGraphWithDots(BufferCoordenadas puntos){
+        if (puntos.getNumPuntos() > 1) {
             
-            Punto p1 = puntos.get(0), p2 = null;
-            for (int i = 1; i < puntos.size(); i++) {
-                p2 = puntos.get(i);
-                
-                if (p2 != null) {
-                    g2d.drawLine((int)p1.getX(), (int)p1.getY(), (int)p2.getX(), (int)p2.getY());
-                    g2d.drawOval((int)p1.getX() - tamCirculo/2, (int)p1.getY() - tamCirculo/2, tamCirculo, tamCirculo);
-                    p1 = p2;
-                }
+            int x1 = (int)puntos.getX(0), y1 = (int)puntos.getY(0);
+            for (int i = 1; i < puntos.getNumPuntos(); i++) {
+                int x2 = (int)puntos.getX(i), y2 = (int)puntos.getY(i);
+                g2d.drawLine(x1, y1, x2, y2);
+                g2d.drawOval(x1 - tamCirculo/2, y1 - tamCirculo/2, tamCirculo, tamCirculo);
+                x1 = x2;
+                y1 = y2;
             }
         }
     }
@@ -0,0 +1,65 @@
+package visualizacionwearables.vista;
+
+import java.awt.BorderLayout;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+
+/**
+ * Clase VentanaCargaVista, representa la ventana interna que se muestra en
+ * lugar de la ventana de grafico mientras se esta leyendo su archivo
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class VentanaCargaVista extends javax.swing.JInternalFrame {
+    
+    /** El controlador de la ventana actual */
+    private final CargaArchivoControlador miControlador;
+    
+    /** La barra con el progreso de la lectura */
+    private final JProgressBar progresoBar;
+    
+    /** Constructor de VentanaCargaVista, crea una ventana para mostrar el
+     * progreso de la lectura de un archivo
+     * 
+     * @param controlador el controlador que se encargara de validar los datos
+     *          de la vista y actualizarla con los datos del modelo.
+     * @param titulo el titulo de la ventana */
+    public VentanaCargaVista(CargaArchivoControlador controlador, String titulo) {
+        miControlador = controlador;
+        
+        progresoBar = new JProgressBar(0, 100);
+        progresoBar.setStringPainted(true);
+        
+        JButton cancelarButton = new JButton("Cancelar");
+        cancelarButton.addActionListener(new java.awt.event.ActionListener() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                miControlador.onCancelar();
+            }
+        });
+        
+        JPanel panel = new JPanel(new BorderLayout(8, 8));
+        panel.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        panel.add(progresoBar, BorderLayout.CENTER);
+        panel.add(cancelarButton, BorderLayout.EAST);
+        
+        setTitle("Cargando " + titulo);
+        setIconifiable(true);
+        setContentPane(panel);
+        setPreferredSize(new java.awt.Dimension(320, 90));
+        pack();
+        setVisible(true);
+    }
+    
+    /** Cambia el progreso mostrado en la ventana
+     * 
+     * @param progreso el porcentaje del archivo leido en el rango [0, 100] */
+    public void setProgreso(int progreso) {
+        progresoBar.setValue(progreso);
+    }
+    
+}
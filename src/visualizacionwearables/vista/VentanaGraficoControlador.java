@@ -1,12 +1,25 @@
 package visualizacionwearables.vista;
 
-import java.util.List;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import visualizacionwearables.modelo.VentanaGraficoModelo;
 import visualizacionwearables.modelo.GraficoModelo;
+import visualizacionwearables.modelo.utils.BufferCoordenadas;
 import visualizacionwearables.modelo.utils.DatosSensores;
-import visualizacionwearables.modelo.utils.LectorCSV;
-import visualizacionwearables.modelo.utils.Punto;
+import visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException;
+import visualizacionwearables.modelo.utils.Reductor;
+import visualizacionwearables.modelo.utils.ReductorLTTB;
+import visualizacionwearables.modelo.utils.ReductorM4;
+import visualizacionwearables.modelo.utils.ReductorVecinoMasCercano;
+import visualizacionwearables.modelo.utils.SeguidorCSV.ObservadorSeguimiento;
 
 /**
  * Clase VentanaGraficoControlador, siguiendo el patron MVC, esta clase 
@@ -26,25 +39,97 @@ public class VentanaGraficoControlador {
     private final GraficoModelo         modeloGraficoSuperior,
                                         modeloGraficoInferior;
     
+    /** La lectura del archivo de los datos si todavia no ha terminado, null
+     * en caso contrario */
+    private CargaArchivoControlador     mCarga;
+    
+    /** Los datos leidos del archivo */
+    private DatosSensores               mDatos;
+    
+    /** Si ya se ha pedido repintar la vista por la llegada de nuevas filas y
+     * todavia no se ha hecho */
+    private final AtomicBoolean         mRepintadoPendiente;
+    
+    /** El temporizador que repinta la vista segun llegan datos en directo,
+     * null si los datos no se reciben en directo */
+    private Timer                       mTemporizadorDirecto;
+    
+    /** El tiempo en milisegundos entre cada repintado de los datos en
+     * directo */
+    private static final int            PERIODO_DIRECTO = 40;
+    
+    /** Los algoritmos con los que se pueden reducir los puntos de los
+     * graficos, en el orden en el que se muestran en los menus */
+    private final Reductor[]            mReductores;
+    
+    /** Los indices de los algoritmos que emplean inicialmente el grafico
+     * superior, que muestra todas las filas, y el inferior */
+    private static final int            REDUCTOR_SUPERIOR = 2,
+                                        REDUCTOR_INFERIOR = 0;
+    
+    /** Los valores de los que dependen los puntos de cada grafico la ultima
+     * vez que se actualizo */
+    private final ClaveGrafico          mClaveSuperior,
+                                        mClaveInferior;
+    
     /** Crea un nuevo VentanaGraficoControlador
      * 
      * @param modelo el modelo del patron MVC
-     * @throws java.io.IOException
-     * @throws visualizacionwearables.modelo.utils.LectorCSV.DatosFormatException */
-    public VentanaGraficoControlador(VentanaGraficoModelo modelo)
-            throws IOException, LectorCSV.DatosFormatException {
+     * @param datos los datos leidos del archivo del modelo
+     * @param carga la lectura del archivo si los datos todavia se estan
+     *      leyendo, null si ya se han leido todos */
+    public VentanaGraficoControlador(VentanaGraficoModelo modelo,
+            DatosSensores datos, CargaArchivoControlador carga) {
+        
+        this.mCarga = carga;
+        this.miModelo = modelo;
+        this.mDatos = datos;
+        this.mRepintadoPendiente = new AtomicBoolean(false);
+        this.mClaveSuperior = new ClaveGrafico();
+        this.mClaveInferior = new ClaveGrafico();
         
-        this.miModelo = modelo;        
         // Creamos los modelos de los paneles de graficos
-        DatosSensores datos = miModelo.lee();
         modeloGraficoSuperior = new GraficoModelo(datos, 0.0, 1.0);
         modeloGraficoInferior = new GraficoModelo(datos, 0.0, 0.5);
+        mReductores = new Reductor[] {
+            new ReductorVecinoMasCercano(),
+            new ReductorM4(),
+            new ReductorLTTB(miModelo.getPuntosGraficoSuperior())
+        };
+        modeloGraficoSuperior.setReductor(mReductores[REDUCTOR_SUPERIOR]);
+        modeloGraficoInferior.setReductor(mReductores[REDUCTOR_INFERIOR]);
         
-        // Creamos la vista
+        // Creamos la vista, mostrando como ayuda de los graficos el coste de
+        // su algoritmo para poder compararlos
         miVista = new VentanaGraficoVista(this);
+        muestraCosteReduccion(miVista.getGraficoSuperior(), modeloGraficoSuperior);
+        muestraCosteReduccion(miVista.getGraficoInferior(), modeloGraficoInferior);
         
         // Añadimos el titulo a la ventana de la vista
         miVista.setTitle(miModelo.getTitulo());
+        miVista.setCancelarCargaVisible(mCarga != null);
+        miVista.setSeguirArchivoEnabled((mCarga == null) && !miModelo.isDirecto());
+        
+        // Si los datos se reciben en directo mostramos solo los mas recientes
+        // y repintamos la vista periodicamente desde el hilo de Swing
+        if (miModelo.isDirecto()) {
+            modeloGraficoSuperior.setVentanaTiempo(miModelo.getVentanaTiempoDirecto());
+            modeloGraficoInferior.setVentanaTiempo(miModelo.getVentanaTiempoDirecto());
+            
+            mTemporizadorDirecto = new Timer(PERIODO_DIRECTO, new ActionListener() {
+                private long mNumMediciones = 0;
+                
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    long numMediciones = miModelo.getNumMedicionesRecibidas();
+                    if (numMediciones != mNumMediciones) {
+                        mNumMediciones = numMediciones;
+                        miVista.repaint();
+                    }
+                }
+            });
+            mTemporizadorDirecto.start();
+        }
         
         // Añadimos las opciones al combobox de datos de la ventana de la vista
         for (int i = 0; i < datos.getNumDatos(); i++) {
@@ -62,6 +147,16 @@ public class VentanaGraficoControlador {
             }
         }
         
+        // Añadimos los algoritmos a los menus de la vista
+        for (Reductor reductor : mReductores) {
+            miVista.addOpcionAlgoritmo(reductor.getNombre());
+        }
+        miVista.setAlgoritmos(REDUCTOR_SUPERIOR, REDUCTOR_INFERIOR);
+        
+        // Cargamos el dato seleccionado si el archivo se ha leido de forma
+        // diferida
+        cargaColumna(miModelo.getDatoSeleccionado());
+        
         // Actualizamos la vista
         miVista.repaint();
     }
@@ -74,9 +169,115 @@ public class VentanaGraficoControlador {
     /** Metodo que se encarga de actualizar los grafico de la vista con los
      * datos del modelo */
     public void onPaint() {
-        // Actualización de los gráficos
-        updateGrafico(miVista.getGraficoSuperior(), modeloGraficoSuperior);
-        updateGrafico(miVista.getGraficoInferior(), modeloGraficoInferior);
+        // Actualización de los gráficos. Cada grafico solo se actualiza si
+        // cambia algo de lo que dependen sus puntos, y no cada vez que se
+        // repinta la ventana, por ejemplo al mover el rectangulo del grafico
+        // superior
+        GraficoPanel graficoSuperior = miVista.getGraficoSuperior(),
+                     graficoInferior = miVista.getGraficoInferior();
+        if (mClaveSuperior.cambia(graficoSuperior, modeloGraficoSuperior)
+            && !updateGrafico(graficoSuperior, modeloGraficoSuperior)) {
+            mClaveSuperior.invalida();
+        }
+        if (mClaveInferior.cambia(graficoInferior, modeloGraficoInferior)
+            && !updateGrafico(graficoInferior, modeloGraficoInferior)) {
+            mClaveInferior.invalida();
+        }
+    }
+    
+    /** Metodo que se encarga de actualizar la vista cuando se han leido
+     * nuevas filas del archivo
+     * 
+     * @param progreso el porcentaje del archivo leido en el rango [0, 100] */
+    public void onProgresoCarga(int progreso) {
+        miVista.setTitle(miModelo.getTitulo() + " (" + progreso + "%)");
+        miVista.repaint();
+    }
+    
+    /** Metodo que se encarga de actualizar la vista cuando termina la lectura
+     * del archivo */
+    public void onCargaTerminada() {
+        mCarga = null;
+        miVista.setTitle(miModelo.getTitulo());
+        miVista.setCancelarCargaVisible(false);
+        miVista.setSeguirArchivoEnabled(!miModelo.isMapeado());
+        miVista.repaint();
+    }
+    
+    /** Metodo que implementa la funcionalidad del boton Cancelar Carga de la
+     * vista */
+    public void onCancelarCarga() {
+        if (mCarga != null) {
+            mCarga.onCancelar();
+        }
+    }
+    
+    /** Metodo que implementa la funcionalidad del checkbox Seguir Archivo de
+     * la vista
+     * <br>Mientras esta seleccionado las filas que se añadan al archivo se
+     * añaden tambien a los datos y se repinta la vista */
+    public void onSeguirArchivo() {
+        // 1. Obtenemos los datos de la vista
+        boolean seguir = miVista.isSeguirArchivoSeleccionado();
+        
+        // 2. Actualizamos el modelo
+        if (seguir) {
+            try {
+                DatosSensores seguidos = miModelo.sigue(mDatos, new ObservadorSeguimiento() {
+                    @Override
+                    public void onFilasNuevas(DatosSensores datos) {
+                        // Solo pedimos un repintado cada vez aunque lleguen
+                        // filas mas rapido de lo que se repinta la vista
+                        if (mRepintadoPendiente.compareAndSet(false, true)) {
+                            SwingUtilities.invokeLater(new Runnable() {
+                                @Override
+                                public void run() {
+                                    mRepintadoPendiente.set(false);
+                                    miVista.repaint();
+                                }
+                            });
+                        }
+                    }
+                    
+                    @Override
+                    public void onErrorSeguimiento(final Exception error) {
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                muestraErrorSeguimiento(error);
+                            }
+                        });
+                    }
+                });
+                
+                // Las nuevas filas se añaden a una copia de los datos
+                if (seguidos != mDatos) {
+                    mDatos = seguidos;
+                    modeloGraficoSuperior.setDatosSensores(mDatos);
+                    modeloGraficoInferior.setDatosSensores(mDatos);
+                }
+            } catch (IOException | DatosFormatException e) {
+                muestraErrorSeguimiento(e);
+            }
+        } else {
+            miModelo.dejaDeSeguir();
+        }
+        
+        // 3. Actualizamos la vista
+        miVista.setSeguirArchivoSeleccionado(miModelo.isSiguiendo());
+    }
+    
+    /** Metodo que se encarga de liberar los recursos de la ventana cuando se
+     * cierra */
+    public void onCerrar() {
+        onCancelarCarga();
+        miModelo.libera();
+        
+        if (mTemporizadorDirecto != null) {
+            mTemporizadorDirecto.stop();
+            mTemporizadorDirecto = null;
+            miModelo.desconecta();
+        }
     }
     
     /** Metodo que implementa la funcionalidad del boton Ampliar de la vista
@@ -145,6 +346,23 @@ public class VentanaGraficoControlador {
         miVista.repaint();
     }
     
+    /** Metodo que se encarga de cambiar el algoritmo con el que se reducen
+     * los puntos de cada grafico por los seleccionados en la vista */
+    void onAlgoritmoSeleccionado() {
+        int superior = miVista.getAlgoritmoSuperior(),
+            inferior = miVista.getAlgoritmoInferior();
+        
+        if ((superior >= 0) && (superior < mReductores.length)) {
+            modeloGraficoSuperior.setReductor(mReductores[superior]);
+        }
+        if ((inferior >= 0) && (inferior < mReductores.length)) {
+            modeloGraficoInferior.setReductor(mReductores[inferior]);
+        }
+        
+        // Actualizamos la vista
+        miVista.repaint();
+    }
+    
     /** Metodo que se encarga de guardar en el modelo de la Ventana el dato
      * seleccionado en la vista */
     void onDatoSeleccionado() {
@@ -155,8 +373,11 @@ public class VentanaGraficoControlador {
         if ((datoSeleccionado >= 0)
             && (datoSeleccionado < modeloGraficoSuperior.getNumColumnasDatos())) {
             
-            // 3. Actualizamos el modelo
+            // 3. Actualizamos el modelo, traduciendo en segundo plano la
+            // columna seleccionada si el archivo se ha cargado de forma
+            // diferida
             miModelo.setDatoSeleccionado(datoSeleccionado);
+            cargaColumna(datoSeleccionado);
             
             // 4. Actualizamos la vista
             desplazaGrafico(modeloGraficoInferior.getOffset());
@@ -191,12 +412,86 @@ public class VentanaGraficoControlador {
     }
     
 // Funciones privadas
+    /** Muestra el error producido al seguir el archivo y actualiza la vista
+     * 
+     * @param error el error producido */
+    private void muestraErrorSeguimiento(Exception error) {
+        miModelo.dejaDeSeguir();
+        miVista.setSeguirArchivoSeleccionado(false);
+        
+        String mensaje = "Error al seguir el archivo \"" + miModelo.getTitulo() + '\"';
+        if (error.getMessage() != null) {
+            mensaje += "\n" + error.getMessage();
+        }
+        JOptionPane.showMessageDialog(miVista, mensaje);
+    }
+    
+    /** Carga fuera del hilo de eventos de Swing la columna dada de los datos
+     * si todavia no esta disponible, repintando la vista al terminar o
+     * mostrando el error producido
+     * 
+     * @param columna el indice de la columna que queremos cargar */
+    private void cargaColumna(final int columna) {
+        final DatosSensores datos = mDatos;
+        if ((columna < 0) || (columna >= datos.getNumDatos())
+            || datos.isColumnaCargada(columna)) {
+            return;
+        }
+        
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                datos.cargaColumna(columna);
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    get();
+                } catch (InterruptedException | CancellationException e) {
+                    // La carga no se ha completado
+                } catch (ExecutionException e) {
+                    Throwable error = e.getCause();
+                    String mensaje = "Error al leer el eje seleccionado de \"" + miModelo.getTitulo() + '\"';
+                    if (error.getMessage() != null) {
+                        mensaje += "\n" + error.getMessage();
+                    }
+                    JOptionPane.showMessageDialog(miVista, mensaje);
+                }
+                miVista.repaint();
+            }
+        }.execute();
+    }
+    
+    /** Muestra como ayuda del panel dado el coste del algoritmo de su
+     * modelo. El texto solo se genera cuando se va a mostrar la ayuda
+     * 
+     * @param panel el panel del grafico
+     * @param modelo el modelo del panel */
+    private void muestraCosteReduccion(final GraficoPanel panel,
+            final GraficoModelo modelo) {
+        panel.setGeneradorAyuda(new GraficoPanel.GeneradorAyuda() {
+            @Override
+            public String generaAyuda() {
+                return String.format(
+                    "%s: %d puntos en %.2f ms (cache: %d aciertos, %d fallos)",
+                    modelo.getReductor().getNombre(), panel.getPuntos().getNumPuntos(),
+                    modelo.getTiempoReduccion() / 1e6,
+                    modelo.getCache().getAciertos(), modelo.getCache().getFallos()
+                );
+            }
+        });
+    }
+    
     /** Metodo que se encarga de actualizar los grafico de la vista con los
      * datos del modelo
      * 
      * @param panel el panel que queremos actualizar
-     * @param modelo el modelo del panel que queremos actualizar */
-    private void updateGrafico(GraficoPanel panel, GraficoModelo modelo) {
+     * @param modelo el modelo del panel que queremos actualizar
+     * @return true si se han actualizado los puntos del panel, false si los
+     *      datos no son validos o todavia se estan cargando */
+    private boolean updateGrafico(GraficoPanel panel, GraficoModelo modelo) {
         // 1. Obtenemos los datos de la vista
         int minimoX = panel.getMinX(),
             maximoX = panel.getViewportWidth(),
@@ -208,13 +503,26 @@ public class VentanaGraficoControlador {
         boolean datosOk = false;
         
         if ((datoSeleccionado >= 0)
-            && (datoSeleccionado < modelo.getNumColumnasDatos())) {
+            && (datoSeleccionado < modelo.getNumColumnasDatos())
+            && (modelo.getNumFilas() > 1)) {
             datosOk = true;
         }
         
+        // Mientras se carga la columna seleccionada no mostramos ningun punto
+        if (datosOk && !mDatos.isColumnaCargada(datoSeleccionado)) {
+            panel.getPuntos().vacia();
+            panel.setPuntos(panel.getPuntos());
+            panel.repaint();
+            datosOk = false;
+        }
+        
         if (datosOk) {
-            // 3. Obtenemos los datos del modelo
-            List<Punto> puntos = modelo.getPuntosNearestNeighbor(datoSeleccionado, minimoX, maximoX, minimoY, maximoY);
+            // 3. Obtenemos los datos del modelo en el buffer del panel, que
+            // se reutiliza en cada repintado, a partir de una unica
+            // instantanea de los datos
+            modelo.tomaInstantanea();
+            BufferCoordenadas puntos = panel.getPuntos();
+            modelo.getPuntos(datoSeleccionado, minimoX, maximoX, minimoY, maximoY, puntos);
             
             // 4. Actualizamos los datos de la vista
             panel.setLineasVerticales(modelo.calculateGridX(minimoX, maximoX));
@@ -222,6 +530,8 @@ public class VentanaGraficoControlador {
             panel.setPuntos(puntos);
             panel.repaint();
         }
+        
+        return datosOk;
     }
     
     /** Cambia la posicion de la barra de scroll y del rectangulo del grafico 
@@ -258,4 +568,71 @@ public class VentanaGraficoControlador {
         );
     }
     
+    
+    /**
+     * Los valores de los que dependen los puntos de un grafico, que se
+     * guardan en campos en vez de en una lista para no reservar memoria en
+     * cada repintado
+     */
+    private final class ClaveGrafico {
+        
+        /** Si los valores guardados son los de la ultima actualizacion */
+        private boolean mValida;
+        
+        private DatosSensores mDatosClave;
+        private Reductor mReductor;
+        private long mNumMediciones;
+        private int mNumFilas, mDato, mMinX, mAncho, mMinY, mAlto;
+        private double mOffset, mZoom;
+        
+        /** Compara los valores actuales del grafico dado con los guardados,
+         * guardando los actuales en su lugar
+         * 
+         * @param panel el panel del grafico
+         * @param modelo el modelo del panel
+         * @return true si algun valor ha cambiado y hay que volver a calcular
+         *      los puntos, false en caso contrario */
+        boolean cambia(GraficoPanel panel, GraficoModelo modelo) {
+            // Con los datos en directo el numero de filas deja de crecer al
+            // llenarse, por lo que tambien tenemos en cuenta el numero de
+            // mediciones recibidas
+            DatosSensores datos = mDatos;
+            Reductor reductor = modelo.getReductor();
+            long numMediciones = miModelo.getNumMedicionesRecibidas();
+            int numFilas = modelo.getNumFilas(),
+                dato = miModelo.getDatoSeleccionado(),
+                minX = panel.getMinX(), ancho = panel.getViewportWidth(),
+                minY = panel.getMinY(), alto = panel.getViewportHeight();
+            double offset = modelo.getOffset(), zoom = modelo.getZoom();
+            
+            boolean ret = !mValida || (datos != mDatosClave)
+                || (reductor != mReductor) || (numMediciones != mNumMediciones)
+                || (numFilas != mNumFilas) || (dato != mDato)
+                || (minX != mMinX) || (ancho != mAncho)
+                || (minY != mMinY) || (alto != mAlto)
+                || (offset != mOffset) || (zoom != mZoom);
+            
+            mValida = true;
+            mDatosClave = datos;
+            mReductor = reductor;
+            mNumMediciones = numMediciones;
+            mNumFilas = numFilas;
+            mDato = dato;
+            mMinX = minX;
+            mAncho = ancho;
+            mMinY = minY;
+            mAlto = alto;
+            mOffset = offset;
+            mZoom = zoom;
+            return ret;
+        }
+        
+        /** Descarta los valores guardados, de forma que el grafico se vuelva
+         * a actualizar la proxima vez */
+        void invalida() {
+            mValida = false;
+        }
+        
+    }
+    
 }
@@ -4,6 +4,7 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.util.Enumeration;
 import javax.swing.AbstractButton;
+import javax.swing.ButtonGroup;
 import javax.swing.JRadioButtonMenuItem;
 
 /**
@@ -46,14 +47,7 @@ public class VentanaGraficoVista extends javax.swing.JInternalFrame {
     /** @return el indice de la opcion seleccionada en el comboBox, 
      *      -1 en caso de error */
     public int getSeleccionComboBox() {
-        Enumeration<AbstractButton> botones = seleccionDatoGroup.getElements();
-        
-        for (int ret = 0; botones.hasMoreElements(); ret++) {
-            if (botones.nextElement().isSelected()) {
-                return ret;
-            }
-        }
-        return -1;
+        return getSeleccion(seleccionDatoGroup);
     }
     
     /** Añade una opcion al Combobox de la ventana de grafico
@@ -72,6 +66,64 @@ public class VentanaGraficoVista extends javax.swing.JInternalFrame {
         seleccionDatoGroup.add(nuevoBotonDato);
         seleccionDatoMenu.add(nuevoBotonDato);
     }
+    
+    /** Añade una opcion a los menus de seleccion del algoritmo con el que se
+     * reducen los puntos de cada grafico de la ventana
+     *
+     * @param opcion el nombre del algoritmo que queremos añadir */
+    public void addOpcionAlgoritmo(String opcion) {
+        java.awt.event.ActionListener listener = new java.awt.event.ActionListener() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                miControlador.onAlgoritmoSeleccionado();
+            }
+        };
+        
+        JRadioButtonMenuItem nuevoBotonSuperior = new JRadioButtonMenuItem(opcion);
+        nuevoBotonSuperior.addActionListener(listener);
+        algoritmoSuperiorGroup.add(nuevoBotonSuperior);
+        algoritmoSuperiorMenu.add(nuevoBotonSuperior);
+        
+        JRadioButtonMenuItem nuevoBotonInferior = new JRadioButtonMenuItem(opcion);
+        nuevoBotonInferior.addActionListener(listener);
+        algoritmoInferiorGroup.add(nuevoBotonInferior);
+        algoritmoInferiorMenu.add(nuevoBotonInferior);
+    }
+    
+    /** @return el indice del algoritmo seleccionado para el grafico superior,
+     *      -1 si no hay ninguno seleccionado */
+    public int getAlgoritmoSuperior() {
+        return getSeleccion(algoritmoSuperiorGroup);
+    }
+    
+    /** @return el indice del algoritmo seleccionado para el grafico inferior,
+     *      -1 si no hay ninguno seleccionado */
+    public int getAlgoritmoInferior() {
+        return getSeleccion(algoritmoInferiorGroup);
+    }
+    
+    /** Selecciona los algoritmos de cada grafico en los menus
+     * 
+     * @param superior el indice del algoritmo del grafico superior
+     * @param inferior el indice del algoritmo del grafico inferior */
+    public void setAlgoritmos(int superior, int inferior) {
+        algoritmoSuperiorMenu.getItem(superior).setSelected(true);
+        algoritmoInferiorMenu.getItem(inferior).setSelected(true);
+    }
+    
+    /** @param grupo un grupo de botones de la ventana
+     * @return el indice del boton seleccionado del grupo, -1 si no hay
+     *      ninguno seleccionado */
+    private int getSeleccion(ButtonGroup grupo) {
+        Enumeration<AbstractButton> botones = grupo.getElements();
+        
+        for (int ret = 0; botones.hasMoreElements(); ret++) {
+            if (botones.nextElement().isSelected()) {
+                return ret;
+            }
+        }
+        return -1;
+    }
         
     /** @return la posicion actual de la barra de scroll en el rango
      * [0.0, 1.0] */
@@ -107,6 +159,36 @@ public class VentanaGraficoVista extends javax.swing.JInternalFrame {
         return graficoSuperior.getRectangulo(mRectanguloMapa);
     }
     
+    /** Muestra/oculta la opcion de cancelar la carga del archivo
+     * 
+     * @param visible true si queremos mostrar la opcion, false en caso
+     *      contrario */
+    public void setCancelarCargaVisible(boolean visible) {
+        cancelarCargaButton.setVisible(visible);
+    }
+    
+    /** Activa/desactiva la opcion de seguir el archivo
+     * 
+     * @param activa true si queremos activar la opcion, false en caso
+     *      contrario */
+    public void setSeguirArchivoEnabled(boolean activa) {
+        seguirArchivoCheckbox.setEnabled(activa);
+    }
+    
+    /** @return true si el checkbox de seguir el archivo esta seleccionado,
+     *      false en caso contrario */
+    public boolean isSeguirArchivoSeleccionado() {
+        return seguirArchivoCheckbox.isSelected();
+    }
+    
+    /** Cambia la seleccion del checkbox de seguir el archivo
+     * 
+     * @param seleccionado true si queremos seleccionar el checkbox, false en
+     *      caso contrario */
+    public void setSeguirArchivoSeleccionado(boolean seleccionado) {
+        seguirArchivoCheckbox.setSelected(seleccionado);
+    }
+    
     /** @return true si el checkbox de la visualizacion de los puntos esta
      *      seleccionado, false en caso contrario */
     public boolean isPuntosCheckboxSeleccionado() {
@@ -150,9 +232,15 @@ public class VentanaGraficoVista extends javax.swing.JInternalFrame {
         reducirButton = new javax.swing.JMenuItem();
         jSeparator1 = new javax.swing.JPopupMenu.Separator();
         seleccionDatoMenu = new javax.swing.JMenu();
+        algoritmoInferiorMenu = new javax.swing.JMenu();
         seleccionDatoGroup = new javax.swing.ButtonGroup();
+        algoritmoInferiorGroup = new javax.swing.ButtonGroup();
+        algoritmoSuperiorGroup = new javax.swing.ButtonGroup();
         contextMenuVentanta = new javax.swing.JPopupMenu();
         panelSuperiorCheckbox = new javax.swing.JCheckBoxMenuItem();
+        cancelarCargaButton = new javax.swing.JMenuItem();
+        seguirArchivoCheckbox = new javax.swing.JCheckBoxMenuItem();
+        algoritmoSuperiorMenu = new javax.swing.JMenu();
         panelSuperior = new javax.swing.JPanel();
         graficoSuperior = new visualizacionwearables.vista.GraficoPanel(false, true, false);
         panelInferior = new javax.swing.JPanel();
@@ -166,7 +254,6 @@ public class VentanaGraficoVista extends javax.swing.JInternalFrame {
             }
         });
         contextMenuGraficoInferior.add(puntosCheckbox);
-
         ampliarButton.setText("Ampliar");
         ampliarButton.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
@@ -187,6 +274,9 @@ public class VentanaGraficoVista extends javax.swing.JInternalFrame {
         seleccionDatoMenu.setText("Seleccionar Dato");
         contextMenuGraficoInferior.add(seleccionDatoMenu);
 
+        algoritmoInferiorMenu.setText("Algoritmo");
+        contextMenuGraficoInferior.add(algoritmoInferiorMenu);
+
         panelSuperiorCheckbox.setText("Ocultar Grafico Superior");
         panelSuperiorCheckbox.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
@@ -195,6 +285,25 @@ public class VentanaGraficoVista extends javax.swing.JInternalFrame {
         });
         contextMenuVentanta.add(panelSuperiorCheckbox);
 
+        cancelarCargaButton.setText("Cancelar Carga");
+        cancelarCargaButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                cancelarCargaButtonActionPerformed(evt);
+            }
+        });
+        contextMenuVentanta.add(cancelarCargaButton);
+
+        seguirArchivoCheckbox.setText("Seguir Archivo");
+        seguirArchivoCheckbox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                seguirArchivoCheckboxActionPerformed(evt);
+            }
+        });
+        contextMenuVentanta.add(seguirArchivoCheckbox);
+
+        algoritmoSuperiorMenu.setText("Algoritmo Grafico Superior");
+        contextMenuVentanta.add(algoritmoSuperiorMenu);
+
         setClosable(true);
         setIconifiable(true);
         setMaximizable(true);
@@ -203,6 +312,23 @@ public class VentanaGraficoVista extends javax.swing.JInternalFrame {
         setMinimumSize(new java.awt.Dimension(80, 60));
         setPreferredSize(new java.awt.Dimension(640, 480));
         setVisible(true);
+        addInternalFrameListener(new javax.swing.event.InternalFrameListener() {
+            public void internalFrameActivated(javax.swing.event.InternalFrameEvent evt) {
+            }
+            public void internalFrameClosed(javax.swing.event.InternalFrameEvent evt) {
+                formInternalFrameClosed(evt);
+            }
+            public void internalFrameClosing(javax.swing.event.InternalFrameEvent evt) {
+            }
+            public void internalFrameDeactivated(javax.swing.event.InternalFrameEvent evt) {
+            }
+            public void internalFrameDeiconified(javax.swing.event.InternalFrameEvent evt) {
+            }
+            public void internalFrameIconified(javax.swing.event.InternalFrameEvent evt) {
+            }
+            public void internalFrameOpened(javax.swing.event.InternalFrameEvent evt) {
+            }
+        });
         addComponentListener(new java.awt.event.ComponentAdapter() {
             public void componentResized(java.awt.event.ComponentEvent evt) {
                 formComponentResized(evt);
@@ -314,7 +440,6 @@ public class VentanaGraficoVista extends javax.swing.JInternalFrame {
     private void puntosCheckboxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_puntosCheckboxActionPerformed
         miControlador.onPuntosCheckbox();
     }//GEN-LAST:event_puntosCheckboxActionPerformed
-
     private void panelSuperiorCheckboxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_panelSuperiorCheckboxActionPerformed
         miControlador.onPanelSuperiorCheckbox();
     }//GEN-LAST:event_panelSuperiorCheckboxActionPerformed
@@ -323,8 +448,25 @@ public class VentanaGraficoVista extends javax.swing.JInternalFrame {
         miControlador.onResize();
     }//GEN-LAST:event_formComponentResized
 
+    private void cancelarCargaButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cancelarCargaButtonActionPerformed
+        miControlador.onCancelarCarga();
+    }//GEN-LAST:event_cancelarCargaButtonActionPerformed
+
+    private void seguirArchivoCheckboxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_seguirArchivoCheckboxActionPerformed
+        miControlador.onSeguirArchivo();
+    }//GEN-LAST:event_seguirArchivoCheckboxActionPerformed
+
+    private void formInternalFrameClosed(javax.swing.event.InternalFrameEvent evt) {//GEN-FIRST:event_formInternalFrameClosed
+        miControlador.onCerrar();
+    }//GEN-LAST:event_formInternalFrameClosed
+
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.ButtonGroup algoritmoInferiorGroup;
+    private javax.swing.JMenu algoritmoInferiorMenu;
+    private javax.swing.ButtonGroup algoritmoSuperiorGroup;
+    private javax.swing.JMenu algoritmoSuperiorMenu;
     private javax.swing.JMenuItem ampliarButton;
+    private javax.swing.JMenuItem cancelarCargaButton;
     private javax.swing.JPopupMenu contextMenuGraficoInferior;
     private javax.swing.JPopupMenu contextMenuVentanta;
     private visualizacionwearables.vista.GraficoPanelInteraccion graficoInferior;
@@ -336,6 +478,7 @@ public class VentanaGraficoVista extends javax.swing.JInternalFrame {
     private javax.swing.JCheckBoxMenuItem panelSuperiorCheckbox;
     private javax.swing.JCheckBoxMenuItem puntosCheckbox;
     private javax.swing.JMenuItem reducirButton;
+    private javax.swing.JCheckBoxMenuItem seguirArchivoCheckbox;
     private javax.swing.ButtonGroup seleccionDatoGroup;
     private javax.swing.JMenu seleccionDatoMenu;
     // End of variables declaration//GEN-END:variables
@@ -1,12 +1,15 @@
 package visualizacionwearables.vista;
 
+import java.awt.Point;
 import java.beans.PropertyVetoException;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.JInternalFrame;
 import javax.swing.JOptionPane;
-import visualizacionwearables.modelo.utils.LectorCSV;
 import visualizacionwearables.modelo.VentanaGraficoModelo;
+import visualizacionwearables.modelo.utils.DatosSensores;
 
 /**
  * Clase VentanaPrincipalControlador, siguiendo el patron MVC, esta clase 
@@ -23,6 +26,10 @@ public class VentanaPrincipalControlador {
     
     private final VentanaPrincipalVista miVista;
     
+    /** Los hilos encargados de leer los archivos, de forma que se pueden leer
+     * varios archivos a la vez sin bloquear la interfaz */
+    private final ExecutorService mCargas;
+    
     /**
      * Constructor de VentanaPrincipalControlador, crea una nueva 
      * Ventana Principal
@@ -31,26 +38,92 @@ public class VentanaPrincipalControlador {
         
         miVista = new VentanaPrincipalVista(this);
         miVista.setVisible(true);
+        mCargas = Executors.newCachedThreadPool();
     }
     
+    /** Metodo que se encarga de abrir el archivo seleccionado en la vista.
+     * <br>El archivo se lee en segundo plano, mostrando mientras tanto una
+     * ventana con el progreso de la lectura
+     * 
+     * @param file el archivo que queremos abrir */
     public void onSelectedFile(final File file) {
+        VentanaGraficoModelo modelo = new VentanaGraficoModelo(file);
+        modelo.setCargaDiferida(miVista.isCargaDiferidaSeleccionada());
+        modelo.setCargaComprimida(miVista.isCargaComprimidaSeleccionada());
+        CargaArchivoControlador carga = new CargaArchivoControlador(this, modelo);
         
-        java.awt.EventQueue.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    VentanaGraficoModelo modelo = new VentanaGraficoModelo(file);
-                    VentanaGraficoControlador controlador = new VentanaGraficoControlador(modelo);
-                    
-                    miVista.addInternalFrame(controlador.getVista());
-                } catch (IOException | LectorCSV.DatosFormatException e) {
-                    JOptionPane.showMessageDialog(
-                        miVista,
-                        "Error al abrir el archivo \"" + file.getName() + '\"'
-                    );
-                }
-            }
-        });
+        miVista.addInternalFrame(carga.getVista());
+        mCargas.execute(carga);
+    }
+    
+    /** Metodo que se encarga de abrir una ventana de grafico con los datos
+     * recibidos en directo desde el puerto local introducido en la vista
+     * 
+     * @param puerto el texto con el numero de puerto introducido */
+    public void onConectarSensores(String puerto) {
+        // 1. Validamos los datos de la vista
+        int numPuerto;
+        try {
+            numPuerto = Integer.parseInt(puerto.trim());
+        } catch (NumberFormatException e) {
+            numPuerto = -1;
+        }
+        
+        if ((numPuerto <= 0) || (numPuerto > 65535)) {
+            JOptionPane.showMessageDialog(miVista, "Puerto \"" + puerto + "\" incorrecto");
+            return;
+        }
+        
+        // 2. Actualizamos el modelo
+        VentanaGraficoModelo modelo = new VentanaGraficoModelo(numPuerto);
+        DatosSensores datos;
+        try {
+            datos = modelo.conecta();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(
+                miVista, "No se pudo abrir el puerto " + numPuerto + "\n" + e.getMessage()
+            );
+            return;
+        }
+        
+        // 3. Actualizamos la vista
+        VentanaGraficoControlador controlador = new VentanaGraficoControlador(
+            modelo, datos, null
+        );
+        miVista.addInternalFrame(controlador.getVista());
+    }
+    
+    /** Metodo que se encarga de mostrar la ventana de grafico de un archivo
+     * en cuanto hay datos que mostrar, aunque no haya terminado su lectura
+     * 
+     * @param modelo el modelo de la ventana de grafico
+     * @param datos los datos leidos del archivo
+     * @param carga la lectura del archivo
+     * @param posicion la posicion donde se mostraba la ventana de carga
+     * @return el controlador de la ventana de grafico creada */
+    VentanaGraficoControlador onDatosDisponibles(VentanaGraficoModelo modelo,
+            DatosSensores datos, CargaArchivoControlador carga, Point posicion) {
+        VentanaGraficoControlador controlador = new VentanaGraficoControlador(
+            modelo, datos, carga.isDone()? null : carga
+        );
+        
+        controlador.getVista().setLocation(posicion);
+        miVista.addInternalFrame(controlador.getVista());
+        return controlador;
+    }
+    
+    /** Metodo que se encarga de avisar al usuario de que no se ha podido leer
+     * un archivo
+     * 
+     * @param modelo el modelo de la ventana de grafico
+     * @param error el error producido al leer el archivo */
+    void onErrorCarga(VentanaGraficoModelo modelo, Throwable error) {
+        String mensaje = "Error al abrir el archivo \"" + modelo.getTitulo() + '\"';
+        if (error.getMessage() != null) {
+            mensaje += "\n" + error.getMessage();
+        }
+        
+        JOptionPane.showMessageDialog(miVista, mensaje);
     }
     
     /** Funcion que implementa la division de las vertanas internas
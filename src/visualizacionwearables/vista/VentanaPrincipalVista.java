@@ -2,6 +2,8 @@ package visualizacionwearables.vista;
 
 import javax.swing.JFileChooser;
 import javax.swing.JInternalFrame;
+import javax.swing.JOptionPane;
+import visualizacionwearables.modelo.utils.ReceptorSensores;
 
 /**
  * Clase VentanaPrincipalVista, representa la ventana principal del programa,
@@ -45,6 +47,18 @@ public class VentanaPrincipalVista extends javax.swing.JFrame {
     public JInternalFrame[] getInternalFrames() {
         return internalFramesPanel.getAllFrames();
     }
+    
+    /** @return true si esta seleccionada la carga diferida de los archivos,
+     *      false en caso contrario */
+    public boolean isCargaDiferidaSeleccionada() {
+        return LazyLoadMenuButton.isSelected();
+    }
+    
+    /** @return true si esta seleccionada la carga comprimida de los archivos,
+     *      false en caso contrario */
+    public boolean isCargaComprimidaSeleccionada() {
+        return CompressedLoadMenuButton.isSelected();
+    }
 
     /**
      * This method is called from within the constructor to initialize the form.
@@ -59,6 +73,9 @@ public class VentanaPrincipalVista extends javax.swing.JFrame {
         barraHerramientas = new javax.swing.JMenuBar();
         FileMenuButton = new javax.swing.JMenu();
         OpenFileMenuButton = new javax.swing.JMenuItem();
+        LazyLoadMenuButton = new javax.swing.JCheckBoxMenuItem();
+        CompressedLoadMenuButton = new javax.swing.JCheckBoxMenuItem();
+        ConnectMenuButton = new javax.swing.JMenuItem();
         ViewMenuButton = new javax.swing.JMenu();
         SplitHorizontalMenuButton = new javax.swing.JMenuItem();
 
@@ -88,6 +105,22 @@ public class VentanaPrincipalVista extends javax.swing.JFrame {
         });
         FileMenuButton.add(OpenFileMenuButton);
 
+        LazyLoadMenuButton.setText("Carga Diferida");
+        LazyLoadMenuButton.setToolTipText("Traduce cada eje del archivo solo cuando se muestra");
+        FileMenuButton.add(LazyLoadMenuButton);
+
+        CompressedLoadMenuButton.setText("Carga Comprimida");
+        CompressedLoadMenuButton.setToolTipText("Guarda los datos del archivo comprimidos en memoria");
+        FileMenuButton.add(CompressedLoadMenuButton);
+
+        ConnectMenuButton.setText("Conectar Sensores...");
+        ConnectMenuButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                ConnectMenuButtonActionPerformed(evt);
+            }
+        });
+        FileMenuButton.add(ConnectMenuButton);
+
         barraHerramientas.add(FileMenuButton);
 
         ViewMenuButton.setText("Vista");
@@ -131,8 +164,23 @@ public class VentanaPrincipalVista extends javax.swing.JFrame {
         miControlador.onSplit();
     }//GEN-LAST:event_SplitHorizontalMenuButtonActionPerformed
 
+    private void ConnectMenuButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_ConnectMenuButtonActionPerformed
+        
+        String puerto = JOptionPane.showInputDialog(
+            this, "Puerto local por el que se reciben los datos:",
+            ReceptorSensores.PUERTO_POR_DEFECTO
+        );
+        
+        if (puerto != null) {
+            miControlador.onConectarSensores(puerto);
+        }
+    }//GEN-LAST:event_ConnectMenuButtonActionPerformed
+
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JCheckBoxMenuItem CompressedLoadMenuButton;
+    private javax.swing.JMenuItem ConnectMenuButton;
     private javax.swing.JMenu FileMenuButton;
+    private javax.swing.JCheckBoxMenuItem LazyLoadMenuButton;
     private javax.swing.JMenuItem OpenFileMenuButton;
     private javax.swing.JMenuItem SplitHorizontalMenuButton;
     private javax.swing.JMenu ViewMenuButton;
@@ -0,0 +1,79 @@
+package visualizacionwearables;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import visualizacionwearables.modelo.utils.ReceptorSensores;
+
+/**
+ * Programa de prueba que simula unos sensores enviando mediciones en directo
+ * al puerto local donde las recibe la aplicacion (Archivo > Conectar
+ * Sensores...).
+ * <br>Las mediciones se envian con el mismo formato que las filas de los
+ * archivos csv, con el tiempo en milisegundos desde la medicion anterior.
+ * 
+ * <pre>
+ * uso: GeneradorSensores [puerto] [mediciones por segundo]
+ * </pre>
+ * 
+ * @author  Daniel González Alonso
+ * @since   17/10/2026
+ * @version 1.0
+ */
+public class GeneradorSensores {
+    
+    /** El tiempo en milisegundos entre cada envio de mediciones */
+    private static final long PERIODO = 10;
+    
+    /**
+     * @param args el puerto al que enviar las mediciones y el numero de
+     *      mediciones por segundo
+     */
+    public static void main(String[] args) throws Exception {
+        
+        int puerto = (args.length > 0)?
+            Integer.parseInt(args[0]) : ReceptorSensores.PUERTO_POR_DEFECTO;
+        double frecuencia = (args.length > 1)? Double.parseDouble(args[1]) : 1000;
+        double intervalo = 1000 / frecuencia;
+        
+        // Esperamos a que la aplicacion este recibiendo datos
+        Socket socket = null;
+        while (socket == null) {
+            try {
+                socket = new Socket(InetAddress.getByName(null), puerto);
+            } catch (IOException e) {
+                System.out.println("Esperando al puerto " + puerto + "...");
+                Thread.sleep(1000);
+            }
+        }
+        System.out.println("Enviando " + frecuencia + " mediciones por segundo");
+        
+        try (OutputStream salida = socket.getOutputStream()) {
+            StringBuilder mensaje = new StringBuilder();
+            long inicio = System.nanoTime(), numEnviadas = 0;
+            
+            while (true) {
+                // Enviamos las mediciones que corresponden al tiempo
+                // transcurrido desde el inicio
+                long numMediciones = (long) ((System.nanoTime() - inicio) / 1e6 / intervalo);
+                
+                mensaje.setLength(0);
+                for (; numEnviadas < numMediciones; numEnviadas++) {
+                    double t = numEnviadas * intervalo / 1000;
+                    mensaje.append(intervalo).append(';')
+                           .append(Math.sin(2 * Math.PI * t)).append(';')
+                           .append(Math.cos(2 * Math.PI * 0.5 * t)).append(';')
+                           .append(Math.sin(2 * Math.PI * 3 * t) * 0.5 + Math.random() * 0.1)
+                           .append('\n');
+                }
+                salida.write(mensaje.toString().getBytes(StandardCharsets.US_ASCII));
+                salida.flush();
+                
+                Thread.sleep(PERIODO);
+            }
+        }
+    }
+    
+}